@@ -1,9 +1,24 @@
 package com.ethanstore.api.config;
 
+import com.ethanstore.api.util.CalibratedBCryptPasswordEncoder;
+import com.ethanstore.api.util.OffloadingPasswordEncoder;
+import com.ethanstore.api.util.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.filter.CorsFilter;
@@ -14,13 +29,59 @@ import java.nio.file.Paths;
 import java.util.Arrays;
 
 import static com.ethanstore.api.constant.FileConstant.USER_FOLDER;
+import static com.ethanstore.api.constant.SecurityConstant.*;
 
 @Configuration
+@EnableAsync
+@EnableScheduling
 public class AppConfig {
 
+    /**
+     * Declared explicitly because defining {@code imageTaskExecutor} switches off Boot's default executor, which
+     * Spring MVC still needs for async requests such as {@code /user/export}. Replaced by a virtual-thread executor in
+     * the virtual-thread mode of the {@code java21} build.
+     */
+    @Lazy
+    @ConditionalOnProperty(name = "ethanstore.virtual-threads.enabled", havingValue = "false", matchIfMissing = true)
+    @Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder taskExecutorBuilder) {
+        return taskExecutorBuilder.build();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor imageTaskExecutor(@Value("${ethanstore.thumbnails.threads:2}") int threads,
+                                                    @Value("${ethanstore.thumbnails.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public BCryptPasswordEncoder bCryptPasswordEncoder(@Value("${ethanstore.password-hashing.strength:0}") int strength,
+                                                       @Value("${ethanstore.password-hashing.target-millis:100}") long targetMillis,
+                                                       @Value("${ethanstore.password-hashing.min-strength:10}") int minStrength,
+                                                       @Value("${ethanstore.password-hashing.max-strength:14}") int maxStrength) {
+        return CalibratedBCryptPasswordEncoder.create(strength, targetMillis, minStrength, maxStrength);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public PasswordHashingExecutor passwordHashingExecutor(@Value("${ethanstore.password-hashing.threads:0}") int threads,
+                                                           @Value("${ethanstore.password-hashing.queue-capacity:32}") int queueCapacity,
+                                                           @Value("${ethanstore.password-hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                                                           MeterRegistry meterRegistry) {
+        return new PasswordHashingExecutor(threads, queueCapacity, retryAfterSeconds, meterRegistry);
+    }
+
     @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Primary
+    public PasswordEncoder passwordEncoder(BCryptPasswordEncoder bCryptPasswordEncoder, PasswordHashingExecutor passwordHashingExecutor,
+                                           MeterRegistry meterRegistry) {
+        return new OffloadingPasswordEncoder(bCryptPasswordEncoder, passwordHashingExecutor, meterRegistry);
     }
 
     @Bean
@@ -34,7 +95,8 @@ public class AppConfig {
                 "Authorization", "X-Requested-With", "Access-Control-Request-Method",
                 "Access-Control-Request-Headers", "Access-Control-Allow-Credentials"));
         corsConfiguration.setExposedHeaders(Arrays.asList("Origin", "Access-Control-Allow-Origin", "Content-Type",
-                "Accept", "Jwt-Token", "Authorization", "Access-Control-Allow-Credentials", "X-Requested-Wit"));
+                "Accept", "Jwt-Token", "Authorization", "Access-Control-Allow-Credentials", "X-Requested-Wit",
+                RATE_LIMIT_LIMIT_HEADER, RATE_LIMIT_REMAINING_HEADER, RATE_LIMIT_RESET_HEADER, "Retry-After", SERVER_TIMING_HEADER));
         corsConfiguration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         urlBasedCorsConfigurationSource.registerCorsConfiguration("/**", corsConfiguration);
 
@@ -0,0 +1,86 @@
+package com.ethanstore.api.config;
+
+import com.ethanstore.api.util.PersistenceStatistics;
+import org.hibernate.SessionEventListener;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feeds {@link PersistenceStatistics} from Hibernate: statements from a {@link StatementInspector}, JDBC time from a
+ * per-session {@link SessionEventListener}, and query rows and loaded entities from Hibernate's statistics, which
+ * this therefore switches on. Hibernate's own per-session metrics logging stays off.
+ */
+@Configuration
+@EnableConfigurationProperties(PersistenceStatisticsProperties.class)
+public class PersistenceStatisticsConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "ethanstore.persistence-statistics.enabled", havingValue = "true", matchIfMissing = true)
+    public HibernatePropertiesCustomizer persistenceStatisticsCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                PersistenceStatistics.statementPrepared(sql);
+                return sql;
+            });
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimeListener.class.getName());
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+            properties.put(StatisticsInitiator.STATS_BUILDER, (StatisticsFactory) RowCountingStatistics::new);
+        };
+    }
+
+    /** Created by Hibernate for every session, so it may keep the start time of the call in progress. */
+    public static class JdbcTimeListener implements SessionEventListener {
+
+        private long executeStart;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            PersistenceStatistics.jdbcExecuted(System.nanoTime() - executeStart);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            executeStart = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            PersistenceStatistics.jdbcExecuted(System.nanoTime() - executeStart);
+        }
+    }
+
+    /** Hibernate's statistics, which stay complete, plus the per-request counts. */
+    static class RowCountingStatistics extends StatisticsImpl {
+
+        RowCountingStatistics(SessionFactoryImplementor sessionFactory) {
+            super(sessionFactory);
+        }
+
+        @Override
+        public void queryExecuted(String hql, int rows, long time) {
+            super.queryExecuted(hql, rows, time);
+            PersistenceStatistics.rowsReturned(rows);
+        }
+
+        @Override
+        public void loadEntity(String entityName) {
+            super.loadEntity(entityName);
+            PersistenceStatistics.entityLoaded();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ethanstore.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of {@code PersistenceStatisticsFilter}. Budgets are keyed by the URI template of the handler, for example
+ * {@code /user/find/{username}}; endpoints without one get {@code statementBudget}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ethanstore.persistence-statistics")
+public class PersistenceStatisticsProperties {
+
+    private boolean enabled = true;
+
+    private boolean serverTimingHeader = false;
+
+    private int statementBudget = 10;
+
+    private int repeatedStatementThreshold = 3;
+
+    private Map<String, Integer> budgets = new HashMap<>();
+}
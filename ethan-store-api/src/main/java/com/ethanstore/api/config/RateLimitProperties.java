@@ -0,0 +1,52 @@
+package com.ethanstore.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bucket sizes for {@code RateLimitFilter}. A request is limited by the first of {@code rules} whose pattern matches
+ * its path, otherwise by {@code publicUrls} if it is one of {@code SecurityConstant.PUBLIC_URLS}, otherwise by
+ * {@code defaults}. Every pattern gets its own buckets.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "ethanstore.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    private long idleSeconds = 60;
+
+    private long maxKeys = 1_000_000;
+
+    private Limit publicUrls = new Limit(20, 5);
+
+    private Limit defaults = new Limit(100, 50);
+
+    private List<Rule> rules = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+
+        public Limit() {
+        }
+
+        public Limit(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Rule extends Limit {
+        private String pattern;
+    }
+}
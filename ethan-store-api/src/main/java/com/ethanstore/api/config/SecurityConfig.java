@@ -3,10 +3,14 @@ package com.ethanstore.api.config;
 import com.ethanstore.api.filter.JwtAccessDeniedHandler;
 import com.ethanstore.api.filter.JwtAuthenticationEntryPoint;
 import com.ethanstore.api.filter.JwtAuthorizationFilter;
+import com.ethanstore.api.filter.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -14,39 +18,53 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 import java.util.Arrays;
+import java.util.stream.Stream;
 
+import static com.ethanstore.api.constant.SecurityConstant.MANAGEMENT_URLS;
 import static com.ethanstore.api.constant.SecurityConstant.PUBLIC_URLS;
+import static jakarta.servlet.DispatcherType.ASYNC;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
     private JwtAuthorizationFilter jwtAuthorizationFilter;
+    private RateLimitFilter rateLimitFilter;
     private JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private UserDetailsService userDetailsService;
-    private BCryptPasswordEncoder bCryptPasswordEncoder;
+    private UserDetailsPasswordService userDetailsPasswordService;
+    private PasswordEncoder passwordEncoder;
+    private AuthenticationEventPublisher authenticationEventPublisher;
 
     @Autowired
     public SecurityConfig(JwtAuthorizationFilter jwtAuthorizationFilter,
+                          RateLimitFilter rateLimitFilter,
                           JwtAccessDeniedHandler jwtAccessDeniedHandler,
                           JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
                           @Qualifier("userDetailsService") UserDetailsService userDetailsService,
-                          BCryptPasswordEncoder bCryptPasswordEncoder) {
+                          UserDetailsPasswordService userDetailsPasswordService,
+                          PasswordEncoder passwordEncoder,
+                          AuthenticationEventPublisher authenticationEventPublisher) {
         this.jwtAuthorizationFilter = jwtAuthorizationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.jwtAccessDeniedHandler = jwtAccessDeniedHandler;
         this.jwtAuthenticationEntryPoint = jwtAuthenticationEntryPoint;
         this.userDetailsService = userDetailsService;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.userDetailsPasswordService = userDetailsPasswordService;
+        this.passwordEncoder = passwordEncoder;
+        this.authenticationEventPublisher = authenticationEventPublisher;
     }
 
     @Bean
@@ -54,8 +72,8 @@ public class SecurityConfig {
         return http.csrf(AbstractHttpConfigurer::disable).cors(corsConfigurer -> corsConfigurer.configure(http))
                 .sessionManagement(session -> session.sessionCreationPolicy(STATELESS))
                 .authorizeHttpRequests(auth ->
-                        auth.requestMatchers(
-                                Arrays.stream(PUBLIC_URLS)
+                        auth.dispatcherTypeMatchers(ASYNC).permitAll().requestMatchers(
+                                Stream.concat(Arrays.stream(PUBLIC_URLS), Arrays.stream(MANAGEMENT_URLS))
                                         .map(AntPathRequestMatcher::new)
                                         .toArray(AntPathRequestMatcher[]::new)
                         ).permitAll().anyRequest().authenticated())
@@ -65,17 +83,29 @@ public class SecurityConfig {
                                 .authenticationEntryPoint(jwtAuthenticationEntryPoint)
                 )
                 .addFilterBefore(jwtAuthorizationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthorizationFilter.class)
                 .build();
 
     }
 
+    /** Keeps Boot from also registering the rate limiter with the servlet container, ahead of the JWT filter. */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration() {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager() {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-        provider.setPasswordEncoder(bCryptPasswordEncoder);
+        provider.setPasswordEncoder(passwordEncoder);
         provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
 
-        return new ProviderManager(provider);
+        ProviderManager providerManager = new ProviderManager(provider);
+        providerManager.setAuthenticationEventPublisher(authenticationEventPublisher);
+        return providerManager;
     }
 
 }
@@ -4,6 +4,13 @@ public class Authority {
     public static final String[] USER_AUTHORITIES = {"user:read"};
     public static final String[] HR_AUTHORITIES = {"user:read", "user:update"};
     public static final String[] MANAGER_AUTHORITIES = {"user:read", "user:update"};
-    public static final String[] ADMIN_AUTHORITIES = {"user:read", "user:create", "user:update"};
-    public static final String[] SUPER_ADMIN_AUTHORITIES = {"user:read", "user:create", "user:update", "user:delete"};
+    public static final String[] ADMIN_AUTHORITIES = {"user:read", "user:create", "user:update", "product:write"};
+    public static final String[] SUPER_ADMIN_AUTHORITIES = {"user:read", "user:create", "user:update", "user:delete", "product:write"};
+
+    /**
+     * Bit positions of the authorities in the token's authority bitmask, bit 0 first. Only ever append: issued tokens
+     * carry {@link #AUTHORITY_BITS_VERSION}, and reordering or removing an entry means bumping it.
+     */
+    public static final String[] AUTHORITY_BITS = {"user:read", "user:create", "user:update", "user:delete", "product:write"};
+    public static final int AUTHORITY_BITS_VERSION = 1;
 }
@@ -5,10 +5,17 @@ public class FileConstant {
     public static final String USER_IMAGE_PATH = "/user/image/";
     public static final String JPG_EXTENTION = "jpg";
     public static final String USER_FOLDER = System.getProperty("user.home") + "/ethanstore/user/";
+    public static final String BLOB_FOLDER = System.getProperty("user.home") + "/ethanstore/blob/";
+    public static final String BLOB_IMAGE_PATH = "/user/image/blob/";
+    public static final String AVATAR_FOLDER = System.getProperty("user.home") + "/ethanstore/avatar/";
+    public static final String SEARCH_INDEX_FOLDER = System.getProperty("user.home") + "/ethanstore/search-index/";
     public static final String DIRECTORY_CREATED = "Created directory for: ";
     public static final String DEFAULT_USER_IMAGE_PATH = "/user/image/profile/";
     public static final String FILE_SAVED_IN_FILE_SYSTEM = "Saved file in file system by name: ";
     public static final String DOT = ".";
     public static final String FORWARD_SLASH = "/";
-    public static final String TMP_PROFILE_IMAGE_BASE_URL = "https://ui-avatars.com/api/?background=0D8ABC&color=fff&name=";
+    public static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    public static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    public static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    public static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 }
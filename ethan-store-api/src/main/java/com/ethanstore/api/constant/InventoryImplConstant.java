@@ -0,0 +1,11 @@
+package com.ethanstore.api.constant;
+
+public class InventoryImplConstant {
+    public static final String NO_RESERVATION_FOUND_BY_ID = "No active reservation found by id: ";
+    public static final String NOT_ENOUGH_STOCK = "Not enough stock left for product: ";
+    public static final String INVALID_QUANTITY = "Quantity must be between 1 and ";
+    public static final String TOO_MANY_RESERVATIONS = "Too many open reservations, please try again shortly";
+    public static final String TOO_MANY_OPEN_RESERVATIONS = "Commit or release a reservation first, open reservations per account are limited to ";
+    public static final String INVENTORY_SERVED_ELSEWHERE = "Inventory is served by another node, please try again shortly";
+    public static final String INVENTORY_LEASE = "inventory";
+}
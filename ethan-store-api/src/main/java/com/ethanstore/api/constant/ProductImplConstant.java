@@ -0,0 +1,19 @@
+package com.ethanstore.api.constant;
+
+public class ProductImplConstant {
+    public static final String NO_PRODUCT_FOUND_BY_ID = "No product found by id: ";
+    public static final int MAX_PRODUCT_PAGE_SIZE = 100;
+    public static final int MAX_SEARCH_WINDOW = 10_000;
+    public static final int MAX_SUGGESTIONS = 20;
+    public static final String SEARCH_WINDOW_EXCEEDED = "Search results are limited to the first " + MAX_SEARCH_WINDOW + " hits; narrow the query";
+    public static final int MAX_SEARCH_TEXT_LENGTH = 200;
+    public static final int MAX_SEARCH_TERMS = 6;
+    public static final String SEARCH_TEXT_TOO_LONG = "Search text is limited to " + MAX_SEARCH_TEXT_LENGTH + " characters";
+    public static final String PRODUCT_VERSION_REQUIRED = "Send the version the product was read at";
+    public static final String STALE_PRODUCT = "Product %d changed since version %d was read, now at version %d; reload it and edit again";
+    public static final double MAX_RATING = 5;
+    public static final String PRODUCT_FIELD_REQUIRED = "Product %s is required";
+    public static final String PRODUCT_FIELD_NEGATIVE = "Product %s cannot be negative";
+    public static final String PRODUCT_RATING_OUT_OF_RANGE = "Product rating must be between 0 and " + MAX_RATING;
+    public static final String TOO_MANY_SEARCH_TERMS = "Search text is limited to " + MAX_SEARCH_TERMS + " words";
+}
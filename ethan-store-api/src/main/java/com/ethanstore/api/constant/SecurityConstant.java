@@ -8,8 +8,16 @@ public class SecurityConstant {
     public static final String GET_ARRAYS_LLC = "Get Arrays, LLC";
     public static final String GET_ARRAYS_ADMINISTRATION = "User Management Portal";
     public static final String AUTHORITIES = "authorities";
+    public static final String AUTHORITY_BITS_CLAIM = "ab";
+    public static final String AUTHORITY_BITS_VERSION_CLAIM = "abv";
     public static final String FORBIDDEN_MESSAGE = "You need to login to access this page";
     public static final String ACCESS_DENIED_MESSAGE = "you do not have permission to access this page";
     public static final String OPTIONS_HTTP_METHOD = "OPTIONS";
-    public static final String[] PUBLIC_URLS = {"/user/login", "/user/register", "/user/reset-password/**", "/user/image/**"};
+    public static final String TOO_MANY_REQUESTS_MESSAGE = "Too many requests, please try again later";
+    public static final String RATE_LIMIT_LIMIT_HEADER = "RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET_HEADER = "RateLimit-Reset";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String[] PUBLIC_URLS = {"/user/login", "/user/register", "/user/reset-password/**", "/user/image/**", "/product/list", "/product/search", "/product/suggest", "/product/find/**", "/inventory/available/**"};
+    public static final String[] MANAGEMENT_URLS = {"/actuator/health", "/actuator/prometheus"};
 }
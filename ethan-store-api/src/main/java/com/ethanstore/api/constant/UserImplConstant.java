@@ -4,5 +4,9 @@ public class UserImplConstant {
     public static final String NO_USER_FOUND_BY_USERNAME = "No user found by username: ";
     public static final String NO_USER_FOUND_BY_EMAIL = "No user found for email: ";
     public static final String ALREADY_EXISTS_BY_USERNAME = "Username already exists by username: ";
+    public static final String ALREADY_EXISTS_BY_USERNAME_OR_EMAIL = "Username or email already exists by username: ";
     public static final String ALREADY_EXISTS_BY_EMAIL = "Email already exists by email: ";
+    public static final String NO_SUCH_ROLE = "No such role: ";
+    public static final String DESCENDING = "desc";
+    public static final int MAX_USER_PAGE_SIZE = 100;
 }
@@ -0,0 +1,27 @@
+package com.ethanstore.api.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A stored profile image, identified by the SHA-256 of its content. {@code referenceCount} is the number of users
+ * pointing at it; {@code releasedAt} records when the last reference was dropped so unreferenced blobs are only
+ * swept after a grace period.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "image_blobs", indexes = @Index(name = "ix_image_blobs_released_at", columnList = "releasedAt"))
+public class ImageBlob implements Serializable {
+    @Id
+    @Column(length = 64, nullable = false, updatable = false)
+    private String hash;
+    private long size;
+    private int referenceCount;
+    private LocalDateTime releasedAt;
+}
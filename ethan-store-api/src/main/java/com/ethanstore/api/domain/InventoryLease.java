@@ -0,0 +1,24 @@
+package com.ethanstore.api.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * A named lease one node holds until {@code expiresAt}, in epoch milliseconds, and renews well before then. Another
+ * node can only take it over once it has expired or been released.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "inventory_leases")
+public class InventoryLease implements Serializable {
+    @Id
+    @Column(nullable = false, updatable = false)
+    private String name;
+    private String owner;
+    private long expiresAt;
+}
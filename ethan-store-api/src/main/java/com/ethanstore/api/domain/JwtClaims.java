@@ -0,0 +1,23 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable view of a verified JWT. Built once per token so the filter never has to decode it again.
+ */
+@Getter
+@AllArgsConstructor
+public final class JwtClaims {
+    private final String subject;
+    private final List<GrantedAuthority> authorities;
+    private final Date expiresAt;
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt != null && expiresAt.getTime() <= nowMillis;
+    }
+}
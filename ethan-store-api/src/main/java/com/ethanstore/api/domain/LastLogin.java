@@ -0,0 +1,29 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A login that has been recorded in memory but not yet written to the {@code users} table. {@code previousLogin} is
+ * {@code null} when the stored last login date should become the display value.
+ */
+@Getter
+@AllArgsConstructor
+public final class LastLogin {
+    private final String username;
+    private final LocalDateTime previousLogin;
+    private final LocalDateTime latestLogin;
+
+    public LastLogin next(LocalDateTime loginDate) {
+        return new LastLogin(username, latestLogin, loginDate);
+    }
+
+    /**
+     * Folds a login that failed to flush back under one that was recorded since, keeping the oldest previous login.
+     */
+    public LastLogin mergeNewer(LastLogin newer) {
+        return newer.previousLogin == null ? new LastLogin(username, latestLogin, newer.latestLogin) : newer;
+    }
+}
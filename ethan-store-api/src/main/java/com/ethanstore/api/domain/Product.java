@@ -0,0 +1,36 @@
+package com.ethanstore.api.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder(toBuilder = true)
+@Entity
+@Table(name = "products", indexes = @Index(name = "ix_products_updated_at", columnList = "updatedAt"))
+public class Product implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+    private String name;
+    private String image;
+    @Column(length = 2000)
+    private String description;
+    private String brand;
+    private String category;
+    @Column(precision = 12, scale = 2)
+    private BigDecimal price;
+    private int countInStock;
+    private double rating;
+    private int numReviews;
+    @Version
+    private Long version;
+    private LocalDateTime updatedAt;
+}
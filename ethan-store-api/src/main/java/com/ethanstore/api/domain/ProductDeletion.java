@@ -0,0 +1,24 @@
+package com.ethanstore.api.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Records that a product was deleted, so nodes that did not delete it can drop it from their catalog index. Product
+ * ids are never reused, so a tombstone cannot hide a later product.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "product_deletions", indexes = @Index(name = "ix_product_deletions_deleted_at", columnList = "deletedAt"))
+public class ProductDeletion implements Serializable {
+    @Id
+    @Column(nullable = false, updatable = false)
+    private Long productId;
+    private LocalDateTime deletedAt;
+}
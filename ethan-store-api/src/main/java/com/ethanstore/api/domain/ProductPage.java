@@ -0,0 +1,22 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a {@link ProductQuery}. The brand counts apply every filter except the brand one, and the category
+ * counts every filter except the category one, so the UI can show how many products each further choice would give.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductPage {
+    private List<Product> products;
+    private int page;
+    private int size;
+    private int total;
+    private Map<String, Integer> brandCounts;
+    private Map<String, Integer> categoryCounts;
+}
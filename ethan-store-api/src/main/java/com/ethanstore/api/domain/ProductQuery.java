@@ -0,0 +1,26 @@
+package com.ethanstore.api.domain;
+
+import com.ethanstore.api.enumeration.ProductSortField;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Faceted catalog query: products of any of {@code brands} and any of {@code categories} (empty meaning all), within
+ * the price bounds and at or above {@code minRating}, sorted and cut to page {@code page} of {@code size}.
+ */
+@Getter
+@Builder
+public class ProductQuery {
+    private Set<String> brands;
+    private Set<String> categories;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Double minRating;
+    private ProductSortField sortField;
+    private boolean ascending;
+    private int page;
+    private int size;
+}
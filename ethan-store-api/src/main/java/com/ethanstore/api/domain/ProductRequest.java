@@ -0,0 +1,31 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of a product add or update. Numbers are boxed so that a field left out of the body can be told apart from a
+ * zero and refused, rather than replacing the stock count or rating with 0.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductRequest {
+    private String name;
+    private String image;
+    private String description;
+    private String brand;
+    private String category;
+    private BigDecimal price;
+    private Integer countInStock;
+    private Double rating;
+    private Integer numReviews;
+    private Long version;
+}
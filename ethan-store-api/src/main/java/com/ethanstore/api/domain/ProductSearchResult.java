@@ -0,0 +1,20 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One page of full-text search hits, best match first. {@code total} is exact only when {@code totalExact} is set;
+ * past a thousand hits the search stops counting and reports a lower bound.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductSearchResult {
+    private List<Product> products;
+    private int page;
+    private int size;
+    private long total;
+    private boolean totalExact;
+}
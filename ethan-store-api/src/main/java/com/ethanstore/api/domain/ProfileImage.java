@@ -0,0 +1,24 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.file.Path;
+
+/**
+ * A profile image file ready to be served. {@code content} is only set when the image is held in the hot image
+ * cache; otherwise the file is streamed from {@code path}.
+ */
+@Getter
+@AllArgsConstructor
+public final class ProfileImage {
+    private final Path path;
+    private final long contentLength;
+    private final long lastModified;
+    private final String eTag;
+    private final byte[] content;
+
+    public boolean isCached() {
+        return content != null;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ethanstore.api.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Units of a product held for {@code owner} until they are committed, released or {@code expiresAt} passes.
+ */
+@Getter
+@AllArgsConstructor
+public final class Reservation {
+    private final String id;
+    private final Long productId;
+    private final int quantity;
+    @JsonIgnore
+    private final String owner;
+    private final Instant expiresAt;
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt.toEpochMilli() <= nowMillis;
+    }
+}
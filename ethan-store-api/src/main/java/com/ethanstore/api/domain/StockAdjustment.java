@@ -0,0 +1,28 @@
+package com.ethanstore.api.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * A stock edit written in the same transaction as the product, so the node serving inventory applies edits made on
+ * any node. {@code version} is the product's version after the edit; version 0 is its creation. Ids come from an
+ * identity column, and writes to one product hold its row lock, so one product's adjustments are in id order.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "stock_adjustments")
+public class StockAdjustment implements Serializable {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false, updatable = false)
+    private Long id;
+    private Long productId;
+    private long version;
+    private int stockChange;
+    private boolean deleted;
+}
@@ -12,7 +12,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder(toBuilder = true)
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_username", columnList = "username", unique = true),
+        @Index(name = "ux_users_email", columnList = "email", unique = true),
+        @Index(name = "ux_users_user_id", columnList = "userId", unique = true),
+        @Index(name = "ix_users_join_date", columnList = "joinDate, id")
+})
 public class User implements Serializable {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -25,7 +30,12 @@ public class User implements Serializable {
     private String password;
     private String email;
     private String profileImageUrl;
+    @Column(length = 64)
+    private String profileImageHash;
+    // Written only by LastLoginService's batched UPDATE, so saving a stale copy of the user cannot roll them back
+    @Column(updatable = false)
     private LocalDateTime lastLoginDate;
+    @Column(updatable = false)
     private LocalDateTime lastLoginDateDisplay;
     private LocalDateTime joinDate;
     private String role;
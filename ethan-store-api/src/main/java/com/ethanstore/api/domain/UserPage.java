@@ -0,0 +1,13 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UserPage {
+    private List<UserSummary> users;
+    private String nextCursor;
+}
@@ -0,0 +1,22 @@
+package com.ethanstore.api.domain;
+
+import com.ethanstore.api.enumeration.UserSortField;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Keyset page of users: rows strictly after ({@code afterValue}, {@code afterId}) in the requested order, or the first
+ * page when {@code afterId} is {@code null}.
+ */
+@Getter
+@Builder
+public class UserPageRequest {
+    private UserSortField sortField;
+    private boolean ascending;
+    private int size;
+    private Long afterId;
+    private Comparable<?> afterValue;
+    private String role;
+    private Boolean active;
+    private Boolean locked;
+}
@@ -1,14 +1,11 @@
 package com.ethanstore.api.domain;
 
+import com.ethanstore.api.util.AuthorityCodec;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
-
-import static java.util.Arrays.stream;
 
 @AllArgsConstructor
 public class UserPrincipal implements UserDetails {
@@ -17,7 +14,7 @@ public class UserPrincipal implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return stream(this.user.getAuthorities()).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return AuthorityCodec.toGrantedAuthorities(this.user.getAuthorities());
     }
 
     @Override
@@ -0,0 +1,26 @@
+package com.ethanstore.api.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the admin user grid. Carries only the columns the grid shows, never the password hash.
+ */
+@Getter
+@AllArgsConstructor
+public class UserSummary {
+    private Long id;
+    private String userId;
+    private String firstName;
+    private String lastName;
+    private String username;
+    private String email;
+    private String profileImageUrl;
+    private LocalDateTime lastLoginDateDisplay;
+    private LocalDateTime joinDate;
+    private String role;
+    private boolean isActive;
+    private boolean isNotLocked;
+}
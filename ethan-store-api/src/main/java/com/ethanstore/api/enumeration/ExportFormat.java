@@ -0,0 +1,24 @@
+package com.ethanstore.api.enumeration;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private String contentType;
+    private String fileExtension;
+
+    public static ExportFormat fromFileExtension(String fileExtension) {
+        for (ExportFormat format : values()) {
+            if (format.fileExtension.equalsIgnoreCase(fileExtension)) {
+                return format;
+            }
+        }
+        throw new BadRequestException("Cannot export users as: " + fileExtension);
+    }
+}
@@ -0,0 +1,6 @@
+package com.ethanstore.api.enumeration;
+
+public enum LoginAttemptKeyType {
+    USERNAME,
+    SOURCE
+}
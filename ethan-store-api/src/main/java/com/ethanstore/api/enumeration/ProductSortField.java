@@ -0,0 +1,24 @@
+package com.ethanstore.api.enumeration;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ProductSortField {
+    ID("id"),
+    PRICE("price"),
+    RATING("rating");
+
+    private String attribute;
+
+    public static ProductSortField fromAttribute(String attribute) {
+        for (ProductSortField sortField : values()) {
+            if (sortField.attribute.equalsIgnoreCase(attribute)) {
+                return sortField;
+            }
+        }
+        throw new BadRequestException("Cannot sort products by: " + attribute);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ethanstore.api.enumeration;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+@Getter
+@AllArgsConstructor
+public enum UserSortField {
+    ID("id", Long::valueOf),
+    USERNAME("username", value -> value),
+    JOIN_DATE("joinDate", LocalDateTime::parse);
+
+    private String attribute;
+    private Function<String, Comparable<?>> parser;
+
+    public static UserSortField fromAttribute(String attribute) {
+        for (UserSortField sortField : values()) {
+            if (sortField.attribute.equalsIgnoreCase(attribute)) {
+                return sortField;
+            }
+        }
+        throw new BadRequestException("Cannot sort users by: " + attribute);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ethanstore.api.event;
+
+import com.ethanstore.api.domain.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the transaction that saved or deleted a product. Listeners that keep a copy of the catalog use
+ * {@code @TransactionalEventListener}, so they only see committed changes. {@code stockChange} is how far the write
+ * moved {@code countInStock}, for listeners that keep stock of their own.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private Long productId;
+    private Product product;
+    private int stockChange;
+
+    public static ProductChangedEvent saved(Product product, int stockChange) {
+        return new ProductChangedEvent(product.getId(), product, stockChange);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null, 0);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
@@ -0,0 +1,10 @@
+package com.ethanstore.api.exception.domain;
+
+/**
+ * A request parameter that failed validation. Its message is shown to the client, so it must only describe the input.
+ */
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
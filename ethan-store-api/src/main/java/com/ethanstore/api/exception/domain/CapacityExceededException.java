@@ -0,0 +1,15 @@
+package com.ethanstore.api.exception.domain;
+
+public class CapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public CapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
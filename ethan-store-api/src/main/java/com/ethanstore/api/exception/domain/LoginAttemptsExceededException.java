@@ -0,0 +1,15 @@
+package com.ethanstore.api.exception.domain;
+
+public class LoginAttemptsExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginAttemptsExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class OutOfStockException extends Exception {
+    public OutOfStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class ProductNotFoundException extends Exception {
+    public ProductNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class ProfileImageTooLargeException extends Exception {
+    public ProfileImageTooLargeException(String message) {
+        super(message);
+    }
+}
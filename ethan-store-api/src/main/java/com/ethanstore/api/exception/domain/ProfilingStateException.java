@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class ProfilingStateException extends Exception {
+    public ProfilingStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class ReservationLimitExceededException extends Exception {
+    public ReservationLimitExceededException(String message) {
+        super(message);
+    }
+}
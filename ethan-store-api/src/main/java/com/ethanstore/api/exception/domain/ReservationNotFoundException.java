@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class ReservationNotFoundException extends Exception {
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.exception.domain;
+
+public class StaleProductException extends Exception {
+    public StaleProductException(String message) {
+        super(message);
+    }
+}
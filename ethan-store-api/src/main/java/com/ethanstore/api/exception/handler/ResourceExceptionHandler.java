@@ -2,13 +2,25 @@ package com.ethanstore.api.exception.handler;
 
 import com.auth0.jwt.exceptions.TokenExpiredException;
 import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.CapacityExceededException;
 import com.ethanstore.api.exception.domain.EmailExistException;
 import com.ethanstore.api.exception.domain.EmailNotFoundException;
+import com.ethanstore.api.exception.domain.LoginAttemptsExceededException;
+import com.ethanstore.api.exception.domain.OutOfStockException;
+import com.ethanstore.api.exception.domain.ProfileImageTooLargeException;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.ProfilingStateException;
+import com.ethanstore.api.exception.domain.ReservationLimitExceededException;
+import com.ethanstore.api.exception.domain.ReservationNotFoundException;
+import com.ethanstore.api.exception.domain.StaleProductException;
 import com.ethanstore.api.exception.domain.UserNotFoundException;
 import com.ethanstore.api.exception.domain.UsernameExistException;
 import jakarta.persistence.NoResultException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.web.servlet.error.ErrorController;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +49,7 @@ public class ResourceExceptionHandler implements ErrorController {
     private static final String ERROR_PROCESSING_FILE = "Error occurred while processing file.";
     private static final String NOT_ENOUGH_PERMISSION = "you do not have enough permission";
     private static final String HANDLER_METHOD_NOT_FOUND = "No handler method found for this mapping";
+    private static final String CONFLICTING_DATA = "The request conflicts with data that already exists";
     private static final String ERROR_PATH = "/error";
 
     @ExceptionHandler(DisabledException.class)
@@ -84,6 +97,66 @@ public class ResourceExceptionHandler implements ErrorController {
         return createHttpResponse(BAD_REQUEST, exception.getMessage());
     }
 
+    @ExceptionHandler(ProfileImageTooLargeException.class)
+    public ResponseEntity<HttpResponse> profileImageTooLargeException(ProfileImageTooLargeException exception) {
+        return createHttpResponse(PAYLOAD_TOO_LARGE, exception.getMessage());
+    }
+
+    @ExceptionHandler(ProductNotFoundException.class)
+    public ResponseEntity<HttpResponse> productNotFoundException(ProductNotFoundException exception) {
+        return createHttpResponse(NOT_FOUND, exception.getMessage());
+    }
+
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<HttpResponse> reservationNotFoundException(ReservationNotFoundException exception) {
+        return createHttpResponse(NOT_FOUND, exception.getMessage());
+    }
+
+    @ExceptionHandler(OutOfStockException.class)
+    public ResponseEntity<HttpResponse> outOfStockException(OutOfStockException exception) {
+        return createHttpResponse(CONFLICT, exception.getMessage());
+    }
+
+    @ExceptionHandler(ReservationLimitExceededException.class)
+    public ResponseEntity<HttpResponse> reservationLimitExceededException(ReservationLimitExceededException exception) {
+        return createHttpResponse(TOO_MANY_REQUESTS, exception.getMessage());
+    }
+
+    @ExceptionHandler(StaleProductException.class)
+    public ResponseEntity<HttpResponse> staleProductException(StaleProductException exception) {
+        return createHttpResponse(CONFLICT, exception.getMessage());
+    }
+
+    @ExceptionHandler(ProfilingStateException.class)
+    public ResponseEntity<HttpResponse> profilingStateException(ProfilingStateException exception) {
+        return createHttpResponse(CONFLICT, exception.getMessage());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<HttpResponse> badRequestException(BadRequestException exception) {
+        return createHttpResponse(BAD_REQUEST, exception.getMessage());
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<HttpResponse> dataIntegrityViolationException(DataIntegrityViolationException exception) {
+        log.error(exception.getMessage());
+        return createHttpResponse(CONFLICT, CONFLICTING_DATA);
+    }
+
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<HttpResponse> capacityExceededException(CapacityExceededException exception) {
+        return ResponseEntity.status(SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(createHttpResponse(SERVICE_UNAVAILABLE, exception.getMessage()).getBody());
+    }
+
+    @ExceptionHandler(LoginAttemptsExceededException.class)
+    public ResponseEntity<HttpResponse> loginAttemptsExceededException(LoginAttemptsExceededException exception) {
+        return ResponseEntity.status(TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(createHttpResponse(TOO_MANY_REQUESTS, exception.getMessage()).getBody());
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     public ResponseEntity<HttpResponse> methodNotSupportedException(HttpRequestMethodNotSupportedException exception) {
         HttpMethod supportedMethod = Objects.requireNonNull(exception.getSupportedHttpMethods()).iterator().next();
@@ -1,20 +1,23 @@
 package com.ethanstore.api.filter;
 
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.ethanstore.api.domain.JwtClaims;
 import com.ethanstore.api.util.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.ethanstore.api.constant.SecurityConstant.OPTIONS_HTTP_METHOD;
 import static com.ethanstore.api.constant.SecurityConstant.TOKEN_PREFIX;
@@ -22,11 +25,24 @@ import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static org.springframework.http.HttpStatus.OK;
 
 @Component
-@AllArgsConstructor
 public class JwtAuthorizationFilter extends OncePerRequestFilter {
 
     private JwtTokenProvider jwtTokenProvider;
 
+    private Timer validTimer;
+
+    private Timer expiredTimer;
+
+    private Timer invalidTimer;
+
+    @Autowired
+    public JwtAuthorizationFilter(JwtTokenProvider jwtTokenProvider, MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.validTimer = verifyTimer("valid", meterRegistry);
+        this.expiredTimer = verifyTimer("expired", meterRegistry);
+        this.invalidTimer = verifyTimer("invalid", meterRegistry);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         if (request.getMethod().equalsIgnoreCase(OPTIONS_HTTP_METHOD)) {
@@ -38,10 +54,18 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
                 return;
             }
             String token = authHeader.substring(TOKEN_PREFIX.length());
-            String username = jwtTokenProvider.getSubject(token);
-            if (jwtTokenProvider.isTokenValid(username, token) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                List<GrantedAuthority> authorities = jwtTokenProvider.getAuthorities(token);
-                Authentication authentication = jwtTokenProvider.getAuthentication(username, authorities, request);
+            long start = System.nanoTime();
+            JwtClaims claims;
+            try {
+                claims = jwtTokenProvider.verifyToken(token);
+            } catch (JWTVerificationException e) {
+                invalidTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+            boolean valid = jwtTokenProvider.isTokenValid(claims);
+            (valid ? validTimer : expiredTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (valid && SecurityContextHolder.getContext().getAuthentication() == null) {
+                Authentication authentication = jwtTokenProvider.getAuthentication(claims.getSubject(), claims.getAuthorities(), request);
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             } else {
                 SecurityContextHolder.clearContext();
@@ -49,4 +73,12 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    /** Cache hits and misses of the verification itself are the {@code cache.*} meters of {@code jwt.verified.tokens}. */
+    private static Timer verifyTimer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("jwt.verify")
+                .description("Time to verify the bearer token of a request, cached or not")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
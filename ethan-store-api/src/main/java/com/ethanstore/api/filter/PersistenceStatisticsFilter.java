@@ -0,0 +1,186 @@
+package com.ethanstore.api.filter;
+
+import com.ethanstore.api.config.PersistenceStatisticsProperties;
+import com.ethanstore.api.util.PersistenceStatistics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.ethanstore.api.constant.SecurityConstant.SERVER_TIMING_HEADER;
+
+/**
+ * Collects {@link PersistenceStatistics} for each request and records them per URI template as
+ * {@code persistence.statements}, {@code persistence.rows}, {@code persistence.entities} and
+ * {@code persistence.jdbc}. Requests over their statement budget, or preparing the same statement
+ * {@code repeated-statement-threshold} times, are logged and counted.
+ * <p>
+ * With {@code server-timing-header} on, meant for non-production use, responses also carry the numbers in a
+ * {@code Server-Timing} header. It is written when the response starts to be sent, so it covers the handler but not
+ * lazy loading during serialization. The {@code dev} profile turns it on.
+ * <p>
+ * Settings are read from {@link PersistenceStatisticsProperties} on each request, so budgets can be tuned at runtime.
+ */
+@Component
+@Slf4j
+public class PersistenceStatisticsFilter extends OncePerRequestFilter {
+
+    private final ConcurrentMap<String, EndpointMeters> endpointMeters = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+
+    private PersistenceStatisticsProperties properties;
+
+    @Autowired
+    public PersistenceStatisticsFilter(PersistenceStatisticsProperties properties, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        PersistenceStatistics statistics = PersistenceStatistics.start();
+        ServerTimingResponse serverTimingResponse = properties.isServerTimingHeader() ? new ServerTimingResponse(response, statistics) : null;
+        try {
+            filterChain.doFilter(request, serverTimingResponse != null ? serverTimingResponse : response);
+        } finally {
+            PersistenceStatistics.stop();
+            if (serverTimingResponse != null) {
+                serverTimingResponse.writeServerTiming();
+            }
+            record(request, statistics);
+        }
+    }
+
+    private void record(HttpServletRequest request, PersistenceStatistics statistics) {
+        String uri = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (uri == null) {
+            return;
+        }
+        EndpointMeters meters = endpointMeters.computeIfAbsent(uri, this::createMeters);
+        meters.statements.record(statistics.getStatements());
+        meters.rows.record(statistics.getRows());
+        meters.entities.record(statistics.getEntities());
+        meters.jdbc.record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        int budget = properties.getBudgets().getOrDefault(uri, properties.getStatementBudget());
+        if (statistics.getStatements() > budget) {
+            meters.overBudget.increment();
+            log.warn("{} {} prepared {} statements, over its budget of {} ({} rows, {} entities, {} ms in JDBC)",
+                    request.getMethod(), uri, statistics.getStatements(), budget, statistics.getRows(), statistics.getEntities(),
+                    TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcNanos()));
+        }
+        if (statistics.getMostRepeatedCount() >= properties.getRepeatedStatementThreshold()) {
+            meters.repeatedStatements.increment();
+            log.warn("{} {} prepared the same statement {} times, likely an N+1 query: {}",
+                    request.getMethod(), uri, statistics.getMostRepeatedCount(), statistics.getMostRepeatedStatement());
+        }
+    }
+
+    private EndpointMeters createMeters(String uri) {
+        return new EndpointMeters(
+                DistributionSummary.builder("persistence.statements")
+                        .description("Statements prepared per request")
+                        .tag("uri", uri)
+                        .register(meterRegistry),
+                DistributionSummary.builder("persistence.rows")
+                        .description("Rows returned by queries per request")
+                        .tag("uri", uri)
+                        .register(meterRegistry),
+                DistributionSummary.builder("persistence.entities")
+                        .description("Entities read from the database per request")
+                        .tag("uri", uri)
+                        .register(meterRegistry),
+                Timer.builder("persistence.jdbc")
+                        .description("Time per request spent executing JDBC statements")
+                        .tag("uri", uri)
+                        .register(meterRegistry),
+                Counter.builder("persistence.budget.exceeded")
+                        .description("Requests that prepared more statements than their budget")
+                        .tag("uri", uri)
+                        .register(meterRegistry),
+                Counter.builder("persistence.repeated.statements")
+                        .description("Requests that prepared the same statement repeated-statement-threshold times or more")
+                        .tag("uri", uri)
+                        .register(meterRegistry));
+    }
+
+    private record EndpointMeters(DistributionSummary statements, DistributionSummary rows, DistributionSummary entities,
+                                  Timer jdbc, Counter overBudget, Counter repeatedStatements) {
+    }
+
+    /** Adds the {@code Server-Timing} header just before anything can commit the response. */
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final PersistenceStatistics statistics;
+        private boolean written;
+
+        private ServerTimingResponse(HttpServletResponse response, PersistenceStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        private void writeServerTiming() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(SERVER_TIMING_HEADER, statistics.toServerTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.ethanstore.api.filter;
+
+import com.ethanstore.api.config.RateLimitProperties;
+import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.util.TokenBucketRateLimiter;
+import com.ethanstore.api.util.TokenBucketRateLimiter.Decision;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.ethanstore.api.constant.SecurityConstant.*;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+/**
+ * Limits request rate per client with token buckets. Every request is counted against its remote address, which
+ * Tomcat resolves from the trusted proxies' {@code X-Forwarded-For}; requests carrying a valid token are also counted
+ * against their JWT subject, since this runs right after {@link JwtAuthorizationFilter}. A request needs a token from
+ * both, so neither spreading one account over many addresses nor many accounts over one address gets around the limit.
+ * Each path pattern has separate buckets for principals and addresses; see {@link RateLimitProperties} for how a
+ * pattern is chosen. Every limited response carries {@code RateLimit-Limit}, {@code RateLimit-Remaining} and
+ * {@code RateLimit-Reset}; rejected ones are answered with 429 and {@code Retry-After}.
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Route> routes = new ArrayList<>();
+
+    private boolean enabled;
+
+    @Autowired
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            routes.add(new Route(rule.getPattern(), rule, properties, meterRegistry));
+        }
+        for (String publicUrl : PUBLIC_URLS) {
+            routes.add(new Route(publicUrl, properties.getPublicUrls(), properties, meterRegistry));
+        }
+        routes.add(new Route("/**", properties.getDefaults(), properties, meterRegistry));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        Route route = route(request.getRequestURI().substring(request.getContextPath().length()));
+        String principal = principal();
+        Decision decision = route.addressLimiter.tryAcquire(request.getRemoteAddr());
+        if (principal != null && (decision == null || decision.allowed())) {
+            decision = tighter(decision, route.principalLimiter.tryAcquire(principal));
+        }
+        if (decision == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        response.setIntHeader(RATE_LIMIT_LIMIT_HEADER, route.principalLimiter.getCapacity());
+        response.setIntHeader(RATE_LIMIT_REMAINING_HEADER, decision.remaining());
+        response.setHeader(RATE_LIMIT_RESET_HEADER, Long.toString(toSeconds(decision.resetNanos())));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        route.rejected.increment();
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(toSeconds(decision.retryAfterNanos())));
+        HttpResponse httpResponse = HttpResponse.builder()
+                .httpStatusCode(TOO_MANY_REQUESTS.value())
+                .httpStatus(TOO_MANY_REQUESTS)
+                .reason(TOO_MANY_REQUESTS.getReasonPhrase().toUpperCase())
+                .message(TOO_MANY_REQUESTS_MESSAGE)
+                .build();
+        response.setContentType(APPLICATION_JSON_VALUE);
+        response.setStatus(TOO_MANY_REQUESTS.value());
+        OutputStream outputStream = response.getOutputStream();
+        mapper.writeValue(outputStream, httpResponse);
+        outputStream.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.rate-limit.eviction-interval-ms:10000}")
+    public void evictIdleBuckets() {
+        int evicted = 0;
+        for (Route route : routes) {
+            evicted += route.principalLimiter.evictIdle() + route.addressLimiter.evictIdle();
+        }
+        log.debug("Evicted {} idle rate limit buckets", evicted);
+    }
+
+    private Route route(String path) {
+        PathContainer pathContainer = null;
+        for (Route route : routes) {
+            if (route.prefix != null) {
+                if (path.startsWith(route.prefix) && (path.length() == route.prefix.length() || path.charAt(route.prefix.length()) == '/')) {
+                    return route;
+                }
+            } else if (route.literal != null) {
+                if (path.startsWith(route.literal) && (path.length() == route.literal.length()
+                        || (path.length() == route.literal.length() + 1 && path.endsWith("/")))) {
+                    return route;
+                }
+            } else {
+                if (pathContainer == null) {
+                    pathContainer = PathContainer.parsePath(path);
+                }
+                if (route.pattern.matches(pathContainer)) {
+                    return route;
+                }
+            }
+        }
+        return routes.get(routes.size() - 1);
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    /** The decision to report when both buckets were asked: a rejection, otherwise the one with fewer tokens left. */
+    private static Decision tighter(Decision first, Decision second) {
+        if (first == null || second == null) {
+            return first == null ? second : first;
+        }
+        if (!second.allowed()) {
+            return second;
+        }
+        return first.remaining() <= second.remaining() ? first : second;
+    }
+
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Patterns that are a plain path, or a plain path followed by {@code /**}, are matched with string comparisons
+     * instead of {@link PathPattern}, which keeps routing a request to a few nanoseconds. The raw URI is safe to use
+     * here because the security firewall has already rejected non-normalized paths.
+     */
+    private static final class Route {
+        private final String literal;
+        private final String prefix;
+        private final PathPattern pattern;
+        private final TokenBucketRateLimiter principalLimiter;
+        private final TokenBucketRateLimiter addressLimiter;
+        private final Counter rejected;
+
+        private Route(String pattern, RateLimitProperties.Limit limit, RateLimitProperties properties, MeterRegistry meterRegistry) {
+            this.pattern = PathPatternParser.defaultInstance.parse(pattern);
+            boolean subtree = pattern.endsWith("/**");
+            String base = subtree ? pattern.substring(0, pattern.length() - 3) : pattern;
+            boolean plain = base.chars().noneMatch(c -> c == '*' || c == '?' || c == '{');
+            this.prefix = plain && subtree ? base : null;
+            this.literal = plain && !subtree ? base : null;
+            this.principalLimiter = new TokenBucketRateLimiter(limit.getCapacity(), limit.getRefillPerSecond(),
+                    properties.getIdleSeconds(), properties.getMaxKeys());
+            this.addressLimiter = new TokenBucketRateLimiter(limit.getCapacity(), limit.getRefillPerSecond(),
+                    properties.getIdleSeconds(), properties.getMaxKeys());
+            this.rejected = Counter.builder("rate.limit.rejected")
+                    .description("Requests rejected because the client's bucket was empty")
+                    .tag("pattern", pattern)
+                    .register(meterRegistry);
+            Gauge.builder("rate.limit.buckets", this, route -> route.principalLimiter.size() + route.addressLimiter.size())
+                    .description("Client buckets currently held")
+                    .tag("pattern", pattern)
+                    .register(meterRegistry);
+        }
+    }
+}
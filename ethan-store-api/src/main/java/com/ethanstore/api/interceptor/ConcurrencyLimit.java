@@ -0,0 +1,17 @@
+package com.ethanstore.api.interceptor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a handler, or every handler of a controller, into a concurrency limit group. Handlers in the same group share
+ * one adaptive limit; a method-level annotation overrides the one on its class.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimit {
+
+    String value();
+}
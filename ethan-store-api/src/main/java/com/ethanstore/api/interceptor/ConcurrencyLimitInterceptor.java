@@ -0,0 +1,164 @@
+package com.ethanstore.api.interceptor;
+
+import com.ethanstore.api.exception.domain.CapacityExceededException;
+import com.ethanstore.api.util.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Applies an {@link AdaptiveConcurrencyLimiter} per {@link ConcurrencyLimit} group around handler methods. Requests
+ * over their group's limit are shed straight away with a {@link CapacityExceededException} (503) instead of waiting
+ * for a Tomcat thread, so a burst on one group cannot hold every thread hostage.
+ * <p>
+ * Admins (holders of {@code user:create}) may fill the whole limit, other authenticated users and anonymous callers
+ * only their configured share of it, so under load the public URLs are shed first.
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SERVICE_BUSY = "The service is busy right now. Please try again shortly";
+    private static final String ADMIN_AUTHORITY = "user:create";
+    private static final String LIMITER_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".limiter";
+    private static final String STARTED_AT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".startedAt";
+    private static final String ASYNC_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".async";
+
+    private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<>();
+
+    private MeterRegistry meterRegistry;
+
+    private boolean enabled;
+
+    private int initialLimit;
+
+    private int minLimit;
+
+    private int maxLimit;
+
+    private double tolerance;
+
+    private double backoffRatio;
+
+    private int rttWindow;
+
+    private double authenticatedShare;
+
+    private double anonymousShare;
+
+    private long retryAfterSeconds;
+
+    @Autowired
+    public ConcurrencyLimitInterceptor(MeterRegistry meterRegistry,
+                                       @Value("${ethanstore.concurrency-limit.enabled:true}") boolean enabled,
+                                       @Value("${ethanstore.concurrency-limit.initial-limit:20}") int initialLimit,
+                                       @Value("${ethanstore.concurrency-limit.min-limit:4}") int minLimit,
+                                       @Value("${ethanstore.concurrency-limit.max-limit:200}") int maxLimit,
+                                       @Value("${ethanstore.concurrency-limit.tolerance:2.0}") double tolerance,
+                                       @Value("${ethanstore.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+                                       @Value("${ethanstore.concurrency-limit.rtt-window:500}") int rttWindow,
+                                       @Value("${ethanstore.concurrency-limit.authenticated-share:0.8}") double authenticatedShare,
+                                       @Value("${ethanstore.concurrency-limit.anonymous-share:0.5}") double anonymousShare,
+                                       @Value("${ethanstore.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.rttWindow = rttWindow;
+        this.authenticatedShare = authenticatedShare;
+        this.anonymousShare = anonymousShare;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        ConcurrencyLimit concurrencyLimit = handlerMethod.getMethodAnnotation(ConcurrencyLimit.class);
+        if (concurrencyLimit == null) {
+            concurrencyLimit = handlerMethod.getBeanType().getAnnotation(ConcurrencyLimit.class);
+        }
+        if (concurrencyLimit == null) {
+            return true;
+        }
+        Group group = groups.computeIfAbsent(concurrencyLimit.value(), this::createGroup);
+        if (!group.limiter.tryAcquire(share())) {
+            group.shed.increment();
+            throw new CapacityExceededException(SERVICE_BUSY, retryAfterSeconds);
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, group.limiter);
+        request.setAttribute(STARTED_AT_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    /** Streaming responses run as long as the client reads, so their duration is not fed into the limit. */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(ASYNC_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception) {
+        AdaptiveConcurrencyLimiter limiter = (AdaptiveConcurrencyLimiter) request.getAttribute(LIMITER_ATTRIBUTE);
+        if (limiter == null) {
+            return;
+        }
+        request.removeAttribute(LIMITER_ATTRIBUTE);
+        if (request.getAttribute(ASYNC_ATTRIBUTE) != null) {
+            limiter.release();
+        } else {
+            limiter.release(System.nanoTime() - (Long) request.getAttribute(STARTED_AT_ATTRIBUTE));
+        }
+    }
+
+    private double share() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken || !authentication.isAuthenticated()) {
+            return anonymousShare;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (ADMIN_AUTHORITY.equals(authority.getAuthority())) {
+                return 1.0;
+            }
+        }
+        return authenticatedShare;
+    }
+
+    private Group createGroup(String name) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, backoffRatio, rttWindow);
+        Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("group", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.in.flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently holding a slot")
+                .tag("group", name)
+                .register(meterRegistry);
+        Counter shed = Counter.builder("concurrency.shed")
+                .description("Requests rejected because the group was at its limit")
+                .tag("group", name)
+                .register(meterRegistry);
+        return new Group(limiter, shed);
+    }
+
+    private record Group(AdaptiveConcurrencyLimiter limiter, Counter shed) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.ethanstore.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ethanstore.AvatarFetch")
+@Label("Avatar Fetch")
+@Category({"Ethan Store", "Images"})
+@StackTrace(false)
+public class AvatarFetchEvent extends jdk.jfr.Event {
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Source")
+    @Description("memory when cached, disk when loaded from the avatar folder, rendered when drawn for the first time")
+    public String source;
+}
@@ -0,0 +1,22 @@
+package com.ethanstore.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ethanstore.JwtVerification")
+@Label("JWT Verification")
+@Description("Verification of a bearer token, answered from the verified-token cache or by checking the signature")
+@Category({"Ethan Store", "Security"})
+@StackTrace(false)
+public class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Cached")
+    @Description("Whether the token had been verified before")
+    public boolean cached;
+
+    @Label("Valid")
+    public boolean valid;
+}
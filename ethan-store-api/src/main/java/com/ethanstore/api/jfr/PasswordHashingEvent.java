@@ -0,0 +1,23 @@
+package com.ethanstore.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ethanstore.PasswordHashing")
+@Label("Password Hashing")
+@Description("One BCrypt encode or match on a password-hashing thread, not including the time spent queued")
+@Category({"Ethan Store", "Security"})
+@StackTrace(false)
+public class PasswordHashingEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    @Description("encode or match")
+    public String operation;
+
+    @Label("Matched")
+    @Description("Whether the password matched; always false for encode")
+    public boolean matched;
+}
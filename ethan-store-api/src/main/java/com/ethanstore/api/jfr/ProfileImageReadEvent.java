@@ -0,0 +1,24 @@
+package com.ethanstore.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ethanstore.ProfileImageRead")
+@Label("Profile Image Read")
+@Description("Lookup of a profile image or thumbnail before it is served")
+@Category({"Ethan Store", "Images"})
+@StackTrace(false)
+public class ProfileImageReadEvent extends jdk.jfr.Event {
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Source")
+    @Description("memory when served from the hot image cache, disk when read into it, stream when too large to cache, missing when there is no such file")
+    public String source;
+}
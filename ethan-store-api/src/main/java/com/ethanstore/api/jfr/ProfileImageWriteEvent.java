@@ -0,0 +1,24 @@
+package com.ethanstore.api.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ethanstore.ProfileImageWrite")
+@Label("Profile Image Write")
+@Description("Upload of a profile image into the blob store")
+@Category({"Ethan Store", "Images"})
+@StackTrace(false)
+public class ProfileImageWriteEvent extends jdk.jfr.Event {
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Outcome")
+    @Description("stored for a new blob, deduplicated when the same image was already stored, rejected when too large")
+    public String outcome;
+}
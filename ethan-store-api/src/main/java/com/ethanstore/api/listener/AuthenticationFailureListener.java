@@ -4,6 +4,7 @@ import com.ethanstore.api.service.LoginAttemptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -23,5 +24,9 @@ public class AuthenticationFailureListener {
             String username = (String) event.getAuthentication().getPrincipal();
             loginAttemptService.addUserToLoginAttemptCache(username);
         }
+        // The remote address is the client's, not the load balancer's: server.tomcat.remoteip resolves it from X-Forwarded-For
+        if (event.getAuthentication().getDetails() instanceof WebAuthenticationDetails details) {
+            loginAttemptService.addSourceToLoginAttemptCache(details.getRemoteAddress());
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.ethanstore.api.listener;
 
 import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.service.LastLoginService;
 import com.ethanstore.api.service.LoginAttemptService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
@@ -12,9 +13,12 @@ public class AuthenticationSuccessListener {
 
     private LoginAttemptService loginAttemptService;
 
+    private LastLoginService lastLoginService;
+
     @Autowired
-    public AuthenticationSuccessListener(LoginAttemptService loginAttemptService) {
+    public AuthenticationSuccessListener(LoginAttemptService loginAttemptService, LastLoginService lastLoginService) {
         this.loginAttemptService = loginAttemptService;
+        this.lastLoginService = lastLoginService;
     }
 
     @EventListener
@@ -23,6 +27,7 @@ public class AuthenticationSuccessListener {
         if (principal instanceof UserPrincipal) {
             UserPrincipal user = (UserPrincipal) event.getAuthentication().getPrincipal();
             loginAttemptService.evictUserFromLoginAttemptCache(user.getUsername());
+            lastLoginService.recordLogin(user.getUsername());
         }
     }
 }
@@ -0,0 +1,42 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.ImageBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImageBlobRepository extends JpaRepository<ImageBlob, String> {
+
+    /**
+     * Inserts the blob with one reference, or adds a reference to an existing one, in a single statement. Commits on
+     * its own, so the row exists whenever the file does; callers release the reference if they fail to use it.
+     * <p>
+     * Native SQL:2003 {@code MERGE}, which H2 and PostgreSQL 15 or later run; MySQL and older PostgreSQL do not, and
+     * need {@code insert ... on duplicate key update} or {@code on conflict do update} here instead.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "merge into image_blobs b using (values (cast(:hash as varchar(64)), cast(:size as bigint))) as s(hash, size) on b.hash = s.hash " +
+            "when matched then update set reference_count = b.reference_count + 1, released_at = null " +
+            "when not matched then insert (hash, size, reference_count, released_at) values (s.hash, s.size, 1, null)", nativeQuery = true)
+    int acquire(@Param("hash") String hash, @Param("size") long size);
+
+    @Transactional
+    @Modifying
+    @Query("update ImageBlob b set b.referenceCount = b.referenceCount - 1, b.releasedAt = :now where b.hash = :hash and b.referenceCount > 0")
+    int release(@Param("hash") String hash, @Param("now") LocalDateTime now);
+
+    @Query("select b.hash from ImageBlob b where b.referenceCount = 0 and b.releasedAt < :before")
+    List<String> findUnreferencedHashes(@Param("before") LocalDateTime before);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ImageBlob b where b.hash = :hash and b.referenceCount = 0 and b.releasedAt < :before")
+    int deleteUnreferenced(@Param("hash") String hash, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.InventoryLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface InventoryLeaseRepository extends JpaRepository<InventoryLease, String>, InventoryLeaseRepositoryCustom {
+}
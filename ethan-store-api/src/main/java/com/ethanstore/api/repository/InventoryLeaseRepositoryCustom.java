@@ -0,0 +1,14 @@
+package com.ethanstore.api.repository;
+
+public interface InventoryLeaseRepositoryCustom {
+
+    /**
+     * Takes or renews the lease {@code name} for {@code owner} until {@code expiresAtMillis}. Succeeds when
+     * {@code owner} already holds it or it expired by {@code nowMillis}, in one conditional UPDATE, so two nodes
+     * cannot both win it.
+     */
+    boolean tryAcquire(String name, String owner, long nowMillis, long expiresAtMillis);
+
+    /** Lets the lease expire at {@code nowMillis} if {@code owner} still holds it, so another node can take over. */
+    void release(String name, String owner, long nowMillis);
+}
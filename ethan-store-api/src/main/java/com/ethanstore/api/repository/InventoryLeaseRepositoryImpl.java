@@ -0,0 +1,37 @@
+package com.ethanstore.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class InventoryLeaseRepositoryImpl implements InventoryLeaseRepositoryCustom {
+
+    private static final String ACQUIRE_LEASE_SQL = "update inventory_leases set owner = ?, expires_at = ? where name = ? and (owner = ? or expires_at <= ?)";
+    private static final String INSERT_LEASE_SQL = "insert into inventory_leases (name, owner, expires_at) values (?, ?, ?)";
+    private static final String RELEASE_LEASE_SQL = "update inventory_leases set expires_at = ? where name = ? and owner = ?";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public InventoryLeaseRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean tryAcquire(String name, String owner, long nowMillis, long expiresAtMillis) {
+        if (jdbcTemplate.update(ACQUIRE_LEASE_SQL, owner, expiresAtMillis, name, owner, nowMillis) == 1) {
+            return true;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_LEASE_SQL, name, owner, expiresAtMillis) == 1;
+        } catch (DuplicateKeyException e) {
+            // Held by another node
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String name, String owner, long nowMillis) {
+        jdbcTemplate.update(RELEASE_LEASE_SQL, nowMillis, name, owner);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.ProductDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ProductDeletionRepository extends JpaRepository<ProductDeletion, Long> {
+
+    List<ProductDeletion> findByDeletedAtAfter(LocalDateTime since);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProductDeletion d where d.deletedAt < :before")
+    int deleteByDeletedAtBefore(@Param("before") LocalDateTime before);
+}
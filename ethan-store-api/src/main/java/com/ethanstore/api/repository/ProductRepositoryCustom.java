@@ -0,0 +1,23 @@
+package com.ethanstore.api.repository;
+
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Streams the id, stock count and version of every product without materialising the product entities.
+     */
+    void forEachStockCount(StockCountConsumer consumer);
+
+    /**
+     * Subtracts the units sold per product id in one batch. Rows are updated in id order, so two nodes flushing at
+     * once cannot deadlock on each other's row locks. Each row gets a new version and {@code updatedAt}, so catalog
+     * indexes pick up the count and an edit based on the count read before cannot save.
+     */
+    int[] batchDecrementStock(Map<Long, Long> soldUnits);
+
+    @FunctionalInterface
+    interface StockCountConsumer {
+        void accept(long productId, long countInStock, long version);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ethanstore.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String SELECT_STOCK_COUNTS_SQL = "select id, count_in_stock, coalesce(version, 0) from products";
+    private static final String DECREMENT_STOCK_SQL = "update products set count_in_stock = count_in_stock - ?, version = coalesce(version, 0) + 1, updated_at = ? where id = ?";
+    private static final int[] DECREMENT_STOCK_TYPES = {Types.BIGINT, Types.TIMESTAMP, Types.BIGINT};
+    private static final int FETCH_SIZE = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProductRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void forEachStockCount(StockCountConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_STOCK_COUNTS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)));
+    }
+
+    @Override
+    public int[] batchDecrementStock(Map<Long, Long> soldUnits) {
+        Timestamp updatedAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batchArgs = new TreeMap<>(soldUnits).entrySet().stream()
+                .map(sold -> new Object[]{sold.getValue(), updatedAt, sold.getKey()})
+                .toList();
+        return jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs, DECREMENT_STOCK_TYPES);
+    }
+}
@@ -0,0 +1,7 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.StockAdjustment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StockAdjustmentRepository extends JpaRepository<StockAdjustment, Long>, StockAdjustmentRepositoryCustom {
+}
@@ -0,0 +1,14 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.StockAdjustment;
+
+import java.util.List;
+
+public interface StockAdjustmentRepositoryCustom {
+
+    /** The oldest {@code limit} adjustments not yet applied, in id order. */
+    List<StockAdjustment> findPendingAdjustments(int limit);
+
+    /** Drops applied adjustments in one batch. */
+    int[] deleteAdjustments(List<Long> ids);
+}
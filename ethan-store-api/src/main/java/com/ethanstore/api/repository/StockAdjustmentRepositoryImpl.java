@@ -0,0 +1,33 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.StockAdjustment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+
+public class StockAdjustmentRepositoryImpl implements StockAdjustmentRepositoryCustom {
+
+    private static final String SELECT_PENDING_SQL = "select id, product_id, version, stock_change, deleted from stock_adjustments order by id limit ?";
+    private static final String DELETE_SQL = "delete from stock_adjustments where id = ?";
+    private static final int[] DELETE_TYPES = {Types.BIGINT};
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public StockAdjustmentRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<StockAdjustment> findPendingAdjustments(int limit) {
+        return jdbcTemplate.query(SELECT_PENDING_SQL, (resultSet, row) -> new StockAdjustment(
+                resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3), resultSet.getInt(4), resultSet.getBoolean(5)), limit);
+    }
+
+    @Override
+    public int[] deleteAdjustments(List<Long> ids) {
+        return jdbcTemplate.batchUpdate(DELETE_SQL, ids.stream().map(id -> new Object[]{id}).toList(), DELETE_TYPES);
+    }
+}
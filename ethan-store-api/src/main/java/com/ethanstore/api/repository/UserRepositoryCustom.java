@@ -0,0 +1,25 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.LastLogin;
+import com.ethanstore.api.domain.UserPageRequest;
+import com.ethanstore.api.domain.UserSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public interface UserRepositoryCustom {
+
+    int[] batchUpdateLastLogin(Collection<LastLogin> lastLogins);
+
+    /**
+     * Streams every username and email without materialising the user entities.
+     */
+    void forEachUsernameAndEmail(BiConsumer<String, String> consumer);
+
+    /**
+     * Keyset query for one page of the user list. Returns up to {@code size + 1} rows so the caller can tell whether
+     * another page follows.
+     */
+    List<UserSummary> findUserSummaries(UserPageRequest pageRequest);
+}
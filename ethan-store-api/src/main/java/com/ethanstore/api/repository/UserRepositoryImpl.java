@@ -0,0 +1,104 @@
+package com.ethanstore.api.repository;
+
+import com.ethanstore.api.domain.LastLogin;
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPageRequest;
+import com.ethanstore.api.domain.UserSummary;
+import com.ethanstore.api.enumeration.UserSortField;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    private static final String UPDATE_LAST_LOGIN_SQL = "update users set last_login_date_display = coalesce(?, last_login_date), last_login_date = ? where username = ?";
+    private static final int[] UPDATE_LAST_LOGIN_TYPES = {Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR};
+    private static final String SELECT_USERNAMES_AND_EMAILS_SQL = "select username, email from users";
+    private static final int FETCH_SIZE = 1000;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private EntityManager entityManager;
+
+    @Autowired
+    public UserRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int[] batchUpdateLastLogin(Collection<LastLogin> lastLogins) {
+        List<Object[]> batchArgs = lastLogins.stream()
+                .map(lastLogin -> new Object[]{toTimestamp(lastLogin.getPreviousLogin()), toTimestamp(lastLogin.getLatestLogin()), lastLogin.getUsername()})
+                .toList();
+        return jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN_SQL, batchArgs, UPDATE_LAST_LOGIN_TYPES);
+    }
+
+    @Override
+    public void forEachUsernameAndEmail(BiConsumer<String, String> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_USERNAMES_AND_EMAILS_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(resultSet.getString(1), resultSet.getString(2)));
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<UserSummary> findUserSummaries(UserPageRequest pageRequest) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = builder.createQuery(UserSummary.class);
+        Root<User> user = query.from(User.class);
+        query.select(builder.construct(UserSummary.class,
+                user.get("id"), user.get("userId"), user.get("firstName"), user.get("lastName"),
+                user.get("username"), user.get("email"), user.get("profileImageUrl"), user.get("lastLoginDateDisplay"),
+                user.get("joinDate"), user.get("role"), user.get("isActive"), user.get("isNotLocked")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (pageRequest.getRole() != null) {
+            predicates.add(builder.equal(user.get("role"), pageRequest.getRole()));
+        }
+        if (pageRequest.getActive() != null) {
+            predicates.add(builder.equal(user.get("isActive"), pageRequest.getActive()));
+        }
+        if (pageRequest.getLocked() != null) {
+            predicates.add(builder.equal(user.get("isNotLocked"), !pageRequest.getLocked()));
+        }
+        Path<Long> id = user.get("id");
+        Path sortPath = user.get(pageRequest.getSortField().getAttribute());
+        boolean sortById = pageRequest.getSortField() == UserSortField.ID;
+        boolean ascending = pageRequest.isAscending();
+        if (pageRequest.getAfterId() != null) {
+            Comparable afterValue = pageRequest.getAfterValue();
+            Predicate afterId = ascending ? builder.greaterThan(id, pageRequest.getAfterId()) : builder.lessThan(id, pageRequest.getAfterId());
+            if (sortById) {
+                predicates.add(afterId);
+            } else {
+                Predicate afterSortValue = ascending ? builder.greaterThan(sortPath, afterValue) : builder.lessThan(sortPath, afterValue);
+                predicates.add(builder.or(afterSortValue, builder.and(builder.equal(sortPath, afterValue), afterId)));
+            }
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        if (sortById) {
+            query.orderBy(ascending ? builder.asc(id) : builder.desc(id));
+        } else {
+            query.orderBy(ascending ? builder.asc(sortPath) : builder.desc(sortPath), ascending ? builder.asc(id) : builder.desc(id));
+        }
+        return entityManager.createQuery(query).setMaxResults(pageRequest.getSize() + 1).getResultList();
+    }
+
+    private Timestamp toTimestamp(LocalDateTime dateTime) {
+        return dateTime == null ? null : Timestamp.valueOf(dateTime);
+    }
+}
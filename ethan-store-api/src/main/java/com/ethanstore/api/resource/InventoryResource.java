@@ -0,0 +1,75 @@
+package com.ethanstore.api.resource;
+
+import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.domain.Reservation;
+import com.ethanstore.api.exception.domain.OutOfStockException;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.ReservationLimitExceededException;
+import com.ethanstore.api.exception.domain.ReservationNotFoundException;
+import com.ethanstore.api.interceptor.ConcurrencyLimit;
+import com.ethanstore.api.service.InventoryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Stock reservations. Anyone may check availability; reserving needs a signed-in user, and only that user can commit
+ * or release the reservation.
+ */
+@RestController
+@RequestMapping(path = "/inventory")
+@ConcurrencyLimit("inventory")
+public class InventoryResource {
+
+    private static final String RESERVATION_COMMITTED = "Reservation committed";
+    private static final String RESERVATION_RELEASED = "Reservation released";
+
+    private InventoryService inventoryService;
+
+    @Autowired
+    public InventoryResource(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @GetMapping("/available/{productId}")
+    public ResponseEntity<Long> getAvailable(@PathVariable Long productId) throws ProductNotFoundException {
+        return ResponseEntity.ok(inventoryService.getAvailable(productId));
+    }
+
+    @PostMapping("/reserve/{productId}")
+    public ResponseEntity<Reservation> reserve(@PathVariable Long productId,
+                                               @RequestParam(value = "quantity", defaultValue = "1") int quantity,
+                                               Authentication authentication)
+            throws ProductNotFoundException, OutOfStockException, ReservationLimitExceededException {
+        return new ResponseEntity<>(inventoryService.reserve(productId, quantity, authentication.getName()), CREATED);
+    }
+
+    @PostMapping("/commit/{reservationId}")
+    public ResponseEntity<HttpResponse> commit(@PathVariable String reservationId, Authentication authentication)
+            throws ReservationNotFoundException {
+        inventoryService.commit(reservationId, authentication.getName());
+        return response(OK, RESERVATION_COMMITTED);
+    }
+
+    @DeleteMapping("/release/{reservationId}")
+    public ResponseEntity<HttpResponse> release(@PathVariable String reservationId, Authentication authentication)
+            throws ReservationNotFoundException {
+        inventoryService.release(reservationId, authentication.getName());
+        return response(OK, RESERVATION_RELEASED);
+    }
+
+    private ResponseEntity<HttpResponse> response(HttpStatus httpStatus, String message) {
+        HttpResponse httpResponse = HttpResponse.builder()
+                .httpStatusCode(httpStatus.value())
+                .httpStatus(httpStatus)
+                .reason(httpStatus.getReasonPhrase().toUpperCase())
+                .message(message)
+                .build();
+        return ResponseEntity.status(httpStatus).body(httpResponse);
+    }
+}
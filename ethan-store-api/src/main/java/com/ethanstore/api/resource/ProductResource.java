@@ -0,0 +1,115 @@
+package com.ethanstore.api.resource;
+
+import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductRequest;
+import com.ethanstore.api.domain.ProductSearchResult;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.StaleProductException;
+import com.ethanstore.api.interceptor.ConcurrencyLimit;
+import com.ethanstore.api.service.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.http.HttpStatus.CREATED;
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Product catalog. Browsing is public and served from the in-memory index; changes need {@code product:write}.
+ */
+@RestController
+@RequestMapping(path = "/product")
+@ConcurrencyLimit("products")
+public class ProductResource {
+
+    private static final String PRODUCT_DELETED_SUCCESSFULLY = "Product deleted successfully";
+
+    private ProductService productService;
+
+    @Autowired
+    public ProductResource(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /** Repeat {@code brand} or {@code category} to select several; products matching any of them are returned. */
+    @GetMapping("/list")
+    public ResponseEntity<ProductPage> findProducts(
+            @RequestParam(value = "brand", required = false) Set<String> brands,
+            @RequestParam(value = "category", required = false) Set<String> categories,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(value = "minRating", required = false) Double minRating,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "24") int size
+    ) {
+        ProductPage products = productService.getProductPage(brands, categories, minPrice, maxPrice, minRating, sort, direction, page, size);
+        return ResponseEntity.ok(products);
+    }
+
+    /** Full-text search over name, brand and description, tolerant of typos and matching the last word as a prefix. */
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResult> searchProducts(
+            @RequestParam("q") String text,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "24") int size
+    ) {
+        return ResponseEntity.ok(productService.searchProducts(text, page, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestProductNames(
+            @RequestParam("q") String text,
+            @RequestParam(value = "size", defaultValue = "8") int size
+    ) {
+        return ResponseEntity.ok(productService.suggestProductNames(text, size));
+    }
+
+    @GetMapping("/find/{id}")
+    public ResponseEntity<Product> findProduct(@PathVariable Long id) throws ProductNotFoundException {
+        return ResponseEntity.ok(productService.findProductById(id));
+    }
+
+    @PostMapping("/add")
+    @PreAuthorize("hasAuthority('product:write')")
+    public ResponseEntity<Product> addNewProduct(@RequestBody ProductRequest request) {
+        return new ResponseEntity<>(productService.addNewProduct(request), CREATED);
+    }
+
+    /**
+     * Replaces the whole product, so the body carries every field, and the {@code version} it was read at; a product
+     * changed since is refused with 409.
+     */
+    @PostMapping("/update/{id}")
+    @PreAuthorize("hasAuthority('product:write')")
+    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @RequestBody ProductRequest request)
+            throws ProductNotFoundException, StaleProductException {
+        return ResponseEntity.ok(productService.updateProduct(id, request));
+    }
+
+    @DeleteMapping("/delete/{id}")
+    @PreAuthorize("hasAuthority('product:write')")
+    public ResponseEntity<HttpResponse> deleteProduct(@PathVariable Long id) throws ProductNotFoundException {
+        productService.deleteProduct(id);
+        return response(OK, PRODUCT_DELETED_SUCCESSFULLY);
+    }
+
+    private ResponseEntity<HttpResponse> response(HttpStatus httpStatus, String message) {
+        HttpResponse httpResponse = HttpResponse.builder()
+                .httpStatusCode(httpStatus.value())
+                .httpStatus(httpStatus)
+                .reason(httpStatus.getReasonPhrase().toUpperCase())
+                .message(message)
+                .build();
+        return ResponseEntity.status(httpStatus).body(httpResponse);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ethanstore.api.resource;
+
+import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.exception.domain.ProfilingStateException;
+import com.ethanstore.api.service.ProfilingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Starts and collects JFR recordings of the running instance. Super admins only, since a recording shows what the
+ * whole JVM is doing.
+ */
+@RestController
+@RequestMapping(path = "/admin/profiling")
+public class ProfilingResource {
+
+    private static final String RECORDING_STARTED = "Recording started for %d seconds";
+    private static final DateTimeFormatter FILE_NAME_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private ProfilingService profilingService;
+
+    @Autowired
+    public ProfilingResource(ProfilingService profilingService) {
+        this.profilingService = profilingService;
+    }
+
+    @PostMapping("/start")
+    @PreAuthorize("hasAuthority('user:delete')")
+    public ResponseEntity<HttpResponse> start(@RequestParam(value = "durationSeconds", defaultValue = "60") long durationSeconds)
+            throws ProfilingStateException {
+        profilingService.start(Duration.ofSeconds(durationSeconds));
+        return response(OK, String.format(RECORDING_STARTED, durationSeconds));
+    }
+
+    /**
+     * Streams the recording as a {@code .jfr} file for JDK Mission Control or {@code jfr print}. The temporary file is
+     * deleted once streamed, or here if the response cannot be built.
+     */
+    @PostMapping("/stop")
+    @PreAuthorize("hasAuthority('user:delete')")
+    public ResponseEntity<StreamingResponseBody> stop() throws ProfilingStateException, IOException {
+        Path recording = profilingService.stop();
+        boolean handedOver = false;
+        try {
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    Files.copy(recording, outputStream);
+                } finally {
+                    Files.deleteIfExists(recording);
+                }
+            };
+            ResponseEntity<StreamingResponseBody> response = ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .contentLength(Files.size(recording))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=ethan-store-" + LocalDateTime.now().format(FILE_NAME_TIMESTAMP) + ".jfr")
+                    .body(body);
+            handedOver = true;
+            return response;
+        } finally {
+            if (!handedOver) {
+                Files.deleteIfExists(recording);
+            }
+        }
+    }
+
+    private ResponseEntity<HttpResponse> response(HttpStatus httpStatus, String message) {
+        HttpResponse httpResponse = HttpResponse.builder()
+                .httpStatusCode(httpStatus.value())
+                .httpStatus(httpStatus)
+                .reason(httpStatus.getReasonPhrase().toUpperCase())
+                .message(message)
+                .build();
+        return ResponseEntity.status(httpStatus).body(httpResponse);
+    }
+}
@@ -1,45 +1,76 @@
 package com.ethanstore.api.resource;
 
 import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.domain.ProfileImage;
 import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPage;
 import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.enumeration.ExportFormat;
 import com.ethanstore.api.exception.domain.EmailExistException;
 import com.ethanstore.api.exception.domain.EmailNotFoundException;
+import com.ethanstore.api.exception.domain.LoginAttemptsExceededException;
+import com.ethanstore.api.exception.domain.ProfileImageTooLargeException;
 import com.ethanstore.api.exception.domain.UserNotFoundException;
 import com.ethanstore.api.exception.domain.UsernameExistException;
 import com.ethanstore.api.exception.handler.ResourceExceptionHandler;
+import com.ethanstore.api.interceptor.ConcurrencyLimit;
+import com.ethanstore.api.service.AvatarService;
+import com.ethanstore.api.service.ImageBlobService;
+import com.ethanstore.api.service.LastLoginService;
+import com.ethanstore.api.service.LoginAttemptService;
+import com.ethanstore.api.service.ProfileImageService;
+import com.ethanstore.api.service.ThumbnailService;
 import com.ethanstore.api.service.UserService;
 import com.ethanstore.api.util.JwtTokenProvider;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
+import java.time.Duration;
 
 import static com.ethanstore.api.constant.FileConstant.*;
 import static com.ethanstore.api.constant.SecurityConstant.JWT_TOKEN_HEADER;
 import static org.springframework.http.HttpStatus.CREATED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.MediaType.IMAGE_GIF_VALUE;
+import static org.springframework.http.MediaType.IMAGE_JPEG;
 import static org.springframework.http.MediaType.IMAGE_JPEG_VALUE;
+import static org.springframework.http.MediaType.IMAGE_PNG_VALUE;
 
 @RestController
 @RequestMapping(path = { "/", "/user" })
+@ConcurrencyLimit("users")
 public class UserResource extends ResourceExceptionHandler {
 
     private static final String EMAIL_SENT = "Password reset successful. New password sent to email: ";
     private static final String USER_DELETED_SUCCESSFULLY = "User deleted successfully";
+    private static final String TOO_MANY_LOGIN_ATTEMPTS = "Too many failed login attempts from this address. Please try again later";
+    /** The user changing their own image, or anyone who may edit users. */
+    private static final String OWNER_OR_USER_UPDATE = "#username == authentication.name or hasAuthority('user:update')";
+    private static final Duration IMMUTABLE_MAX_AGE = Duration.ofDays(365);
 
     private UserService userService;
 
@@ -47,23 +78,62 @@ public class UserResource extends ResourceExceptionHandler {
 
     private JwtTokenProvider jwtTokenProvider;
 
+    private ProfileImageService profileImageService;
+
+    private AvatarService avatarService;
+
+    private ThumbnailService thumbnailService;
+
+    private ImageBlobService imageBlobService;
+
+    private LoginAttemptService loginAttemptService;
+
+    private LastLoginService lastLoginService;
+
+    private Duration profileImageMaxAge;
+
+    private DistributionSummary memoryImageBytes;
+
+    private DistributionSummary sendfileImageBytes;
+
+    private DistributionSummary streamedImageBytes;
+
+    private DistributionSummary avatarImageBytes;
+
     @Autowired
-    public UserResource(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider) {
+    public UserResource(UserService userService, AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider,
+                        ProfileImageService profileImageService, AvatarService avatarService, ThumbnailService thumbnailService,
+                        ImageBlobService imageBlobService, LoginAttemptService loginAttemptService, LastLoginService lastLoginService,
+                        MeterRegistry meterRegistry,
+                        @Value("${ethanstore.profile-image.max-age-seconds:300}") long profileImageMaxAgeSeconds) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.profileImageService = profileImageService;
+        this.avatarService = avatarService;
+        this.thumbnailService = thumbnailService;
+        this.imageBlobService = imageBlobService;
+        this.loginAttemptService = loginAttemptService;
+        this.lastLoginService = lastLoginService;
+        this.profileImageMaxAge = Duration.ofSeconds(profileImageMaxAgeSeconds);
+        this.memoryImageBytes = imageBytesSummary("memory", meterRegistry);
+        this.sendfileImageBytes = imageBytesSummary("sendfile", meterRegistry);
+        this.streamedImageBytes = imageBytesSummary("stream", meterRegistry);
+        this.avatarImageBytes = imageBytesSummary("avatar", meterRegistry);
     }
 
     @PostMapping("/register")
+    @ConcurrencyLimit("password-hashing")
     public ResponseEntity<User> register(@RequestBody User user) throws UserNotFoundException, UsernameExistException, EmailExistException {
         User newUser = userService.register(user.getFirstName(), user.getLastName(), user.getUsername(), user.getEmail());
         return ResponseEntity.ok(newUser);
     }
 
     @PostMapping("/login")
-    public ResponseEntity<User> login(@RequestBody User user) {
-        authenticateUser(user.getUsername(), user.getPassword());
-        User loginUser = userService.findUserByUsername(user.getUsername());
+    @ConcurrencyLimit("password-hashing")
+    public ResponseEntity<User> login(@RequestBody User user, HttpServletRequest request) {
+        authenticateUser(user.getUsername(), user.getPassword(), request);
+        User loginUser = lastLoginService.withPendingLogin(userService.findUserByUsername(user.getUsername()));
         UserPrincipal userPrincipal = new UserPrincipal(loginUser);
         HttpHeaders jwtHeaders = getJwtHeader(userPrincipal);
 
@@ -71,6 +141,7 @@ public class UserResource extends ResourceExceptionHandler {
     }
 
     @PostMapping("/add")
+    @ConcurrencyLimit("password-hashing")
     public ResponseEntity<User> addUser(
             @RequestParam("firstName") String firstName,
             @RequestParam("lastName") String lastName,
@@ -80,12 +151,13 @@ public class UserResource extends ResourceExceptionHandler {
             @RequestParam("isActive") String isActive,
             @RequestParam("isNonLocked") String isNonLocked,
             @RequestParam(value = "profileImage", required = false) MultipartFile profileImage
-    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         User newUser = userService.addNewUser(firstName, lastName, username, email, role, Boolean.parseBoolean(isNonLocked), Boolean.parseBoolean(isActive), profileImage);
         return new ResponseEntity<>(newUser, CREATED);
     }
 
     @PostMapping("/update")
+    @ConcurrencyLimit("password-hashing")
     public ResponseEntity<User> updateUser(
             @RequestParam("currentUsername") String currentUsername,
             @RequestParam("firstName") String firstName,
@@ -96,7 +168,7 @@ public class UserResource extends ResourceExceptionHandler {
             @RequestParam("isActive") String isActive,
             @RequestParam("isNonLocked") String isNonLocked,
             @RequestParam(value = "profileImage", required = false) MultipartFile profileImage
-    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         User updatedUser = userService.updateUser(currentUsername, firstName, lastName, username, email, role, Boolean.parseBoolean(isNonLocked), Boolean.parseBoolean(isActive), profileImage);
         return ResponseEntity.ok(updatedUser);
     }
@@ -108,12 +180,34 @@ public class UserResource extends ResourceExceptionHandler {
     }
 
     @GetMapping("/list")
-    public ResponseEntity<List<User>> findAllUsers() {
-        List<User> users = userService.getAllUsers();
+    public ResponseEntity<UserPage> findAllUsers(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "25") int size,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "direction", defaultValue = "asc") String direction,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "active", required = false) Boolean active,
+            @RequestParam(value = "locked", required = false) Boolean locked
+    ) {
+        UserPage users = userService.getUserPage(cursor, size, sort, direction, role, active, locked);
         return ResponseEntity.ok(users);
     }
 
+    /** Every user's contact details, so limited to the roles that can edit users. */
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('user:update')")
+    @ConcurrencyLimit("export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        ExportFormat exportFormat = ExportFormat.fromFileExtension(format);
+        StreamingResponseBody body = outputStream -> userService.exportUsers(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + exportFormat.getFileExtension())
+                .body(body);
+    }
+
     @GetMapping("/reset-password/{email}")
+    @ConcurrencyLimit("password-hashing")
     public ResponseEntity<HttpResponse> resetPassword(@PathVariable String email) throws EmailNotFoundException {
         userService.resetPassword(email);
         return response(OK, EMAIL_SENT + email);
@@ -127,31 +221,112 @@ public class UserResource extends ResourceExceptionHandler {
     }
 
     @PostMapping("/update-profile-image")
+    @PreAuthorize(OWNER_OR_USER_UPDATE)
+    @ConcurrencyLimit("images")
     public ResponseEntity<User> updateProfileImage(
             @RequestParam("username") String username,
             @RequestParam(value = "profileImage") MultipartFile profileImage
-    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    ) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         User user = userService.updateProfileImage(username, profileImage);
         return ResponseEntity.ok(user);
     }
 
+    @PutMapping(value = "/update-profile-image/{username}", consumes = {IMAGE_JPEG_VALUE, IMAGE_PNG_VALUE, IMAGE_GIF_VALUE})
+    @PreAuthorize(OWNER_OR_USER_UPDATE)
+    @ConcurrencyLimit("images")
+    public ResponseEntity<User> updateProfileImage(@PathVariable String username, HttpServletRequest request)
+            throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
+        User user = userService.updateProfileImage(username, request.getInputStream());
+        return ResponseEntity.ok(user);
+    }
+
     @GetMapping(value = "/image/{username}/{fileName}", produces = IMAGE_JPEG_VALUE)
-    public byte[] getProfileImage(@PathVariable String username, @PathVariable String fileName) throws IOException {
-        return Files.readAllBytes(Paths.get(USER_FOLDER + username + FORWARD_SLASH + fileName));
+    @ConcurrencyLimit("images")
+    public ResponseEntity<Resource> getProfileImage(@PathVariable String username, @PathVariable String fileName,
+                                                    @RequestParam(value = "size", required = false) Integer size,
+                                                    HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path userFolder = Paths.get(USER_FOLDER).toAbsolutePath().normalize();
+        Path imagePath = userFolder.resolve(username + FORWARD_SLASH + fileName).normalize();
+        if (!imagePath.startsWith(userFolder)) {
+            return ResponseEntity.notFound().build();
+        }
+        return serveImage(imagePath, size, CacheControl.maxAge(profileImageMaxAge).cachePublic(), request, response);
+    }
+
+    @GetMapping(value = "/image/blob/{hash}.jpg", produces = IMAGE_JPEG_VALUE)
+    @ConcurrencyLimit("images")
+    public ResponseEntity<Resource> getProfileImageBlob(@PathVariable String hash,
+                                                        @RequestParam(value = "size", required = false) Integer size,
+                                                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path blobPath = imageBlobService.resolve(hash);
+        if (blobPath == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return serveImage(blobPath, size, CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePublic().immutable(), request, response);
     }
 
     @GetMapping(value = "/image/profile/{firstLastName}", produces = IMAGE_JPEG_VALUE)
-    public byte[] getTempProfileImage(@PathVariable String firstLastName) throws IOException {
-        URL url = new URL(TMP_PROFILE_IMAGE_BASE_URL + firstLastName);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        try (InputStream inputStream = url.openStream()) {
-            int bytesRead;
-            byte[] chunk = new byte[1024];
-            while ((bytesRead = inputStream.read(chunk)) > 0) {
-                byteArrayOutputStream.write(chunk, 0, bytesRead);
-            }
+    @ConcurrencyLimit("images")
+    public ResponseEntity<Resource> getTempProfileImage(@PathVariable String firstLastName, ServletWebRequest request) throws IOException {
+        ProfileImage avatar = avatarService.getAvatar(firstLastName);
+        if (request.checkNotModified(avatar.getETag())) {
+            return null;
         }
-        return byteArrayOutputStream.toByteArray();
+        avatarImageBytes.record(avatar.getContent().length);
+        return ResponseEntity.ok()
+                .contentType(IMAGE_JPEG)
+                .eTag(avatar.getETag())
+                .cacheControl(CacheControl.maxAge(IMMUTABLE_MAX_AGE).cachePublic().immutable())
+                .body(new ByteArrayResource(avatar.getContent()));
+    }
+
+    /**
+     * Serves the variant of {@code imagePath} closest to {@code size}, falling back to the original, with conditional
+     * GET, Range support and Tomcat sendfile for large files.
+     */
+    private ResponseEntity<Resource> serveImage(Path imagePath, Integer size, CacheControl cacheControl,
+                                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ProfileImage image = null;
+        if (size != null) {
+            image = profileImageService.getProfileImage(imagePath.resolveSibling(thumbnailService.getVariantFileName(imagePath.getFileName().toString(), size)));
+        }
+        if (image == null) {
+            image = profileImageService.getProfileImage(imagePath);
+        }
+        if (image == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (new ServletWebRequest(request, response).checkNotModified(image.getETag(), image.getLastModified())) {
+            return null;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(IMAGE_JPEG);
+        headers.setETag(image.getETag());
+        headers.setLastModified(image.getLastModified());
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (image.isCached()) {
+            memoryImageBytes.record(image.getContentLength());
+            return ResponseEntity.ok().headers(headers).body(new ByteArrayResource(image.getContent()));
+        }
+        if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            sendfileImageBytes.record(image.getContentLength());
+            request.setAttribute(SENDFILE_FILENAME, image.getPath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, image.getContentLength());
+            return ResponseEntity.ok().headers(headers).contentLength(image.getContentLength()).build();
+        }
+        streamedImageBytes.record(image.getContentLength());
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(image.getPath()));
+    }
+
+    /** Ranged requests are counted at the full image size. */
+    private static DistributionSummary imageBytesSummary(String source, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("image.served")
+                .description("Size of the profile images and avatars served")
+                .baseUnit("bytes")
+                .tag("source", source)
+                .register(meterRegistry);
     }
 
     private ResponseEntity<HttpResponse> response(HttpStatus httpStatus, String message) {
@@ -172,8 +347,14 @@ public class UserResource extends ResourceExceptionHandler {
         return httpHeaders;
     }
 
-    private void authenticateUser(String username, String password) {
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+    private void authenticateUser(String username, String password, HttpServletRequest request) {
+        WebAuthenticationDetails details = new WebAuthenticationDetailsSource().buildDetails(request);
+        if (loginAttemptService.hasSourceExceededMaxAttempts(details.getRemoteAddress())) {
+            throw new LoginAttemptsExceededException(TOO_MANY_LOGIN_ATTEMPTS, loginAttemptService.getWindow().toSeconds());
+        }
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username, password);
+        authentication.setDetails(details);
+        authenticationManager.authenticate(authentication);
     }
 
 }
@@ -0,0 +1,187 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.ProfileImage;
+import com.ethanstore.api.jfr.AvatarFetchEvent;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.text.Normalizer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+import static com.ethanstore.api.constant.FileConstant.*;
+
+/**
+ * Renders the default initials avatar in-process instead of fetching it from ui-avatars.com. The image depends only
+ * on the initials and the configured size, so each one is rendered once, written to {@code AVATAR_FOLDER} under the
+ * SHA-256 of its key, and kept in a bounded memory cache. Initials are folded to A-Z and 0-9, so anonymous callers can
+ * create at most {@value #MAX_AVATAR_FILES} files however many names they try.
+ */
+@Service
+@Slf4j
+public class AvatarService {
+
+    /** Bump when the rendering changes so stale files on disk are not served under the new ETag. */
+    private static final int RENDER_VERSION = 1;
+    private static final Color BACKGROUND = new Color(0x0D8ABC);
+    private static final Color FOREGROUND = Color.WHITE;
+    private static final String UNKNOWN_INITIALS = "?";
+    private static final int MAX_AVATAR_FILES = 1 + 36 + 36 * 36;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final float JPEG_QUALITY = 0.9f;
+
+    private Cache<String, ProfileImage> avatarCache;
+
+    private Path avatarFolder;
+
+    private int size;
+
+    @Autowired
+    public AvatarService(@Value("${ethanstore.avatar.size:128}") int size,
+                         @Value("${ethanstore.avatar.cache.maximum-size:1000}") long maximumSize) {
+        this.avatarCache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.avatarFolder = Paths.get(AVATAR_FOLDER).toAbsolutePath().normalize();
+        this.size = size;
+    }
+
+    /**
+     * Returns the avatar for a {@code First+Last} name, rendering and storing it on first use.
+     */
+    public ProfileImage getAvatar(String firstLastName) throws IOException {
+        AvatarFetchEvent event = new AvatarFetchEvent();
+        event.begin();
+        event.source = "memory";
+        String initials = getInitials(firstLastName);
+        ProfileImage avatar;
+        try {
+            avatar = avatarCache.get(initials, () -> loadOrRender(initials, event));
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = avatar.getContentLength();
+            event.commit();
+        }
+        return avatar;
+    }
+
+    /**
+     * Up to two initials from A-Z and 0-9, with accents stripped. Parts that start with anything else are skipped, and a
+     * name with no usable part gets {@code ?}.
+     */
+    static String getInitials(String firstLastName) {
+        StringBuilder initials = new StringBuilder(2);
+        for (String part : firstLastName.trim().split("[+\\s]+")) {
+            char initial = part.isEmpty() ? 0 : fold(part.codePointAt(0));
+            if ((initial >= 'A' && initial <= 'Z') || (initial >= '0' && initial <= '9')) {
+                initials.append(initial);
+                if (initials.length() == 2) {
+                    break;
+                }
+            }
+        }
+        return initials.length() == 0 ? UNKNOWN_INITIALS : initials.toString();
+    }
+
+    /** The code point upper-cased with its accents stripped, e.g. {@code é} to {@code E}, or 0 when nothing is left. */
+    private static char fold(int codePoint) {
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(Character.toString(codePoint), Normalizer.Form.NFD)).replaceAll("");
+        return folded.isEmpty() ? 0 : Character.toUpperCase(folded.charAt(0));
+    }
+
+    private ProfileImage loadOrRender(String initials, AvatarFetchEvent event) throws IOException {
+        String hash = sha256(RENDER_VERSION + ":" + size + ":" + initials);
+        Path path = avatarFolder.resolve(hash + DOT + JPG_EXTENTION);
+        byte[] content;
+        if (Files.isRegularFile(path)) {
+            content = Files.readAllBytes(path);
+            event.source = "disk";
+        } else {
+            content = render(initials);
+            store(path, content);
+            event.source = "rendered";
+        }
+        // Strong, so it names the bytes served rather than the key they were rendered from
+        String eTag = "\"" + sha256(content) + "\"";
+        return new ProfileImage(path, content.length, Files.getLastModifiedTime(path).toMillis(), eTag, content);
+    }
+
+    private byte[] render(String initials) throws IOException {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, size, size);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, size / 2));
+            graphics.setColor(FOREGROUND);
+            FontMetrics metrics = graphics.getFontMetrics();
+            float x = (size - metrics.stringWidth(initials)) / 2f;
+            float y = (size - metrics.getHeight()) / 2f + metrics.getAscent();
+            graphics.drawString(initials, x, y);
+        } finally {
+            graphics.dispose();
+        }
+        return toJpeg(image);
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(JPG_EXTENTION).next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private void store(Path path, byte[] content) throws IOException {
+        Files.createDirectories(avatarFolder);
+        Path tempFile = Files.createTempFile(avatarFolder, "avatar", ".tmp");
+        try {
+            Files.write(tempFile, content);
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Rendered avatar {}", path.getFileName());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.exception.domain.ProfileImageTooLargeException;
+import com.ethanstore.api.jfr.ProfileImageWriteEvent;
+import com.ethanstore.api.repository.ImageBlobRepository;
+import com.google.common.util.concurrent.Striped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+import static com.ethanstore.api.constant.FileConstant.*;
+
+/**
+ * Content-addressed store for profile images. An upload is streamed once into a temp file while its SHA-256 is
+ * computed, then renamed to {@code BLOB_FOLDER/<first two hex digits>/<hash>.jpg}; identical content is stored once
+ * no matter how many users reference it. Reference counts live in {@code image_blobs} and blobs nobody has pointed at
+ * for the grace period are swept from disk.
+ */
+@Service
+@Slf4j
+public class ImageBlobService {
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final String PROFILE_IMAGE_TOO_LARGE = "Profile image exceeds the maximum size of %d bytes";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Serialises storing and sweeping of the same hash so a sweep never deletes a file that was just re-referenced. */
+    private final Striped<Lock> hashLocks = Striped.lock(64);
+
+    private ImageBlobRepository imageBlobRepository;
+
+    private Path blobFolder;
+
+    private long maxUploadBytes;
+
+    private long sweepGraceMinutes;
+
+    @Autowired
+    public ImageBlobService(ImageBlobRepository imageBlobRepository,
+                            @Value("${ethanstore.profile-image.max-upload-bytes:5242880}") long maxUploadBytes,
+                            @Value("${ethanstore.image-blobs.sweep-grace-minutes:60}") long sweepGraceMinutes) throws IOException {
+        this.imageBlobRepository = imageBlobRepository;
+        this.blobFolder = Files.createDirectories(Paths.get(BLOB_FOLDER).toAbsolutePath().normalize());
+        this.maxUploadBytes = maxUploadBytes;
+        this.sweepGraceMinutes = sweepGraceMinutes;
+    }
+
+    /**
+     * Streams {@code content} into the store and adds one reference to the resulting blob. Uploads larger than the
+     * configured limit are rejected as soon as the limit is crossed, without reading the rest of the body.
+     */
+    public StoredBlob store(InputStream content) throws IOException, ProfileImageTooLargeException {
+        ProfileImageWriteEvent event = new ProfileImageWriteEvent();
+        event.begin();
+        event.outcome = "failed";
+        long size = 0;
+        Path tempFile = Files.createTempFile(blobFolder, "upload", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxUploadBytes) {
+                        event.outcome = "rejected";
+                        throw new ProfileImageTooLargeException(String.format(PROFILE_IMAGE_TOO_LARGE, maxUploadBytes));
+                    }
+                    digest.update(buffer, 0, read);
+                    output.write(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path path = resolve(hash);
+            Lock lock = hashLocks.get(hash);
+            lock.lock();
+            try {
+                imageBlobRepository.acquire(hash, size);
+                if (Files.exists(path)) {
+                    event.outcome = "deduplicated";
+                    return new StoredBlob(hash, path, false);
+                }
+                Files.createDirectories(path.getParent());
+                Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE);
+                log.info(FILE_SAVED_IN_FILE_SYSTEM + path.getFileName());
+                event.outcome = "stored";
+                return new StoredBlob(hash, path, true);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+            event.end();
+            if (event.shouldCommit()) {
+                event.bytes = size;
+                event.commit();
+            }
+        }
+    }
+
+    public void release(String hash) {
+        imageBlobRepository.release(hash, LocalDateTime.now());
+    }
+
+    public void validateUploadSize(long contentLength) throws ProfileImageTooLargeException {
+        if (contentLength > maxUploadBytes) {
+            throw new ProfileImageTooLargeException(String.format(PROFILE_IMAGE_TOO_LARGE, maxUploadBytes));
+        }
+    }
+
+    /**
+     * Returns the path of the blob with this hash, or {@code null} when {@code hash} is not a SHA-256 hex digest.
+     */
+    public Path resolve(String hash) {
+        if (!HASH_PATTERN.matcher(hash).matches()) {
+            return null;
+        }
+        return blobFolder.resolve(hash.substring(0, 2)).resolve(hash + DOT + JPG_EXTENTION);
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.image-blobs.sweep-interval-ms:3600000}")
+    public void sweepUnreferenced() {
+        LocalDateTime releasedBefore = LocalDateTime.now().minusMinutes(sweepGraceMinutes);
+        for (String hash : imageBlobRepository.findUnreferencedHashes(releasedBefore)) {
+            Lock lock = hashLocks.get(hash);
+            lock.lock();
+            try {
+                if (imageBlobRepository.deleteUnreferenced(hash, releasedBefore) == 1) {
+                    deleteFiles(hash);
+                }
+            } catch (IOException e) {
+                log.error("Could not delete unreferenced blob {}: {}", hash, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Deletes the blob and every variant rendered from it. */
+    private void deleteFiles(String hash) throws IOException {
+        Path path = resolve(hash);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path.getParent(), hash + "*")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        log.debug("Swept unreferenced blob {}", hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class StoredBlob {
+        private final String hash;
+        private final Path path;
+        private final boolean created;
+    }
+}
@@ -0,0 +1,452 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.Reservation;
+import com.ethanstore.api.domain.StockAdjustment;
+import com.ethanstore.api.event.ProductChangedEvent;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.CapacityExceededException;
+import com.ethanstore.api.exception.domain.OutOfStockException;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.ReservationLimitExceededException;
+import com.ethanstore.api.exception.domain.ReservationNotFoundException;
+import com.ethanstore.api.repository.InventoryLeaseRepository;
+import com.ethanstore.api.repository.ProductRepository;
+import com.ethanstore.api.repository.StockAdjustmentRepository;
+import com.ethanstore.api.util.StripedStockCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static com.ethanstore.api.constant.InventoryImplConstant.*;
+import static com.ethanstore.api.constant.ProductImplConstant.NO_PRODUCT_FOUND_BY_ID;
+
+/**
+ * Stock reservations answered from memory, so a flash sale on one product does not queue every buyer on its row lock.
+ * <p>
+ * Each product's stock is a {@link StripedStockCounter}, loaded when this node takes the inventory lease and moved by
+ * every committed stock edit. A reservation takes units out of it straight away and holds them for
+ * {@code ethanstore.inventory.reservation-ttl-seconds}; released or expired reservations put them back, committed
+ * ones are sold. Sold units are written behind: summed per product and subtracted from {@code count_in_stock} in one
+ * transaction at most {@code ethanstore.inventory.flush-interval-ms} later, so the stored count runs behind by what
+ * is still pending, and a batch that fails is rolled back whole and retried whole. Stock edits lock the row and
+ * apply as a difference, so they do not undo those sales.
+ * <p>
+ * The counters are one node's own, so only the holder of the {@code inventory_leases} row serves inventory; the other
+ * nodes answer with 503 and Retry-After. The holder renews the lease every
+ * {@code ethanstore.inventory.lease-renew-interval-ms} and stops serving a third of {@code lease-seconds} before the
+ * lease could pass to another node, which leaves its last flush time to land; a node taking over flushes its own
+ * pending sales and reloads every count first. Stock edits made on any node are journalled as
+ * {@link StockAdjustment}s in the editing transaction and applied by the holder, skipping those its product version
+ * already covers. Sales a node could not flush before losing the lease, because the database was unreachable, are
+ * written once it is back but were not in the counts the new holder loaded.
+ * <p>
+ * Open reservations are capped per owner at {@code ethanstore.inventory.max-reservations-per-owner}, so one account
+ * cannot hold a product's stock by reserving it a few units at a time.
+ */
+@Service
+@Slf4j
+public class InventoryService {
+
+    private static final int ADJUSTMENT_BATCH_SIZE = 500;
+
+    private final ConcurrentMap<Long, StripedStockCounter> stock = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> stockVersions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> openByOwner = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, LongAdder> pendingSold = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ProductRepository productRepository;
+
+    private InventoryLeaseRepository leaseRepository;
+
+    private StockAdjustmentRepository adjustmentRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private String nodeId;
+
+    private int stripes;
+
+    private long reservationTtlMillis;
+
+    private int maxQuantity;
+
+    private int maxReservations;
+
+    private int maxReservationsPerOwner;
+
+    private long leaseSeconds;
+
+    private LongSupplier clock;
+
+    private volatile long servingUntil;
+
+    private Counter reserved;
+
+    private Counter rejected;
+
+    private Counter committed;
+
+    private Counter released;
+
+    private Counter expired;
+
+    @Autowired
+    public InventoryService(ProductRepository productRepository, InventoryLeaseRepository leaseRepository,
+                            StockAdjustmentRepository adjustmentRepository, TransactionTemplate transactionTemplate,
+                            @Value("${ethanstore.inventory.stripes:0}") int stripes,
+                            @Value("${ethanstore.inventory.reservation-ttl-seconds:600}") long reservationTtlSeconds,
+                            @Value("${ethanstore.inventory.max-quantity:10}") int maxQuantity,
+                            @Value("${ethanstore.inventory.max-reservations:1000000}") int maxReservations,
+                            @Value("${ethanstore.inventory.max-reservations-per-owner:20}") int maxReservationsPerOwner,
+                            @Value("${ethanstore.inventory.lease-seconds:15}") long leaseSeconds,
+                            MeterRegistry meterRegistry) {
+        this(productRepository, leaseRepository, adjustmentRepository, transactionTemplate, ManagementFactory.getRuntimeMXBean().getName(),
+                stripes, reservationTtlSeconds, maxQuantity, maxReservations, maxReservationsPerOwner, leaseSeconds, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    InventoryService(ProductRepository productRepository, InventoryLeaseRepository leaseRepository,
+                     StockAdjustmentRepository adjustmentRepository, TransactionTemplate transactionTemplate, String nodeId,
+                     int stripes, long reservationTtlSeconds, int maxQuantity, int maxReservations, int maxReservationsPerOwner,
+                     long leaseSeconds, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.productRepository = productRepository;
+        this.leaseRepository = leaseRepository;
+        this.adjustmentRepository = adjustmentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.nodeId = nodeId;
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.stripes = Integer.highestOneBit(Math.max(1, stripes > 0 ? stripes : cores) * 2 - 1);
+        this.reservationTtlMillis = TimeUnit.SECONDS.toMillis(reservationTtlSeconds);
+        this.maxQuantity = maxQuantity;
+        this.maxReservations = maxReservations;
+        this.maxReservationsPerOwner = maxReservationsPerOwner;
+        this.leaseSeconds = leaseSeconds;
+        this.clock = clock;
+        this.reserved = reservationCounter("reserved", meterRegistry);
+        this.rejected = reservationCounter("rejected", meterRegistry);
+        this.committed = reservationCounter("committed", meterRegistry);
+        this.released = reservationCounter("released", meterRegistry);
+        this.expired = reservationCounter("expired", meterRegistry);
+        Gauge.builder("inventory.reservations.active", reservations, Map::size)
+                .description("Reservations holding stock")
+                .register(meterRegistry);
+        Gauge.builder("inventory.sold.pending", pendingSold, pending -> pending.values().stream().mapToLong(LongAdder::sum).sum())
+                .description("Sold units not yet written to the products table")
+                .register(meterRegistry);
+        Gauge.builder("inventory.lease.held", this, inventory -> inventory.isServing() ? 1 : 0)
+                .description("Whether this node serves inventory")
+                .register(meterRegistry);
+    }
+
+    /** Takes or renews the inventory lease, loading the stock on taking it and dropping it on losing it. */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${ethanstore.inventory.lease-renew-interval-ms:5000}")
+    public void renewLease() {
+        long now = clock.getAsLong();
+        long leaseMillis = TimeUnit.SECONDS.toMillis(leaseSeconds);
+        boolean held;
+        try {
+            held = leaseRepository.tryAcquire(INVENTORY_LEASE, nodeId, now, now + leaseMillis);
+        } catch (DataAccessException e) {
+            log.warn("Could not renew the inventory lease, serving until it lapses: {}", e.getMessage());
+            return;
+        }
+        if (!held) {
+            if (servingUntil != 0) {
+                log.warn("Lost the inventory lease to another node");
+                stopServing();
+            }
+            return;
+        }
+        // Lapsed meanwhile, so another node may have served and the counts are reloaded
+        if (now >= servingUntil && !takeOver()) {
+            return;
+        }
+        servingUntil = now + leaseMillis - leaseMillis / 3;
+    }
+
+    public boolean isServing() {
+        return clock.getAsLong() < servingUntil;
+    }
+
+    public Reservation reserve(Long productId, int quantity, String owner)
+            throws ProductNotFoundException, OutOfStockException, ReservationLimitExceededException {
+        requireLease();
+        if (quantity < 1 || quantity > maxQuantity) {
+            throw new BadRequestException(INVALID_QUANTITY + maxQuantity);
+        }
+        StripedStockCounter units = stockOf(productId);
+        if (reservations.size() >= maxReservations) {
+            throw new CapacityExceededException(TOO_MANY_RESERVATIONS, 1);
+        }
+        if (openByOwner.merge(owner, 1, Integer::sum) > maxReservationsPerOwner) {
+            closeOne(owner);
+            rejected.increment();
+            throw new ReservationLimitExceededException(TOO_MANY_OPEN_RESERVATIONS + maxReservationsPerOwner);
+        }
+        if (!units.tryTake(quantity)) {
+            closeOne(owner);
+            rejected.increment();
+            throw new OutOfStockException(NOT_ENOUGH_STOCK + productId);
+        }
+        Instant expiresAt = Instant.ofEpochMilli(clock.getAsLong() + reservationTtlMillis);
+        Reservation reservation;
+        do {
+            // Not UUID.randomUUID(), whose SecureRandom would serialise every reservation again
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            reservation = new Reservation(new UUID(random.nextLong(), random.nextLong()).toString(), productId, quantity, owner, expiresAt);
+        } while (reservations.putIfAbsent(reservation.getId(), reservation) != null);
+        reserved.increment();
+        return reservation;
+    }
+
+    /** Sells the reserved units. */
+    public void commit(String reservationId, String owner) throws ReservationNotFoundException {
+        requireLease();
+        Reservation reservation = take(reservationId, owner);
+        pendingSold.computeIfAbsent(reservation.getProductId(), productId -> new LongAdder()).add(reservation.getQuantity());
+        committed.increment();
+    }
+
+    /** Puts the reserved units back in stock. */
+    public void release(String reservationId, String owner) throws ReservationNotFoundException {
+        requireLease();
+        restock(take(reservationId, owner));
+        released.increment();
+    }
+
+    public long getAvailable(Long productId) throws ProductNotFoundException {
+        requireLease();
+        return stockOf(productId).available();
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.inventory.expiry-interval-ms:1000}")
+    public void expireReservations() {
+        long now = clock.getAsLong();
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.isExpired(now) && reservations.remove(reservation.getId(), reservation)) {
+                closeOne(reservation.getOwner());
+                restock(reservation);
+                expired.increment();
+            }
+        }
+    }
+
+    /** Runs whether or not this node holds the lease, so sales it made before losing it still reach the table. */
+    @Scheduled(fixedDelayString = "${ethanstore.inventory.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingSold.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            Map<Long, Long> batch = new HashMap<>();
+            pendingSold.forEach((productId, sold) -> {
+                long units = sold.sum();
+                if (units != 0) {
+                    // Subtracted rather than reset, so units committed meanwhile are kept for the next flush
+                    sold.add(-units);
+                    batch.put(productId, units);
+                }
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                // One transaction, so a failure part way rolls back the rows already updated and the retry applies each once
+                transactionTemplate.executeWithoutResult(status -> productRepository.batchDecrementStock(batch));
+            } catch (RuntimeException e) {
+                log.error("Could not write {} sold stock counts, keeping them for the next flush: {}", batch.size(), e.getMessage());
+                batch.forEach((productId, units) -> pendingSold.computeIfAbsent(productId, id -> new LongAdder()).add(units));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Applies the stock edits journalled on any node since the last poll. */
+    @Scheduled(fixedDelayString = "${ethanstore.inventory.adjustment-interval-ms:1000}")
+    public void applyAdjustments() {
+        if (isServing()) {
+            applyPendingAdjustments();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        boolean serving = isServing();
+        servingUntil = 0;
+        flush();
+        if (serving && !hasPendingSales()) {
+            leaseRepository.release(INVENTORY_LEASE, nodeId, clock.getAsLong());
+        }
+    }
+
+    /** Applies this node's edits straight away; the journalled copy is skipped later as already applied. */
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!isServing()) {
+            return;
+        }
+        Product product = event.getProduct();
+        apply(event.getProductId(), product == null ? null : product.getVersion(), event.getStockChange(), event.isDeleted());
+    }
+
+    private boolean takeOver() {
+        servingUntil = 0;
+        long start = System.nanoTime();
+        flush();
+        if (hasPendingSales()) {
+            log.warn("Holding the inventory lease but not serving until this node's pending sales are written");
+            return false;
+        }
+        reservations.clear();
+        openByOwner.clear();
+        stock.clear();
+        stockVersions.clear();
+        productRepository.forEachStockCount((productId, units, version) -> {
+            stock.put(productId, new StripedStockCounter(units, stripes));
+            stockVersions.put(productId, version);
+        });
+        applyPendingAdjustments();
+        log.info("Took the inventory lease as {} and loaded stock of {} products in {} ms", nodeId, stock.size(),
+                (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private void stopServing() {
+        servingUntil = 0;
+        flush();
+        reservations.clear();
+        openByOwner.clear();
+        stock.clear();
+        stockVersions.clear();
+    }
+
+    private void applyPendingAdjustments() {
+        List<StockAdjustment> adjustments;
+        do {
+            adjustments = adjustmentRepository.findPendingAdjustments(ADJUSTMENT_BATCH_SIZE);
+            for (StockAdjustment adjustment : adjustments) {
+                apply(adjustment.getProductId(), adjustment.getVersion(), adjustment.getStockChange(), adjustment.isDeleted());
+            }
+            if (!adjustments.isEmpty()) {
+                adjustmentRepository.deleteAdjustments(adjustments.stream().map(StockAdjustment::getId).toList());
+            }
+        } while (adjustments.size() == ADJUSTMENT_BATCH_SIZE);
+    }
+
+    /**
+     * Moves a product's stock by {@code stockChange} unless {@code version} is one already applied. A product not
+     * held here is only added by its creation, so a late edit of a deleted product does not bring it back. A null
+     * version always applies.
+     */
+    private void apply(Long productId, Long version, int stockChange, boolean deleted) {
+        if (deleted) {
+            stock.remove(productId);
+            stockVersions.remove(productId);
+            pendingSold.remove(productId);
+            return;
+        }
+        stock.compute(productId, (id, units) -> {
+            Long applied = stockVersions.get(id);
+            if (units == null) {
+                if (version != null && version != 0) {
+                    return null;
+                }
+                stockVersions.put(id, version == null ? 0 : version);
+                return new StripedStockCounter(Math.max(0, stockChange), stripes);
+            }
+            if (version != null && applied != null && version <= applied) {
+                return units;
+            }
+            if (stockChange > 0) {
+                units.add(stockChange);
+            } else {
+                units.remove(-(long) stockChange);
+            }
+            if (version != null) {
+                stockVersions.put(id, version);
+            }
+            return units;
+        });
+    }
+
+    private void requireLease() {
+        if (!isServing()) {
+            throw new CapacityExceededException(INVENTORY_SERVED_ELSEWHERE, leaseSeconds);
+        }
+    }
+
+    private boolean hasPendingSales() {
+        return pendingSold.values().stream().anyMatch(sold -> sold.sum() != 0);
+    }
+
+    private StripedStockCounter stockOf(Long productId) throws ProductNotFoundException {
+        StripedStockCounter units = stock.get(productId);
+        if (units == null) {
+            throw new ProductNotFoundException(NO_PRODUCT_FOUND_BY_ID + productId);
+        }
+        return units;
+    }
+
+    /** Removes an unexpired reservation of {@code owner}; an expired one is put back in stock and reported missing. */
+    private Reservation take(String reservationId, String owner) throws ReservationNotFoundException {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.getOwner().equals(owner) || !reservations.remove(reservationId, reservation)) {
+            throw new ReservationNotFoundException(NO_RESERVATION_FOUND_BY_ID + reservationId);
+        }
+        closeOne(owner);
+        if (reservation.isExpired(clock.getAsLong())) {
+            restock(reservation);
+            expired.increment();
+            throw new ReservationNotFoundException(NO_RESERVATION_FOUND_BY_ID + reservationId);
+        }
+        return reservation;
+    }
+
+    private void closeOne(String owner) {
+        openByOwner.computeIfPresent(owner, (o, open) -> open == 1 ? null : open - 1);
+    }
+
+    private void restock(Reservation reservation) {
+        StripedStockCounter units = stock.get(reservation.getProductId());
+        if (units != null) {
+            units.add(reservation.getQuantity());
+        }
+    }
+
+    private static Counter reservationCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("inventory.reservations")
+                .description("Reservation requests and how they ended")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
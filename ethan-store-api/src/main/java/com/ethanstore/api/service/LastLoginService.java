@@ -0,0 +1,102 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.LastLogin;
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for last-login timestamps. Logins are recorded in memory and written in batched UPDATEs at most
+ * {@code ethanstore.last-login.flush-interval-ms} later, so a successful login never opens a write transaction. The
+ * columns are not updatable through the entity, so saving a user never overwrites what was flushed.
+ */
+@Service
+@Slf4j
+public class LastLoginService {
+
+    private final ConcurrentMap<String, LastLogin> pendingLogins = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private UserRepository userRepository;
+
+    private int batchSize;
+
+    @Autowired
+    public LastLoginService(UserRepository userRepository, @Value("${ethanstore.last-login.batch-size:500}") int batchSize) {
+        this.userRepository = userRepository;
+        this.batchSize = batchSize;
+    }
+
+    public void recordLogin(String username) {
+        LocalDateTime loginDate = LocalDateTime.now();
+        pendingLogins.compute(username, (key, pending) ->
+                pending == null ? new LastLogin(key, null, loginDate) : pending.next(loginDate));
+    }
+
+    /** Shows the login dates not yet flushed on {@code user}, as the batched UPDATE will store them. */
+    public User withPendingLogin(User user) {
+        LastLogin pending = user == null ? null : pendingLogins.get(user.getUsername());
+        if (pending != null) {
+            user.setLastLoginDateDisplay(pending.getPreviousLogin() == null ? user.getLastLoginDate() : pending.getPreviousLogin());
+            user.setLastLoginDate(pending.getLatestLogin());
+        }
+        return user;
+    }
+
+    public int getPendingCount() {
+        return pendingLogins.size();
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pendingLogins.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<LastLogin> batch = new ArrayList<>(Math.min(batchSize, pendingLogins.size()));
+            for (String username : new ArrayList<>(pendingLogins.keySet())) {
+                LastLogin lastLogin = pendingLogins.remove(username);
+                if (lastLogin != null) {
+                    batch.add(lastLogin);
+                }
+                if (batch.size() == batchSize) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing {} pending last login dates before shutdown", pendingLogins.size());
+        flush();
+    }
+
+    private void write(List<LastLogin> batch) {
+        try {
+            userRepository.batchUpdateLastLogin(batch);
+        } catch (RuntimeException e) {
+            log.error("Could not write {} last login dates, keeping them for the next flush", batch.size(), e);
+            batch.forEach(failed -> pendingLogins.merge(failed.getUsername(), failed, (newer, older) -> older.mergeNewer(newer)));
+        }
+    }
+}
@@ -1,52 +1,92 @@
 package com.ethanstore.api.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.ethanstore.api.enumeration.LoginAttemptKeyType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 
+/**
+ * Applies the lockout limits to failed logins per username and per source address over a sliding window. The counts
+ * themselves live in the configured {@link LoginAttemptStore}. Counts recorded failures and refused logins per key type
+ * as {@code login.attempts.failed} and {@code login.lockouts}.
+ */
 @Service
 public class LoginAttemptService {
 
-    private static final int MAXIMUM_NUMBER_OF_ATTEMPTS = 5;
-    private static final int ATTEMPT_INCREMENT = 1;
+    private LoginAttemptStore loginAttemptStore;
 
-    private LoadingCache<String, Integer> loginAttemptCache;
+    private int maxAttempts;
 
-    public LoginAttemptService() {
-        super();
-        loginAttemptCache = CacheBuilder.newBuilder().expireAfterWrite(15, TimeUnit.MINUTES)
-                .maximumSize(100).build(new CacheLoader<>() {
-                    @Override
-                    public Integer load(String key) {
-                        return 0;
-                    }
-                });
+    private int maxSourceAttempts;
+
+    private Duration window;
+
+    private Map<LoginAttemptKeyType, Counter> failures = new EnumMap<>(LoginAttemptKeyType.class);
+
+    private Map<LoginAttemptKeyType, Counter> lockouts = new EnumMap<>(LoginAttemptKeyType.class);
+
+    @Autowired
+    public LoginAttemptService(LoginAttemptStore loginAttemptStore,
+                               @Value("${ethanstore.login-attempts.window-seconds:900}") long windowSeconds,
+                               @Value("${ethanstore.login-attempts.username.max-attempts:5}") int maxAttempts,
+                               @Value("${ethanstore.login-attempts.source.max-attempts:50}") int maxSourceAttempts,
+                               MeterRegistry meterRegistry) {
+        this.loginAttemptStore = loginAttemptStore;
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.maxAttempts = maxAttempts;
+        this.maxSourceAttempts = maxSourceAttempts;
+        for (LoginAttemptKeyType type : LoginAttemptKeyType.values()) {
+            failures.put(type, Counter.builder("login.attempts.failed")
+                    .description("Failed logins recorded against a username or source address")
+                    .tag("key", type.name().toLowerCase())
+                    .register(meterRegistry));
+            lockouts.put(type, Counter.builder("login.lockouts")
+                    .description("Logins refused because the username or source address reached its failure limit")
+                    .tag("key", type.name().toLowerCase())
+                    .register(meterRegistry));
+        }
     }
 
     public void evictUserFromLoginAttemptCache(String username) {
-        this.loginAttemptCache.invalidate(username);
+        loginAttemptStore.reset(LoginAttemptKeyType.USERNAME, username);
     }
 
     public void addUserToLoginAttemptCache(String username) {
-        int attempt = 0;
-        try {
-            attempt = this.loginAttemptCache.get(username) + ATTEMPT_INCREMENT;
-        } catch (ExecutionException e) {
-            e.printStackTrace();
-        }
-        this.loginAttemptCache.put(username, attempt);
+        recordFailure(LoginAttemptKeyType.USERNAME, username);
     }
 
     public boolean hasExceededMaxAttempts(String username) {
-        try {
-            return this.loginAttemptCache.get(username) >= MAXIMUM_NUMBER_OF_ATTEMPTS;
-        } catch (ExecutionException e) {
-            e.printStackTrace();
+        return hasExceeded(LoginAttemptKeyType.USERNAME, username, maxAttempts);
+    }
+
+    public void addSourceToLoginAttemptCache(String remoteAddress) {
+        recordFailure(LoginAttemptKeyType.SOURCE, remoteAddress);
+    }
+
+    public boolean hasSourceExceededMaxAttempts(String remoteAddress) {
+        return hasExceeded(LoginAttemptKeyType.SOURCE, remoteAddress, maxSourceAttempts);
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    private void recordFailure(LoginAttemptKeyType type, String key) {
+        loginAttemptStore.recordFailure(type, key);
+        failures.get(type).increment();
+    }
+
+    private boolean hasExceeded(LoginAttemptKeyType type, String key, int limit) {
+        boolean exceeded = loginAttemptStore.countFailures(type, key) >= limit;
+        if (exceeded) {
+            lockouts.get(type).increment();
         }
-        return false;
+        return exceeded;
     }
 }
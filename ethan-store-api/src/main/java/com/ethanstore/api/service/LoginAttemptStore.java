@@ -0,0 +1,17 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.enumeration.LoginAttemptKeyType;
+
+/**
+ * Where {@link LoginAttemptService} keeps failed-login counts. Selected with {@code ethanstore.login-attempts.store}:
+ * {@code memory} counts per node, {@code jdbc} shares the counts between every node using the same database.
+ */
+public interface LoginAttemptStore {
+
+    void recordFailure(LoginAttemptKeyType type, String key);
+
+    /** Failures for {@code key} inside the window. Implementations may answer from a short-lived local cache. */
+    int countFailures(LoginAttemptKeyType type, String key);
+
+    void reset(LoginAttemptKeyType type, String key);
+}
@@ -0,0 +1,264 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.event.ProductChangedEvent;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.ethanstore.api.constant.FileConstant.SEARCH_INDEX_FOLDER;
+import static com.ethanstore.api.constant.ProductImplConstant.*;
+
+/**
+ * Full-text search over product name, brand and description on an embedded Lucene index. The index is rebuilt from
+ * the catalog at startup and then follows {@link ProductChangedEvent}s; changes become searchable at the next
+ * near-real-time refresh, at most {@code ethanstore.product-search.refresh-interval-ms} later, and reach disk at the
+ * next commit.
+ * <p>
+ * Every query term must match one of the fields, exactly or, from four letters on, with one typo, and the last term
+ * also matches as a prefix, from three letters on, so results follow the user while typing. A shorter prefix would
+ * expand to a large share of the terms in a big catalog and match most of it. Rating and review count are indexed as
+ * {@link FeatureField}s and added to the text score with a saturation curve, which keeps Lucene's top-k pruning so
+ * latency tracks the page size rather than the number of matches. {@code index-dir} is memory-mapped; left blank
+ * the index lives on the heap.
+ * <p>
+ * Queries are capped at {@code MAX_SEARCH_TEXT_LENGTH} characters and {@code MAX_SEARCH_TERMS} terms, which keeps
+ * the clauses the fuzzy terms expand to under Lucene's limit; longer ones are rejected as bad requests.
+ */
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String BRAND = "brand";
+    private static final String DESCRIPTION = "description";
+    private static final String FEATURES = "features";
+    private static final String RATING = "rating";
+    private static final String NUM_REVIEWS = "numReviews";
+    private static final Map<String, Float> SEARCH_FIELDS = Map.of(NAME, 3f, BRAND, 2f, DESCRIPTION, 1f);
+    private static final Map<String, Float> SUGGEST_FIELDS = Map.of(NAME, 1f);
+    private static final int FUZZY_MIN_LENGTH = 4;
+    private static final float FUZZY_WEIGHT = 0.5f;
+    private static final int PREFIX_MIN_LENGTH = 3;
+    private static final float PREFIX_WEIGHT = 0.7f;
+    private static final float RATING_WEIGHT = 1f;
+    private static final float RATING_PIVOT = 4f;
+    private static final float REVIEWS_WEIGHT = 0.5f;
+    private static final float REVIEWS_PIVOT = 50f;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private String indexDir;
+
+    private Directory directory;
+
+    private IndexWriter indexWriter;
+
+    private SearcherManager searcherManager;
+
+    @Autowired
+    public ProductSearchService(@Value("${ethanstore.product-search.index-dir:#{null}}") String indexDir) {
+        this.indexDir = indexDir == null ? SEARCH_INDEX_FOLDER : indexDir;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = StringUtils.isBlank(indexDir) ? new ByteBuffersDirectory() : FSDirectory.open(Path.of(indexDir));
+        indexWriter = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(indexWriter, null);
+        log.info("Opened the product search index in {}", StringUtils.isBlank(indexDir) ? "memory" : indexDir);
+    }
+
+    /** Replaces the index with {@code catalog} and makes it searchable straight away. */
+    public void rebuild(Collection<Product> catalog) throws IOException {
+        indexWriter.deleteAll();
+        for (Product product : catalog) {
+            indexWriter.addDocument(document(product));
+        }
+        indexWriter.commit();
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    /** Runs after the write committed, so a failure here is logged rather than thrown at the caller. */
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        Term id = new Term(ID, String.valueOf(event.getProductId()));
+        try {
+            if (event.isDeleted()) {
+                indexWriter.deleteDocuments(id);
+            } else {
+                indexWriter.updateDocument(id, document(event.getProduct()));
+            }
+        } catch (IOException e) {
+            log.error("Could not apply a change of product {} to the search index, it stays stale until the product changes again or the node restarts: {}",
+                    event.getProductId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.product-search.refresh-interval-ms:1000}")
+    public void refresh() throws IOException {
+        searcherManager.maybeRefresh();
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.product-search.commit-interval-ms:60000}")
+    public void commit() throws IOException {
+        if (indexWriter.hasUncommittedChanges()) {
+            indexWriter.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        indexWriter.close();
+        directory.close();
+    }
+
+    /** Ids of the products ranked {@code offset} to {@code offset + size} for {@code text}. */
+    public Hits search(String text, int offset, int size) {
+        Query query = query(text, SEARCH_FIELDS);
+        if (query == null) {
+            return new Hits(Collections.emptyList(), 0, true);
+        }
+        return withSearcher(searcher -> {
+            TopDocs topDocs = searcher.search(query, offset + size);
+            StoredFields storedFields = searcher.storedFields();
+            List<Long> ids = new ArrayList<>(Math.max(0, topDocs.scoreDocs.length - offset));
+            for (int i = offset; i < topDocs.scoreDocs.length; i++) {
+                ids.add(Long.valueOf(storedFields.document(topDocs.scoreDocs[i].doc, Set.of(ID)).get(ID)));
+            }
+            return new Hits(ids, topDocs.totalHits.value, topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO);
+        });
+    }
+
+    /** Distinct names of the most relevant products whose name starts like {@code text}. */
+    public List<String> suggest(String text, int size) {
+        Query query = query(text, SUGGEST_FIELDS);
+        if (query == null) {
+            return Collections.emptyList();
+        }
+        return withSearcher(searcher -> {
+            TopDocs topDocs = searcher.search(query, size * 2);
+            StoredFields storedFields = searcher.storedFields();
+            Set<String> names = new LinkedHashSet<>();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                if (names.size() == size) {
+                    break;
+                }
+                names.add(storedFields.document(scoreDoc.doc, Set.of(NAME)).get(NAME));
+            }
+            return List.copyOf(names);
+        });
+    }
+
+    public int size() {
+        return indexWriter.getDocStats().numDocs;
+    }
+
+    private <T> T withSearcher(SearcherFunction<T> function) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return function.apply(searcher);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IndexSearcher.TooManyClauses e) {
+            throw new BadRequestException(TOO_MANY_SEARCH_TERMS);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query query(String text, Map<String, Float> fields) {
+        List<String> terms = analyze(text);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        BooleanQuery.Builder allTerms = new BooleanQuery.Builder();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            for (Map.Entry<String, Float> field : fields.entrySet()) {
+                Term fieldTerm = new Term(field.getKey(), term);
+                anyField.add(new BoostQuery(new TermQuery(fieldTerm), field.getValue()), BooleanClause.Occur.SHOULD);
+                if (term.length() >= FUZZY_MIN_LENGTH) {
+                    anyField.add(new BoostQuery(new FuzzyQuery(fieldTerm, 1, 1), field.getValue() * FUZZY_WEIGHT), BooleanClause.Occur.SHOULD);
+                }
+                if (i == terms.size() - 1 && term.length() >= PREFIX_MIN_LENGTH) {
+                    anyField.add(new BoostQuery(new PrefixQuery(fieldTerm), field.getValue() * PREFIX_WEIGHT), BooleanClause.Occur.SHOULD);
+                }
+            }
+            allTerms.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        allTerms.add(FeatureField.newSaturationQuery(FEATURES, RATING, RATING_WEIGHT, RATING_PIVOT), BooleanClause.Occur.SHOULD);
+        allTerms.add(FeatureField.newSaturationQuery(FEATURES, NUM_REVIEWS, REVIEWS_WEIGHT, REVIEWS_PIVOT), BooleanClause.Occur.SHOULD);
+        return allTerms.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (StringUtils.isBlank(text)) {
+            return terms;
+        }
+        if (text.length() > MAX_SEARCH_TEXT_LENGTH) {
+            throw new BadRequestException(SEARCH_TEXT_TOO_LONG);
+        }
+        try (TokenStream tokenStream = analyzer.tokenStream(NAME, text)) {
+            CharTermAttribute term = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                if (terms.size() == MAX_SEARCH_TERMS) {
+                    throw new BadRequestException(TOO_MANY_SEARCH_TERMS);
+                }
+                terms.add(term.toString());
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private Document document(Product product) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(product.getId()), Field.Store.YES));
+        document.add(new TextField(NAME, StringUtils.defaultString(product.getName()), Field.Store.YES));
+        document.add(new TextField(BRAND, StringUtils.defaultString(product.getBrand()), Field.Store.NO));
+        document.add(new TextField(DESCRIPTION, StringUtils.defaultString(product.getDescription()), Field.Store.NO));
+        document.add(new FeatureField(FEATURES, RATING, (float) (1 + Math.max(0, product.getRating()))));
+        document.add(new FeatureField(FEATURES, NUM_REVIEWS, 1 + Math.max(0, product.getNumReviews())));
+        return document;
+    }
+
+    public record Hits(List<Long> ids, long total, boolean totalExact) {
+    }
+
+    @FunctionalInterface
+    private interface SearcherFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+}
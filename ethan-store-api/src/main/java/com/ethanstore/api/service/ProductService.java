@@ -0,0 +1,30 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductRequest;
+import com.ethanstore.api.domain.ProductSearchResult;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.StaleProductException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+public interface ProductService {
+
+    ProductPage getProductPage(Set<String> brands, Set<String> categories, BigDecimal minPrice, BigDecimal maxPrice, Double minRating,
+                               String sort, String direction, int page, int size);
+
+    ProductSearchResult searchProducts(String text, int page, int size);
+
+    List<String> suggestProductNames(String text, int size);
+
+    Product findProductById(Long id) throws ProductNotFoundException;
+
+    Product addNewProduct(ProductRequest request);
+
+    Product updateProduct(Long id, ProductRequest request) throws ProductNotFoundException, StaleProductException;
+
+    void deleteProduct(Long id) throws ProductNotFoundException;
+}
@@ -0,0 +1,81 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.ProfileImage;
+import com.ethanstore.api.jfr.ProfileImageReadEvent;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Resolves profile images on disk and keeps the small, frequently requested ones in memory. The cache is bounded by
+ * the total number of bytes it holds, and an entry is only reused while the file's size and modification time are
+ * unchanged.
+ */
+@Service
+public class ProfileImageService {
+
+    private Cache<Path, ProfileImage> hotImageCache;
+
+    private long maxCachedImageBytes;
+
+    @Autowired
+    public ProfileImageService(@Value("${ethanstore.profile-image.cache.max-total-bytes:33554432}") long maxTotalBytes,
+                               @Value("${ethanstore.profile-image.cache.max-image-bytes:262144}") long maxCachedImageBytes) {
+        this.hotImageCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxTotalBytes)
+                .weigher((Path path, ProfileImage image) -> image.getContent().length)
+                .build();
+        this.maxCachedImageBytes = maxCachedImageBytes;
+    }
+
+    /**
+     * Returns the image at {@code path}, or {@code null} when there is no such file.
+     */
+    public ProfileImage getProfileImage(Path path) throws IOException {
+        ProfileImageReadEvent event = new ProfileImageReadEvent();
+        event.begin();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return commit(event, null, "missing");
+        }
+        if (!attributes.isRegularFile()) {
+            return commit(event, null, "missing");
+        }
+        long contentLength = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        ProfileImage cached = hotImageCache.getIfPresent(path);
+        if (cached != null && cached.getContentLength() == contentLength && cached.getLastModified() == lastModified) {
+            return commit(event, cached, "memory");
+        }
+        // Weak, because it is derived from file metadata rather than the bytes, so it must not satisfy If-Range
+        String eTag = "W/\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(contentLength) + "\"";
+        if (contentLength > maxCachedImageBytes) {
+            hotImageCache.invalidate(path);
+            return commit(event, new ProfileImage(path, contentLength, lastModified, eTag, null), "stream");
+        }
+        byte[] content = Files.readAllBytes(path);
+        ProfileImage image = new ProfileImage(path, content.length, lastModified, eTag, content);
+        hotImageCache.put(path, image);
+        return commit(event, image, "disk");
+    }
+
+    private static ProfileImage commit(ProfileImageReadEvent event, ProfileImage image, String source) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = image == null ? 0 : image.getContentLength();
+            event.source = source;
+            event.commit();
+        }
+        return image;
+    }
+}
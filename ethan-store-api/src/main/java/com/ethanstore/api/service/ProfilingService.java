@@ -0,0 +1,132 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.ProfilingStateException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs at most one on-demand Java Flight Recorder recording, with the JVM's own events plus the
+ * {@code com.ethanstore.*} events. A recording stops by itself after its duration, never keeps more than
+ * {@code max-size-bytes} on disk, and is kept until it is collected with {@link #stop()} or replaced by a new one.
+ * <p>
+ * Guarded by a {@link ReentrantLock} rather than {@code synchronized}, since stopping writes the recording to disk and
+ * a virtual thread blocked inside {@code synchronized} would pin its carrier thread.
+ */
+@Service
+@Slf4j
+public class ProfilingService {
+
+    private static final String RECORDING_NAME = "ethan-store-on-demand";
+    private static final String TEMP_FILE_PREFIX = "ethan-store-";
+    private static final String TEMP_FILE_SUFFIX = ".jfr";
+    private static final String ALREADY_RECORDING = "A recording is already running. Stop it before starting another";
+    private static final String NO_RECORDING = "There is no recording to stop. Start one first";
+    private static final String INVALID_DURATION = "The duration must be between 1 and %d seconds";
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Configuration configuration;
+
+    private Duration maxDuration;
+
+    private long maxSizeBytes;
+
+    private Recording recording;
+
+    @Autowired
+    public ProfilingService(@Value("${ethanstore.profiling.settings:profile}") String settings,
+                            @Value("${ethanstore.profiling.max-duration-seconds:600}") long maxDurationSeconds,
+                            @Value("${ethanstore.profiling.max-size-bytes:104857600}") long maxSizeBytes) throws IOException, ParseException {
+        this.configuration = Configuration.getConfiguration(settings);
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Starts a recording that stops after {@code duration}. A finished recording nobody collected is discarded.
+     */
+    public void start(Duration duration) throws ProfilingStateException {
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+            throw new BadRequestException(String.format(INVALID_DURATION, maxDuration.toSeconds()));
+        }
+        lock.lock();
+        try {
+            if (recording != null) {
+                if (recording.getState() == RecordingState.RUNNING) {
+                    throw new ProfilingStateException(ALREADY_RECORDING);
+                }
+                log.info("Discarding uncollected recording {}", recording.getId());
+                recording.close();
+            }
+            recording = new Recording(configuration);
+            recording.setName(RECORDING_NAME);
+            recording.setToDisk(true);
+            recording.setDuration(duration);
+            recording.setMaxSize(maxSizeBytes);
+            recording.start();
+            log.info("Started recording {} for {} seconds with {} settings", recording.getId(), duration.toSeconds(), configuration.getName());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the current recording, if it has not stopped by itself, and writes it to a temporary file that the caller
+     * must delete. The file is deleted here unless it is returned.
+     */
+    public Path stop() throws ProfilingStateException, IOException {
+        lock.lock();
+        try {
+            if (recording == null) {
+                throw new ProfilingStateException(NO_RECORDING);
+            }
+            Path file = null;
+            boolean handedOver = false;
+            try {
+                file = Files.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX);
+                if (recording.getState() == RecordingState.RUNNING) {
+                    recording.stop();
+                }
+                recording.dump(file);
+                log.info("Stopped recording {}, {} bytes", recording.getId(), Files.size(file));
+                handedOver = true;
+                return file;
+            } finally {
+                recording.close();
+                recording = null;
+                if (!handedOver && file != null) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (recording != null) {
+                recording.close();
+                recording = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.ethanstore.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static com.ethanstore.api.constant.FileConstant.*;
+
+/**
+ * Writes pre-sized, recompressed JPEG variants of uploaded profile images next to the original. Work runs on the
+ * bounded {@code imageTaskExecutor}; until a variant exists the original is served in its place.
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private int[] sizes;
+
+    @Autowired
+    public ThumbnailService(@Value("${ethanstore.thumbnails.sizes:64,128,512}") int[] sizes) {
+        this.sizes = Arrays.stream(sizes).sorted().distinct().toArray();
+    }
+
+    /**
+     * Returns the file name of the smallest variant at least {@code size} pixels wide, or of the largest variant when
+     * {@code size} exceeds them all.
+     */
+    public String getVariantFileName(String fileName, int size) {
+        int variant = sizes[sizes.length - 1];
+        for (int candidate : sizes) {
+            if (candidate >= size) {
+                variant = candidate;
+                break;
+            }
+        }
+        return variantFileName(fileName, variant);
+    }
+
+    /**
+     * Decodes {@code original} once and writes every configured variant. Variants are dropped if the original is
+     * replaced while they are being rendered, so a slow job never overwrites the output of a newer upload.
+     */
+    @Async("imageTaskExecutor")
+    public void generateVariants(Path original) {
+        try {
+            FileTime version = Files.getLastModifiedTime(original);
+            BufferedImage source = readSquare(original, sizes[sizes.length - 1]);
+            if (source == null) {
+                log.warn("Profile image {} is not a readable image, serving it without variants", original);
+                return;
+            }
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                source = scale(source, sizes[i]);
+                Path target = original.resolveSibling(variantFileName(original.getFileName().toString(), sizes[i]));
+                Path tempFile = Files.createTempFile(original.getParent(), "variant", ".tmp");
+                try {
+                    writeJpeg(source, tempFile);
+                    if (!version.equals(Files.getLastModifiedTime(original))) {
+                        log.debug("Profile image {} changed while rendering variants, discarding them", original);
+                        return;
+                    }
+                    Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+            log.debug("Wrote {} variants of {}", sizes.length, original);
+        } catch (IOException e) {
+            log.error("Could not write variants of {}: {}", original, e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the centre square of the image, subsampling while decoding so a large photo is never fully
+     * materialised when only a {@code maxSize} variant is needed.
+     */
+    private BufferedImage readSquare(Path path, int maxSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int side = Math.min(width, height);
+                int subsampling = Math.max(1, side / (maxSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Halves the image until it is within twice the target, then does a final bilinear step, which keeps detail a
+     * single large bilinear step would alias away. The result is always opaque RGB, as JPEG has no alpha channel.
+     */
+    private BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage current = image;
+        while (current.getWidth() > size || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            int next = current.getWidth() <= size ? current.getWidth() : Math.max(size, current.getWidth() / 2);
+            BufferedImage scaled = new BufferedImage(next, next, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, next, next, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = scaled;
+        }
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path path) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(JPG_EXTENTION).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(path.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String variantFileName(String fileName, int size) {
+        int dot = fileName.lastIndexOf(DOT);
+        String baseName = dot < 0 ? fileName : fileName.substring(0, dot);
+        return baseName + "-" + size + DOT + JPG_EXTENTION;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.repository.UserRepository;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filters over every username and email that has been taken. A negative answer means the value is definitely
+ * free, so registration can skip the uniqueness query; a positive answer only means the database has to be asked.
+ * Deleted users are never removed, which only costs an extra lookup for their old username or email.
+ */
+@Service
+@Slf4j
+public class UserIdentityFilter {
+
+    private UserRepository userRepository;
+
+    private BloomFilter<CharSequence> usernames;
+
+    private BloomFilter<CharSequence> emails;
+
+    @Autowired
+    public UserIdentityFilter(UserRepository userRepository,
+                              @Value("${ethanstore.user-identity-filter.expected-users:1000000}") long expectedUsers,
+                              @Value("${ethanstore.user-identity-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.usernames = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedUsers, falsePositiveRate);
+        this.emails = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedUsers, falsePositiveRate);
+    }
+
+    @PostConstruct
+    public void load() {
+        userRepository.forEachUsernameAndEmail(this::add);
+        log.info("Loaded user identity filter with approximately {} usernames", usernames.approximateElementCount());
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            usernames.put(username);
+        }
+        if (email != null) {
+            emails.put(email);
+        }
+    }
+
+    public boolean isDefinitelyFree(String username, String email) {
+        return (username == null || !usernames.mightContain(username)) && (email == null || !emails.mightContain(email));
+    }
+}
@@ -1,18 +1,24 @@
 package com.ethanstore.api.service;
 
 import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPage;
+import com.ethanstore.api.enumeration.ExportFormat;
 import com.ethanstore.api.exception.domain.EmailExistException;
 import com.ethanstore.api.exception.domain.EmailNotFoundException;
+import com.ethanstore.api.exception.domain.ProfileImageTooLargeException;
 import com.ethanstore.api.exception.domain.UserNotFoundException;
 import com.ethanstore.api.exception.domain.UsernameExistException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface UserService {
 
-    List<User> getAllUsers();
+    void exportUsers(ExportFormat format, OutputStream outputStream) throws IOException;
+
+    UserPage getUserPage(String cursor, int size, String sort, String direction, String role, Boolean active, Boolean locked);
 
     User findUserByUsername(String username);
 
@@ -20,13 +26,15 @@ public interface UserService {
 
     User register(String firstName, String lastName, String username, String email) throws UserNotFoundException, UsernameExistException, EmailExistException;
 
-    User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException;
+    User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException;
 
-    User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException;
+    User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException;
 
     void deleteUser(Long id);
 
     void resetPassword(String email) throws EmailNotFoundException;
 
-    User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException;
+    User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException;
+
+    User updateProfileImage(String username, InputStream profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException;
 }
@@ -0,0 +1,64 @@
+package com.ethanstore.api.service.impl;
+
+import com.ethanstore.api.enumeration.LoginAttemptKeyType;
+import com.ethanstore.api.service.LoginAttemptStore;
+import com.ethanstore.api.util.SlidingWindowCounter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-node attempt store. Counts are exact over the sliding window and bounded by
+ * {@code ethanstore.login-attempts.*.max-keys}, but each node only sees the failures it handled.
+ */
+@Service
+@ConditionalOnProperty(name = "ethanstore.login-attempts.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLoginAttemptStore implements LoginAttemptStore {
+
+    private Map<LoginAttemptKeyType, SlidingWindowCounter> counters = new EnumMap<>(LoginAttemptKeyType.class);
+
+    @Autowired
+    public InMemoryLoginAttemptStore(@Value("${ethanstore.login-attempts.window-seconds:900}") long windowSeconds,
+                                     @Value("${ethanstore.login-attempts.shards:64}") int shards,
+                                     @Value("${ethanstore.login-attempts.username.max-attempts:5}") int maxAttempts,
+                                     @Value("${ethanstore.login-attempts.username.max-keys:1000000}") long maxUsernames,
+                                     @Value("${ethanstore.login-attempts.source.max-attempts:50}") int maxSourceAttempts,
+                                     @Value("${ethanstore.login-attempts.source.max-keys:100000}") long maxSources,
+                                     MeterRegistry meterRegistry) {
+        Duration window = Duration.ofSeconds(windowSeconds);
+        counters.put(LoginAttemptKeyType.USERNAME, new SlidingWindowCounter(maxAttempts, window, maxUsernames, shards));
+        counters.put(LoginAttemptKeyType.SOURCE, new SlidingWindowCounter(maxSourceAttempts, window, maxSources, shards));
+        counters.forEach((type, counter) -> {
+            Gauge.builder("login.attempts.tracked", counter, SlidingWindowCounter::size)
+                    .tag("key", type.name().toLowerCase())
+                    .register(meterRegistry);
+            FunctionCounter.builder("login.attempts.evicted", counter, SlidingWindowCounter::evictions)
+                    .description("Keys forgotten inside the window because max-keys was reached")
+                    .tag("key", type.name().toLowerCase())
+                    .register(meterRegistry);
+        });
+    }
+
+    @Override
+    public void recordFailure(LoginAttemptKeyType type, String key) {
+        counters.get(type).record(key);
+    }
+
+    @Override
+    public int countFailures(LoginAttemptKeyType type, String key) {
+        return counters.get(type).count(key);
+    }
+
+    @Override
+    public void reset(LoginAttemptKeyType type, String key) {
+        counters.get(type).reset(key);
+    }
+}
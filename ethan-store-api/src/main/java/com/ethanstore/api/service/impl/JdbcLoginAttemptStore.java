@@ -0,0 +1,201 @@
+package com.ethanstore.api.service.impl;
+
+import com.ethanstore.api.enumeration.LoginAttemptKeyType;
+import com.ethanstore.api.service.LoginAttemptStore;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Attempt store shared by every node on the same database. Failures are counted per key in one-minute buckets of
+ * {@code login_attempts}, so the window slides with minute granularity.
+ * <p>
+ * Failures are buffered locally and merged in batches every {@code jdbc.flush-interval-ms}. Reads are answered
+ * from a local cache that lives {@code jdbc.cache-ttl-ms}, plus this node's unflushed failures. Lockout decisions
+ * therefore see the whole cluster within roughly the flush interval plus the cache TTL, without a query per login.
+ */
+@Service
+@ConditionalOnProperty(name = "ethanstore.login-attempts.store", havingValue = "jdbc")
+@Slf4j
+public class JdbcLoginAttemptStore implements LoginAttemptStore, MeterBinder {
+
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final String CREATE_TABLE_SQL = "create table if not exists login_attempts (" +
+            "key_type varchar(16) not null, attempt_key varchar(255) not null, bucket bigint not null, attempts int not null, " +
+            "primary key (key_type, attempt_key, bucket))";
+    private static final String MERGE_ATTEMPTS_SQL = "merge into login_attempts t " +
+            "using (values (cast(? as varchar(16)), cast(? as varchar(255)), cast(? as bigint), cast(? as int))) as s(key_type, attempt_key, bucket, attempts) " +
+            "on t.key_type = s.key_type and t.attempt_key = s.attempt_key and t.bucket = s.bucket " +
+            "when matched then update set attempts = t.attempts + s.attempts " +
+            "when not matched then insert (key_type, attempt_key, bucket, attempts) values (s.key_type, s.attempt_key, s.bucket, s.attempts)";
+    private static final String COUNT_ATTEMPTS_SQL = "select coalesce(sum(attempts), 0) from login_attempts where key_type = ? and attempt_key = ? and bucket > ?";
+    private static final String DELETE_KEY_SQL = "delete from login_attempts where key_type = ? and attempt_key = ?";
+    private static final String DELETE_EXPIRED_SQL = "delete from login_attempts where bucket <= ?";
+
+    private final ConcurrentMap<AttemptKey, Integer> pendingFailures = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private JdbcTemplate jdbcTemplate;
+
+    private Cache<AttemptKey, Integer> failureCounts;
+
+    private long windowBuckets;
+
+    private int batchSize;
+
+    private LongSupplier clock;
+
+    @Autowired
+    public JdbcLoginAttemptStore(JdbcTemplate jdbcTemplate,
+                                 @Value("${ethanstore.login-attempts.window-seconds:900}") long windowSeconds,
+                                 @Value("${ethanstore.login-attempts.jdbc.cache-ttl-ms:1000}") long cacheTtlMillis,
+                                 @Value("${ethanstore.login-attempts.jdbc.batch-size:500}") int batchSize) {
+        this(jdbcTemplate, windowSeconds, cacheTtlMillis, batchSize, System::currentTimeMillis);
+    }
+
+    JdbcLoginAttemptStore(JdbcTemplate jdbcTemplate, long windowSeconds, long cacheTtlMillis, int batchSize, LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.windowBuckets = Math.max(1, TimeUnit.SECONDS.toMillis(windowSeconds) / BUCKET_MILLIS);
+        this.failureCounts = CacheBuilder.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(cacheTtlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void createTable() {
+        jdbcTemplate.execute(CREATE_TABLE_SQL);
+    }
+
+    /** Hit rate and evictions of the local count cache, as {@code cache.*} meters tagged {@code cache=login.attempts}. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GuavaCacheMetrics.monitor(registry, failureCounts, "login.attempts");
+    }
+
+    @Override
+    public void recordFailure(LoginAttemptKeyType type, String key) {
+        pendingFailures.merge(new AttemptKey(type, key), 1, Integer::sum);
+    }
+
+    @Override
+    public int countFailures(LoginAttemptKeyType type, String key) {
+        AttemptKey attemptKey = new AttemptKey(type, key);
+        int stored;
+        try {
+            stored = failureCounts.get(attemptKey, () -> queryFailures(attemptKey));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not read login attempts for " + key, e.getCause());
+        }
+        return stored + pendingFailures.getOrDefault(attemptKey, 0);
+    }
+
+    /**
+     * Deletes the stored failures for {@code key}. Skipped when this node already knows there are none, so a
+     * successful login for an account with a clean record costs no write.
+     */
+    @Override
+    public void reset(LoginAttemptKeyType type, String key) {
+        AttemptKey attemptKey = new AttemptKey(type, key);
+        Integer pending = pendingFailures.remove(attemptKey);
+        Integer stored = failureCounts.getIfPresent(attemptKey);
+        if (pending != null || stored == null || stored > 0) {
+            jdbcTemplate.update(DELETE_KEY_SQL, type.name(), key);
+        }
+        failureCounts.put(attemptKey, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.login-attempts.jdbc.flush-interval-ms:500}")
+    public void flush() {
+        if (pendingFailures.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            long bucket = currentBucket();
+            List<Object[]> batch = new ArrayList<>(Math.min(batchSize, pendingFailures.size()));
+            List<AttemptKey> batchKeys = new ArrayList<>(batch.size());
+            for (AttemptKey attemptKey : new ArrayList<>(pendingFailures.keySet())) {
+                Integer failures = pendingFailures.remove(attemptKey);
+                if (failures != null) {
+                    batch.add(new Object[]{attemptKey.type().name(), attemptKey.key(), bucket, failures});
+                    batchKeys.add(attemptKey);
+                }
+                if (batch.size() == batchSize) {
+                    write(batch, batchKeys);
+                    batch.clear();
+                    batchKeys.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch, batchKeys);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ethanstore.login-attempts.jdbc.cleanup-interval-ms:60000}")
+    public void deleteExpired() {
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL, currentBucket() - windowBuckets);
+        log.debug("Deleted {} expired login attempt buckets", deleted);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<Object[]> batch, List<AttemptKey> batchKeys) {
+        try {
+            jdbcTemplate.batchUpdate(MERGE_ATTEMPTS_SQL, batch);
+        } catch (RuntimeException e) {
+            log.error("Could not write {} login attempt counts, keeping them for the next flush: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                pendingFailures.merge(batchKeys.get(i), (Integer) batch.get(i)[3], Integer::sum);
+            }
+            return;
+        }
+        // The failures are now in the table; move them into the cached totals so they are not counted twice or lost
+        for (int i = 0; i < batch.size(); i++) {
+            int failures = (Integer) batch.get(i)[3];
+            failureCounts.asMap().computeIfPresent(batchKeys.get(i), (attemptKey, stored) -> stored + failures);
+        }
+    }
+
+    private int queryFailures(AttemptKey attemptKey) {
+        Integer failures = jdbcTemplate.queryForObject(COUNT_ATTEMPTS_SQL, Integer.class,
+                attemptKey.type().name(), attemptKey.key(), currentBucket() - windowBuckets);
+        return failures == null ? 0 : failures;
+    }
+
+    private long currentBucket() {
+        return clock.getAsLong() / BUCKET_MILLIS;
+    }
+
+    private record AttemptKey(LoginAttemptKeyType type, String key) {
+    }
+}
@@ -0,0 +1,297 @@
+package com.ethanstore.api.service.impl;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductDeletion;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductQuery;
+import com.ethanstore.api.domain.ProductRequest;
+import com.ethanstore.api.domain.ProductSearchResult;
+import com.ethanstore.api.domain.StockAdjustment;
+import com.ethanstore.api.enumeration.ProductSortField;
+import com.ethanstore.api.event.ProductChangedEvent;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.StaleProductException;
+import com.ethanstore.api.repository.ProductDeletionRepository;
+import com.ethanstore.api.repository.ProductRepository;
+import com.ethanstore.api.repository.StockAdjustmentRepository;
+import com.ethanstore.api.service.ProductSearchService;
+import com.ethanstore.api.service.ProductService;
+import com.ethanstore.api.util.ProductFacetIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.ethanstore.api.constant.ProductImplConstant.*;
+import static com.ethanstore.api.constant.UserImplConstant.DESCENDING;
+
+/**
+ * Writes go to the database and publish a {@link ProductChangedEvent}; reads are answered from a
+ * {@link ProductFacetIndex} and the {@link ProductSearchService} index, both loaded at startup and updated once the
+ * write commits, so a rolled back write never shows up in the catalog and reads never open a transaction.
+ * <p>
+ * Other nodes' writes are picked up by polling {@code updatedAt} and the deletion tombstones every
+ * {@code ethanstore.catalog.sync-interval-ms}. Each poll reaches back {@code sync-overlap-seconds} before the previous
+ * one, so a write whose transaction committed after its timestamp was taken is still seen; the index skips the
+ * versions it already has.
+ */
+@Service
+@Transactional
+@Slf4j
+public class ProductServiceImpl implements ProductService {
+
+    private ProductRepository productRepository;
+
+    private ProductSearchService productSearchService;
+
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductDeletionRepository productDeletionRepository;
+
+    private StockAdjustmentRepository stockAdjustmentRepository;
+
+    private ProductFacetIndex productIndex = new ProductFacetIndex();
+
+    private Duration syncOverlap;
+
+    private Duration deletionRetention;
+
+    private volatile LocalDateTime syncedUpTo;
+
+    @Autowired
+    public ProductServiceImpl(ProductRepository productRepository, ProductSearchService productSearchService,
+                              ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                              ProductDeletionRepository productDeletionRepository,
+                              StockAdjustmentRepository stockAdjustmentRepository,
+                              @Value("${ethanstore.catalog.sync-overlap-seconds:60}") long syncOverlapSeconds,
+                              @Value("${ethanstore.catalog.deletion-retention-hours:24}") long deletionRetentionHours) {
+        this.productRepository = productRepository;
+        this.productSearchService = productSearchService;
+        this.eventPublisher = eventPublisher;
+        this.productDeletionRepository = productDeletionRepository;
+        this.stockAdjustmentRepository = stockAdjustmentRepository;
+        this.syncOverlap = Duration.ofSeconds(syncOverlapSeconds);
+        this.deletionRetention = Duration.ofHours(deletionRetentionHours);
+        Gauge.builder("products.indexed", productIndex, ProductFacetIndex::size)
+                .description("Products in the in-memory catalog index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void loadIndex() throws IOException {
+        long start = System.nanoTime();
+        syncedUpTo = LocalDateTime.now();
+        List<Product> catalog = productRepository.findAll().stream().map(this::copy).toList();
+        productIndex.load(catalog);
+        productSearchService.rebuild(catalog);
+        log.info("Indexed {} products in {} ms", productIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Applies the product writes and deletions committed since the last poll, by this node or any other. */
+    @Scheduled(fixedDelayString = "${ethanstore.catalog.sync-interval-ms:5000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void syncIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = syncedUpTo.minus(syncOverlap);
+        int applied = 0;
+        for (Product product : productRepository.findByUpdatedAtAfter(since)) {
+            if (productIndex.put(copy(product))) {
+                productSearchService.onProductChanged(ProductChangedEvent.saved(product, 0));
+                applied++;
+            }
+        }
+        for (ProductDeletion deletion : productDeletionRepository.findByDeletedAtAfter(since)) {
+            if (productIndex.get(deletion.getProductId()) != null) {
+                productIndex.remove(deletion.getProductId());
+                productSearchService.onProductChanged(ProductChangedEvent.deleted(deletion.getProductId()));
+                applied++;
+            }
+        }
+        productIndex.forgetRemovalsBefore(System.currentTimeMillis() - syncOverlap.multipliedBy(2).toMillis());
+        productDeletionRepository.deleteByDeletedAtBefore(now.minus(deletionRetention));
+        syncedUpTo = now;
+        if (applied > 0) {
+            log.debug("Applied {} catalog changes made since {}", applied, since);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductPage getProductPage(Set<String> brands, Set<String> categories, BigDecimal minPrice, BigDecimal maxPrice, Double minRating,
+                                      String sort, String direction, int page, int size) {
+        ProductQuery query = ProductQuery.builder()
+                .brands(brands)
+                .categories(categories)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minRating(minRating)
+                .sortField(ProductSortField.fromAttribute(sort))
+                .ascending(!DESCENDING.equalsIgnoreCase(direction))
+                .page(Math.max(0, page))
+                .size(Math.max(1, Math.min(size, MAX_PRODUCT_PAGE_SIZE)))
+                .build();
+        return productIndex.search(query);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProductSearchResult searchProducts(String text, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PRODUCT_PAGE_SIZE));
+        long offset = (long) Math.max(0, page) * pageSize;
+        if (offset + pageSize > MAX_SEARCH_WINDOW) {
+            throw new BadRequestException(SEARCH_WINDOW_EXCEEDED);
+        }
+        ProductSearchService.Hits hits = productSearchService.search(text, (int) offset, pageSize);
+        List<Product> products = hits.ids().stream().map(productIndex::get).filter(Objects::nonNull).toList();
+        return new ProductSearchResult(products, Math.max(0, page), pageSize, hits.total(), hits.totalExact());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> suggestProductNames(String text, int size) {
+        return productSearchService.suggest(text, Math.max(1, Math.min(size, MAX_SUGGESTIONS)));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Product findProductById(Long id) throws ProductNotFoundException {
+        Product product = productIndex.get(id);
+        if (product == null) {
+            throw new ProductNotFoundException(NO_PRODUCT_FOUND_BY_ID + id);
+        }
+        return product;
+    }
+
+    @Override
+    public Product addNewProduct(ProductRequest request) {
+        Product saved = productRepository.save(toProduct(request, false).toBuilder().updatedAt(LocalDateTime.now()).build());
+        stockAdjustmentRepository.save(new StockAdjustment(null, saved.getId(), saved.getVersion(), saved.getCountInStock(), false));
+        eventPublisher.publishEvent(ProductChangedEvent.saved(saved, saved.getCountInStock()));
+        return saved;
+    }
+
+    /**
+     * Replaces the product as read at {@code request.version}. The new stock count applies as a difference from the
+     * count read, so an edit made from a copy older than the latest sale or edit is refused rather than undoing it.
+     * <p>
+     * Every field is replaced: a body without the stock count, rating or review count is refused, and one without an
+     * image, description or category clears them.
+     */
+    @Override
+    public Product updateProduct(Long id, ProductRequest request) throws ProductNotFoundException, StaleProductException {
+        if (request.getVersion() == null) {
+            throw new BadRequestException(PRODUCT_VERSION_REQUIRED);
+        }
+        Product product = toProduct(request, true);
+        Product current = productRepository.findByIdForUpdate(id).orElseThrow(() -> new ProductNotFoundException(NO_PRODUCT_FOUND_BY_ID + id));
+        if (!product.getVersion().equals(current.getVersion())) {
+            throw new StaleProductException(String.format(STALE_PRODUCT, id, product.getVersion(), current.getVersion()));
+        }
+        int stockChange = product.getCountInStock() - current.getCountInStock();
+        current.setName(product.getName());
+        current.setImage(product.getImage());
+        current.setDescription(product.getDescription());
+        current.setBrand(product.getBrand());
+        current.setCategory(product.getCategory());
+        current.setPrice(product.getPrice());
+        current.setCountInStock(product.getCountInStock());
+        current.setRating(product.getRating());
+        current.setNumReviews(product.getNumReviews());
+        current.setUpdatedAt(LocalDateTime.now());
+        if (stockChange != 0) {
+            // Flushed first for the version this edit gets, which the inventory holder applies it under
+            productRepository.saveAndFlush(current);
+            stockAdjustmentRepository.save(new StockAdjustment(null, id, current.getVersion(), stockChange, false));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.saved(current, stockChange));
+        return current;
+    }
+
+    /**
+     * Checks a body and returns the product it describes. A new product may leave out its rating and review count,
+     * which start at 0; a replacement must send them.
+     */
+    private static Product toProduct(ProductRequest request, boolean replacing) {
+        require(request.getName(), "name");
+        require(request.getBrand(), "brand");
+        if (require(request.getPrice(), "price").signum() < 0) {
+            throw new BadRequestException(String.format(PRODUCT_FIELD_NEGATIVE, "price"));
+        }
+        int countInStock = requireNonNegative(request.getCountInStock(), "countInStock");
+        int numReviews = replacing || request.getNumReviews() != null ? requireNonNegative(request.getNumReviews(), "numReviews") : 0;
+        double rating = replacing || request.getRating() != null ? require(request.getRating(), "rating") : 0;
+        // Also refuses NaN, which fails both comparisons
+        if (!(rating >= 0 && rating <= MAX_RATING)) {
+            throw new BadRequestException(PRODUCT_RATING_OUT_OF_RANGE);
+        }
+        return Product.builder()
+                .name(request.getName().strip())
+                .image(request.getImage())
+                .description(request.getDescription())
+                .brand(request.getBrand().strip())
+                .category(request.getCategory())
+                .price(request.getPrice())
+                .countInStock(countInStock)
+                .rating(rating)
+                .numReviews(numReviews)
+                .version(replacing ? request.getVersion() : null)
+                .build();
+    }
+
+    private static <T> T require(T value, String field) {
+        if (value == null || value instanceof String text && text.isBlank()) {
+            throw new BadRequestException(String.format(PRODUCT_FIELD_REQUIRED, field));
+        }
+        return value;
+    }
+
+    private static int requireNonNegative(Integer value, String field) {
+        if (require(value, field) < 0) {
+            throw new BadRequestException(String.format(PRODUCT_FIELD_NEGATIVE, field));
+        }
+        return value;
+    }
+
+    @Override
+    public void deleteProduct(Long id) throws ProductNotFoundException {
+        if (!productRepository.existsById(id)) {
+            throw new ProductNotFoundException(NO_PRODUCT_FOUND_BY_ID + id);
+        }
+        productRepository.deleteById(id);
+        productDeletionRepository.save(new ProductDeletion(id, LocalDateTime.now()));
+        stockAdjustmentRepository.save(new StockAdjustment(null, id, 0, 0, true));
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+    }
+
+    /** Copies the entity once the transaction commits, so the index gets the committed state and not a managed object. */
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            productIndex.remove(event.getProductId());
+        } else {
+            productIndex.put(copy(event.getProduct()));
+        }
+    }
+
+    private Product copy(Product product) {
+        return product.toBuilder().build();
+    }
+}
@@ -1,60 +1,104 @@
 package com.ethanstore.api.service.impl;
 
 import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPage;
+import com.ethanstore.api.domain.UserPageRequest;
 import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.domain.UserSummary;
+import com.ethanstore.api.enumeration.ExportFormat;
 import com.ethanstore.api.enumeration.Role;
+import com.ethanstore.api.enumeration.UserSortField;
+import com.ethanstore.api.exception.domain.BadRequestException;
 import com.ethanstore.api.exception.domain.EmailExistException;
 import com.ethanstore.api.exception.domain.EmailNotFoundException;
+import com.ethanstore.api.exception.domain.ProfileImageTooLargeException;
 import com.ethanstore.api.exception.domain.UserNotFoundException;
 import com.ethanstore.api.exception.domain.UsernameExistException;
 import com.ethanstore.api.repository.UserRepository;
+import com.ethanstore.api.service.ImageBlobService;
+import com.ethanstore.api.service.ImageBlobService.StoredBlob;
 import com.ethanstore.api.service.LoginAttemptService;
+import com.ethanstore.api.service.ThumbnailService;
+import com.ethanstore.api.service.UserIdentityFilter;
 import com.ethanstore.api.service.UserService;
+import com.ethanstore.api.util.UserCursorCodec;
+import com.ethanstore.api.util.UserExportWriter;
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.ethanstore.api.constant.FileConstant.*;
 import static com.ethanstore.api.constant.UserImplConstant.*;
 import static com.ethanstore.api.enumeration.Role.ROLE_USER;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 @Service
-@Transactional
+@Transactional(rollbackFor = {UsernameExistException.class, EmailExistException.class})
 @Qualifier("userDetailsService")
 @Slf4j
-public class UserServiceImpl implements UserService, UserDetailsService {
+public class UserServiceImpl implements UserService, UserDetailsService, UserDetailsPasswordService {
 
     private UserRepository userRepository;
 
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     private LoginAttemptService loginAttemptService;
 
+    private UserIdentityFilter userIdentityFilter;
+
+    private EntityManager entityManager;
+
+    private ThumbnailService thumbnailService;
+
+    private ImageBlobService imageBlobService;
+
+    private TransactionTemplate transactionTemplate;
+
+    private TransactionTemplate releaseTemplate;
+
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, LoginAttemptService loginAttemptService) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder, LoginAttemptService loginAttemptService, UserIdentityFilter userIdentityFilter, EntityManager entityManager, ThumbnailService thumbnailService, ImageBlobService imageBlobService,
+                           TransactionTemplate transactionTemplate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.loginAttemptService = loginAttemptService;
+        this.userIdentityFilter = userIdentityFilter;
+        this.entityManager = entityManager;
+        this.thumbnailService = thumbnailService;
+        this.imageBlobService = imageBlobService;
+        this.transactionTemplate = transactionTemplate;
+        // The rolled-back transaction's resources are still bound when it completes, so the release needs its own
+        this.releaseTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.releaseTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     @Override
@@ -65,17 +109,60 @@ public class UserServiceImpl implements UserService, UserDetailsService {
             throw new UsernameNotFoundException("User not found by username: " + username);
         }
         validateLoginAttempt(user);
-        user.setLastLoginDateDisplay(user.getLastLoginDate());
-        user.setLastLoginDate(LocalDateTime.now());
-        userRepository.save(user);
         log.info("Returning found user by username: {}", username);
 
         return new UserPrincipal(user);
     }
 
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername());
+        // Detached first, so the new password on the returned principal is not flushed as a whole-row update
+        entityManager.detach(user);
+        user.setPassword(newPassword);
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        log.info("Re-encoded password for username: {}", userDetails.getUsername());
+        return new UserPrincipal(user);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(ExportFormat format, OutputStream outputStream) throws IOException {
+        try (Stream<User> users = userRepository.streamAll();
+             UserExportWriter writer = new UserExportWriter(format, outputStream)) {
+            for (Iterator<User> iterator = users.iterator(); iterator.hasNext(); ) {
+                User user = iterator.next();
+                writer.write(user);
+                entityManager.detach(user);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public UserPage getUserPage(String cursor, int size, String sort, String direction, String role, Boolean active, Boolean locked) {
+        UserSortField sortField = UserSortField.fromAttribute(sort);
+        boolean ascending = !DESCENDING.equalsIgnoreCase(direction);
+        int pageSize = Math.max(1, Math.min(size, MAX_USER_PAGE_SIZE));
+        UserPageRequest.UserPageRequestBuilder pageRequest = UserPageRequest.builder()
+                .sortField(sortField)
+                .ascending(ascending)
+                .size(pageSize)
+                .role(role == null ? null : getRoleEnumName(role).name())
+                .active(active)
+                .locked(locked);
+        if (StringUtils.isNotBlank(cursor)) {
+            UserCursorCodec.Position position = UserCursorCodec.decode(cursor, sortField, ascending);
+            pageRequest.afterId(position.getId()).afterValue(position.getValue());
+        }
+        List<UserSummary> users = userRepository.findUserSummaries(pageRequest.build());
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            UserSummary last = users.get(pageSize - 1);
+            nextCursor = UserCursorCodec.encode(sortField, ascending, last.getId(), getSortValue(sortField, last));
+        }
+        return new UserPage(users, nextCursor);
     }
 
     @Override
@@ -107,13 +194,14 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                 .role(ROLE_USER.name())
                 .authorities(ROLE_USER.getAuthorities())
                 .build();
-        userRepository.save(user);
+        saveIdentity(user);
+        userIdentityFilter.add(username, email);
 
         return user;
     }
 
     @Override
-    public User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    public User addNewUser(String firstName, String lastName, String username, String email, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         validateUsernameAndEmail(EMPTY, username, email);
         String password = generatePassword();
         User user = User.builder()
@@ -130,14 +218,15 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                 .role(getRoleEnumName(role).name())
                 .authorities(getRoleEnumName(role).getAuthorities())
                 .build();
-        userRepository.save(user);
+        saveIdentity(user);
+        userIdentityFilter.add(username, email);
         saveProfileImage(user, profileImage);
         log.info("Add User: New User Password: {}", password);
         return user;
     }
 
     @Override
-    public User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    public User updateUser(String currentUsername, String newFirstName, String newLastName, String newUsername, String newEmail, String role, boolean isNonLocked, boolean isActive, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         User currentUser = validateUsernameAndEmail(currentUsername, newUsername, newEmail);
 
         User updatedUser = Objects.requireNonNull(currentUser).toBuilder()
@@ -150,7 +239,8 @@ public class UserServiceImpl implements UserService, UserDetailsService {
                 .role(getRoleEnumName(role).name())
                 .authorities(getRoleEnumName(role).getAuthorities())
                 .build();
-        userRepository.save(updatedUser);
+        saveIdentity(updatedUser);
+        userIdentityFilter.add(newUsername, newEmail);
         saveProfileImage(updatedUser, profileImage);
 
         return updatedUser;
@@ -158,7 +248,12 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
     @Override
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            if (user.getProfileImageHash() != null) {
+                imageBlobService.release(user.getProfileImageHash());
+            }
+        });
     }
 
     @Override
@@ -174,35 +269,95 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         // send the plain password in email to user
     }
 
+    /**
+     * Runs outside a transaction, so no connection is held while the upload is read; only linking the stored blob to
+     * the user takes one.
+     */
     @Override
-    public User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User updateProfileImage(String username, MultipartFile profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
         User currentUser = validateUsernameAndEmail(username, null, null);
         saveProfileImage(currentUser, profileImage);
 
         return currentUser;
     }
 
-    private void saveProfileImage(User user, MultipartFile profileImage) throws IOException {
+    /** See {@link #updateProfileImage(String, MultipartFile)}; here the body may still be arriving from a slow client. */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public User updateProfileImage(String username, InputStream profileImage) throws UserNotFoundException, UsernameExistException, EmailExistException, IOException, ProfileImageTooLargeException {
+        User currentUser = validateUsernameAndEmail(username, null, null);
+        saveProfileImage(currentUser, profileImage);
+
+        return currentUser;
+    }
+
+    private void saveProfileImage(User user, MultipartFile profileImage) throws IOException, ProfileImageTooLargeException {
         if (profileImage != null) {
-            Path userFolder = Paths.get(USER_FOLDER + user.getUsername()).toAbsolutePath().normalize();
-            if (!Files.exists(userFolder)) {
-                Files.createDirectories(userFolder);
-                log.info(DIRECTORY_CREATED + userFolder);
+            imageBlobService.validateUploadSize(profileImage.getSize());
+            try (InputStream content = profileImage.getInputStream()) {
+                saveProfileImage(user, content);
+            }
+        }
+    }
+
+    /**
+     * Stores the blob, whose reference is committed on its own, then points the user at it in the surrounding
+     * transaction or, without one, in a short one of its own.
+     */
+    private void saveProfileImage(User user, InputStream profileImage) throws IOException, ProfileImageTooLargeException {
+        StoredBlob blob = imageBlobService.store(profileImage);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            linkProfileImage(user, blob);
+        } else {
+            transactionTemplate.executeWithoutResult(status -> linkProfileImage(user, blob));
+        }
+        if (blob.isCreated()) {
+            try {
+                thumbnailService.generateVariants(blob.getPath());
+            } catch (TaskRejectedException e) {
+                log.warn("Image pipeline is full, serving {} without variants", blob.getPath());
+            }
+        }
+    }
+
+    /** Gives the blob's reference back if the transaction rolls back, so the sweep can delete it. */
+    private void linkProfileImage(User user, StoredBlob blob) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    releaseTemplate.executeWithoutResult(release -> imageBlobService.release(blob.getHash()));
+                }
             }
-            Files.deleteIfExists(Paths.get(userFolder + user.getUsername() + DOT + JPG_EXTENTION));
-            Files.copy(profileImage.getInputStream(), userFolder.resolve(user.getUsername() + DOT + JPG_EXTENTION), REPLACE_EXISTING);
-            user.setProfileImageUrl(setProfileImageUrl(user.getUsername()));
-            userRepository.save(user);
-            log.info(FILE_SAVED_IN_FILE_SYSTEM + profileImage.getOriginalFilename());
+        });
+        String previousHash = user.getProfileImageHash();
+        user.setProfileImageHash(blob.getHash());
+        user.setProfileImageUrl(setProfileImageUrl(blob.getHash()));
+        userRepository.save(user);
+        if (previousHash != null) {
+            imageBlobService.release(previousHash);
         }
     }
 
-    private String setProfileImageUrl(String username) {
-        return ServletUriComponentsBuilder.fromCurrentContextPath().path(USER_IMAGE_PATH + username + FORWARD_SLASH + username + DOT + JPG_EXTENTION).toUriString();
+    private String setProfileImageUrl(String hash) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath().path(BLOB_IMAGE_PATH + hash + DOT + JPG_EXTENTION).toUriString();
+    }
+
+    private Object getSortValue(UserSortField sortField, UserSummary user) {
+        return switch (sortField) {
+            case ID -> user.getId();
+            case USERNAME -> user.getUsername();
+            case JOIN_DATE -> user.getJoinDate();
+        };
     }
 
     private Role getRoleEnumName(String role) {
-        return Role.valueOf(role.toUpperCase());
+        try {
+            return Role.valueOf(role.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(NO_SUCH_ROLE + role);
+        }
     }
 
 
@@ -210,6 +365,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         if (user.isNotLocked()) {
             if (loginAttemptService.hasExceededMaxAttempts(user.getUsername())) {
                 user.setNotLocked(false);
+                userRepository.save(user);
             } else {
                 user.setNotLocked(true);
             }
@@ -234,11 +390,29 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         return RandomStringUtils.randomNumeric(10);
     }
 
+    /**
+     * Flushes straight away so that a registration racing past {@link #validateUsernameAndEmail} is reported as a
+     * taken username or email rather than a constraint violation at commit.
+     */
+    private void saveIdentity(User user) throws UsernameExistException {
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new UsernameExistException(ALREADY_EXISTS_BY_USERNAME_OR_EMAIL + user.getUsername());
+        }
+    }
+
     private User validateUsernameAndEmail(String currentUsername, String newUsername, String newEmail) throws UserNotFoundException, UsernameExistException, EmailExistException {
-        User userByNewUsername = findUserByUsername(newUsername);
-        User userByNewEmail = findUserByEmail(newEmail);
-        if (StringUtils.isNotBlank(currentUsername)) {
-            User currentUser = findUserByUsername(currentUsername);
+        boolean hasCurrentUser = StringUtils.isNotBlank(currentUsername);
+        if (!hasCurrentUser && userIdentityFilter.isDefinitelyFree(newUsername, newEmail)) {
+            return null;
+        }
+        List<User> matches = userRepository.findByUsernameInOrEmail(
+                Stream.of(currentUsername, newUsername).filter(StringUtils::isNotBlank).distinct().toList(), newEmail);
+        User userByNewUsername = findMatch(matches, User::getUsername, newUsername);
+        User userByNewEmail = findMatch(matches, User::getEmail, newEmail);
+        if (hasCurrentUser) {
+            User currentUser = findMatch(matches, User::getUsername, currentUsername);
             if (currentUser == null) {
                 throw new UserNotFoundException(NO_USER_FOUND_BY_USERNAME + currentUsername);
             }
@@ -259,4 +433,11 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         }
         return null;
     }
+
+    private User findMatch(List<User> users, Function<User, String> attribute, String value) {
+        if (value == null) {
+            return null;
+        }
+        return users.stream().filter(user -> value.equals(attribute.apply(user))).findFirst().orElse(null);
+    }
 }
@@ -0,0 +1,105 @@
+package com.ethanstore.api.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to observed latency, AIMD style. Each completed request is compared with the lowest
+ * latency seen over the recent sample window, which stands in for the latency of an unloaded server. While requests
+ * complete within {@code tolerance} times that baseline and the limit is actually being used, the limit grows by one
+ * per round of {@code limit} samples; once they are slower it is multiplied by {@code backoffRatio}, at most once per
+ * round.
+ * <p>
+ * Callers get a share of the limit by priority, so low priority traffic is turned away first and whatever headroom
+ * is left stays free for high priority requests. Requests over their share are rejected rather than queued.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final int rttWindow;
+
+    private volatile int limit;
+
+    // Guarded by lock
+    private double estimatedLimit;
+    private long baselineRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int windowSamples;
+    private int samplesSinceBackoff;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio, int rttWindow) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max: " + minLimit + ", " + initialLimit + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.rttWindow = rttWindow;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit are in flight. Every successful call must be followed by
+     * {@link #release(long)} or {@link #release()}.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Frees a slot and feeds the request's latency into the limit. */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            windowMinRtt = Math.min(windowMinRtt, rttNanos);
+            if (++windowSamples >= rttWindow) {
+                baselineRtt = windowMinRtt;
+                windowMinRtt = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+            long baseline = Math.min(baselineRtt, windowMinRtt);
+            samplesSinceBackoff++;
+            if (rttNanos > baseline * tolerance) {
+                // Requests admitted before the last backoff are still draining; only back off once per round
+                if (samplesSinceBackoff >= limit) {
+                    estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                    samplesSinceBackoff = 0;
+                }
+            } else if (inFlightBefore * 2 >= limit) {
+                estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+            }
+            limit = (int) estimatedLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Frees a slot without a latency sample, for requests whose duration says nothing about load. */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,94 @@
+package com.ethanstore.api.util;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.ethanstore.api.constant.Authority.AUTHORITY_BITS;
+import static java.util.Arrays.stream;
+
+/**
+ * Encodes authorities as a bitmask over {@link com.ethanstore.api.constant.Authority#AUTHORITY_BITS} and decodes
+ * bitmasks to shared immutable authority lists, one pre-built per combination, so neither issuing nor reading a
+ * token allocates a {@link GrantedAuthority}. Authorities outside the table have no bit and fall back to plain
+ * lists.
+ */
+public final class AuthorityCodec {
+
+    /** Returned by {@link #encode} when an authority has no bit. */
+    public static final int NOT_ENCODABLE = -1;
+
+    private static final SimpleGrantedAuthority[] AUTHORITIES = stream(AUTHORITY_BITS).map(SimpleGrantedAuthority::new).toArray(SimpleGrantedAuthority[]::new);
+
+    private static final List<List<GrantedAuthority>> AUTHORITY_SETS = buildAuthoritySets();
+
+    private AuthorityCodec() {
+    }
+
+    public static int encode(String[] authorities) {
+        if (authorities == null) {
+            return 0;
+        }
+        int bits = 0;
+        for (String authority : authorities) {
+            int bit = bitOf(authority);
+            if (bit < 0) {
+                return NOT_ENCODABLE;
+            }
+            bits |= 1 << bit;
+        }
+        return bits;
+    }
+
+    public static int encode(Collection<? extends GrantedAuthority> authorities) {
+        int bits = 0;
+        for (GrantedAuthority authority : authorities) {
+            int bit = bitOf(authority.getAuthority());
+            if (bit < 0) {
+                return NOT_ENCODABLE;
+            }
+            bits |= 1 << bit;
+        }
+        return bits;
+    }
+
+    /** The shared list for {@code bits}, or {@code null} if it sets bits the table does not have. */
+    public static List<GrantedAuthority> decode(int bits) {
+        return bits >= 0 && bits < AUTHORITY_SETS.size() ? AUTHORITY_SETS.get(bits) : null;
+    }
+
+    /** Shared list when every authority has a bit, otherwise a new immutable one. */
+    public static List<GrantedAuthority> toGrantedAuthorities(String[] authorities) {
+        int bits = encode(authorities);
+        if (bits != NOT_ENCODABLE) {
+            return AUTHORITY_SETS.get(bits);
+        }
+        return stream(authorities).<GrantedAuthority>map(SimpleGrantedAuthority::new).toList();
+    }
+
+    private static int bitOf(String authority) {
+        for (int bit = 0; bit < AUTHORITY_BITS.length; bit++) {
+            if (AUTHORITY_BITS[bit].equals(authority)) {
+                return bit;
+            }
+        }
+        return -1;
+    }
+
+    private static List<List<GrantedAuthority>> buildAuthoritySets() {
+        List<List<GrantedAuthority>> sets = new ArrayList<>(1 << AUTHORITIES.length);
+        for (int bits = 0; bits < 1 << AUTHORITIES.length; bits++) {
+            List<GrantedAuthority> set = new ArrayList<>(Integer.bitCount(bits));
+            for (int bit = 0; bit < AUTHORITIES.length; bit++) {
+                if ((bits & 1 << bit) != 0) {
+                    set.add(AUTHORITIES[bit]);
+                }
+            }
+            sets.add(List.copyOf(set));
+        }
+        return List.copyOf(sets);
+    }
+}
@@ -0,0 +1,96 @@
+package com.ethanstore.api.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is picked at startup by timing real hashes against a target latency. Stored hashes are
+ * reported as needing re-encoding when their cost is below {@code minStrength} or more than one away from the local
+ * cost in either direction, so a recalibration moves them to the new cost on the next login, including down from a
+ * cost that has become too slow, while nodes on different hardware that calibrate one apart do not rewrite each
+ * other's hashes on every login. Re-encoding uses the local cost, which is never below {@code minStrength}.
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Pattern BCRYPT_COST_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int WARM_UP_STRENGTH = 4;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 3;
+
+    private static final int UPGRADE_TOLERANCE = 1;
+
+    private final int strength;
+
+    private final int minStrength;
+
+    CalibratedBCryptPasswordEncoder(int strength, int minStrength) {
+        super(strength);
+        this.strength = strength;
+        this.minStrength = Math.min(minStrength, strength);
+    }
+
+    /**
+     * Uses {@code fixedStrength} when it is positive, otherwise the cost between {@code minStrength} and
+     * {@code maxStrength} whose measured hash time is closest to {@code targetMillis}.
+     */
+    public static CalibratedBCryptPasswordEncoder create(int fixedStrength, long targetMillis, int minStrength, int maxStrength) {
+        int strength = fixedStrength > 0 ? fixedStrength : calibrate(targetMillis, minStrength, maxStrength);
+        return new CalibratedBCryptPasswordEncoder(strength, minStrength);
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) {
+            return false;
+        }
+        int storedStrength = Integer.parseInt(matcher.group(1));
+        return storedStrength < minStrength || Math.abs(storedStrength - strength) > UPGRADE_TOLERANCE;
+    }
+
+    private static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            new BCryptPasswordEncoder(WARM_UP_STRENGTH).encode(CALIBRATION_PASSWORD);
+        }
+        int chosen = minStrength;
+        double previousMillis = -1;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            double millis = measure(candidate);
+            log.info("BCrypt cost {} takes {} ms per hash", candidate, String.format("%.1f", millis));
+            if (millis >= targetMillis) {
+                boolean previousIsCloser = previousMillis >= 0 && targetMillis - previousMillis < millis - targetMillis;
+                chosen = previousIsCloser ? candidate - 1 : candidate;
+                break;
+            }
+            chosen = candidate;
+            previousMillis = millis;
+        }
+        log.info("Using BCrypt cost {} for a target of {} ms per hash", chosen, targetMillis);
+        return chosen;
+    }
+
+    private static double measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long[] samples = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[MEASURED_ROUNDS / 2] / 1_000_000.0;
+    }
+}
@@ -1,47 +1,112 @@
 package com.ethanstore.api.util;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.ethanstore.api.domain.JwtClaims;
 import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.jfr.JwtVerificationEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static com.ethanstore.api.constant.Authority.AUTHORITY_BITS_VERSION;
 import static com.ethanstore.api.constant.SecurityConstant.*;
-import static java.util.Arrays.stream;
 
 @Component
-public class JwtTokenProvider {
+public class JwtTokenProvider implements MeterBinder {
 
     @Value("${jwt.secret}")
     private String secret;
 
+    @Value("${ethanstore.jwt.verified-cache.maximum-size:10000}")
+    private long verifiedCacheMaximumSize;
+
+    @Value("${ethanstore.jwt.verified-cache.ttl-seconds:300}")
+    private long verifiedCacheTtlSeconds;
+
+    @Value("${ethanstore.jwt.compact-authorities:true}")
+    private boolean compactAuthorities;
+
+    private Algorithm algorithm;
+
+    private JWTVerifier verifier;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @PostConstruct
+    public void init() {
+        algorithm = HMAC512(secret.getBytes());
+        verifier = getJwtVerifier();
+        verifiedTokenCache = new VerifiedTokenCache(verifiedCacheMaximumSize, verifiedCacheTtlSeconds);
+    }
+
+    /**
+     * Authorities go into the token as a versioned bitmask, see {@link AuthorityCodec}. Tokens of users holding an
+     * authority without a bit, and all tokens while {@code ethanstore.jwt.compact-authorities} is off, carry the
+     * authority names instead.
+     */
     public String generateJwttoken(UserPrincipal userPrincipal) {
-        return JWT.create()
+        JWTCreator.Builder builder = JWT.create()
                 .withIssuer(GET_ARRAYS_LLC)
                 .withAudience(GET_ARRAYS_ADMINISTRATION)
                 .withIssuedAt(new Date())
-                .withSubject(userPrincipal.getUsername())
-                .withArrayClaim(AUTHORITIES, getClaimFromUser(userPrincipal))
+                .withSubject(userPrincipal.getUsername());
+        int authorityBits = compactAuthorities ? AuthorityCodec.encode(userPrincipal.getAuthorities()) : AuthorityCodec.NOT_ENCODABLE;
+        if (authorityBits != AuthorityCodec.NOT_ENCODABLE) {
+            builder.withClaim(AUTHORITY_BITS_CLAIM, authorityBits).withClaim(AUTHORITY_BITS_VERSION_CLAIM, AUTHORITY_BITS_VERSION);
+        } else {
+            builder.withArrayClaim(AUTHORITIES, getClaimFromUser(userPrincipal));
+        }
+        return builder
                 .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .sign(HMAC512(secret.getBytes()));
+                .sign(algorithm);
+    }
+
+    /**
+     * Verifies the token signature at most once per distinct token and returns its claims. Tokens seen before are
+     * answered from the verified-token cache without touching HMAC.
+     */
+    public JwtClaims verifyToken(String token) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        JwtClaims claims = verifiedTokenCache.get(token);
+        boolean cached = claims != null;
+        try {
+            if (claims == null) {
+                DecodedJWT decodedJWT = verifier.verify(token);
+                claims = new JwtClaims(decodedJWT.getSubject(), getAuthorities(decodedJWT), decodedJWT.getExpiresAt());
+                verifiedTokenCache.put(token, claims);
+            }
+            return claims;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.cached = cached;
+                event.valid = claims != null;
+                event.commit();
+            }
+        }
     }
 
     public List<GrantedAuthority> getAuthorities(String token) {
-        String[] claims = getClaimsFromToken(token);
-        return stream(claims).map(SimpleGrantedAuthority::new).collect(Collectors.toList());
+        return verifyToken(token).getAuthorities();
     }
 
     public Authentication getAuthentication(String username, List<GrantedAuthority> authorities, HttpServletRequest request) {
@@ -51,28 +116,49 @@ public class JwtTokenProvider {
     }
 
     public boolean isTokenValid(String username, String token) {
-        JWTVerifier verifier = getJwtVerifier();
-        return StringUtils.isNotBlank(username) && !isExpiredToken(verifier, token);
+        return StringUtils.isNotBlank(username) && !verifyToken(token).isExpired(System.currentTimeMillis());
+    }
+
+    public boolean isTokenValid(JwtClaims claims) {
+        return StringUtils.isNotBlank(claims.getSubject()) && !claims.isExpired(System.currentTimeMillis());
     }
 
     public String getSubject(String token) {
-        JWTVerifier verifier = getJwtVerifier();
-        return verifier.verify(token).getSubject();
+        return verifyToken(token).getSubject();
     }
 
-    private boolean isExpiredToken(JWTVerifier verifier, String token) {
-        Date expiration = verifier.verify(token).getExpiresAt();
-        return expiration.before(new Date());
+    public long getVerifiedTokenCacheSize() {
+        return verifiedTokenCache.size();
     }
 
-    private String[] getClaimsFromToken(String token) {
-        return getJwtVerifier().verify(token).getClaim(AUTHORITIES).asArray(String.class);
+    /** A cache hit is a request whose token was not verified again; the misses are the HMAC verifications. */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        verifiedTokenCache.bindTo(registry, "jwt.verified.tokens");
+    }
+
+    /** Bitmask tokens decode to a shared list; tokens issued with the authority names are still accepted. */
+    private List<GrantedAuthority> getAuthorities(DecodedJWT decodedJWT) {
+        Integer authorityBits = decodedJWT.getClaim(AUTHORITY_BITS_CLAIM).asInt();
+        if (authorityBits != null) {
+            Integer version = decodedJWT.getClaim(AUTHORITY_BITS_VERSION_CLAIM).asInt();
+            List<GrantedAuthority> authorities = AUTHORITY_BITS_VERSION == (version == null ? 0 : version) ? AuthorityCodec.decode(authorityBits) : null;
+            if (authorities == null) {
+                throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
+            }
+            return authorities;
+        }
+        String[] claims = decodedJWT.getClaim(AUTHORITIES).asArray(String.class);
+        if (claims == null) {
+            return Collections.emptyList();
+        }
+        return AuthorityCodec.toGrantedAuthorities(claims);
     }
 
     private JWTVerifier getJwtVerifier() {
         JWTVerifier verifier;
         try {
-            verifier = JWT.require(HMAC512(secret)).withIssuer(GET_ARRAYS_LLC).build();
+            verifier = JWT.require(algorithm).withIssuer(GET_ARRAYS_LLC).build();
         } catch (JWTVerificationException e) {
             throw new JWTVerificationException(TOKEN_CANNOT_BE_VERIFIED);
         }
@@ -0,0 +1,78 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.jfr.PasswordHashingEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordEncoder} that hands every encode and match to the {@link PasswordHashingExecutor} instead of running
+ * it on the calling request thread. The {@code password.hashing} timer measures the hashing alone; time spent queued
+ * is {@code password.hashing.wait}.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Timer encodeTimer;
+    private final Timer matchTimer;
+    private final Timer mismatchTimer;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor passwordHashingExecutor, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.encodeTimer = hashingTimer("encode", "none", meterRegistry);
+        this.matchTimer = hashingTimer("match", "match", meterRegistry);
+        this.mismatchTimer = hashingTimer("match", "mismatch", meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingExecutor.execute(() -> {
+            PasswordHashingEvent event = new PasswordHashingEvent();
+            event.begin();
+            long start = System.nanoTime();
+            String encoded = delegate.encode(rawPassword);
+            encodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "encode", false);
+            return encoded;
+        });
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingExecutor.execute(() -> {
+            PasswordHashingEvent event = new PasswordHashingEvent();
+            event.begin();
+            long start = System.nanoTime();
+            boolean matches = delegate.matches(rawPassword, encodedPassword);
+            (matches ? matchTimer : mismatchTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            commit(event, "match", matches);
+            return matches;
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static void commit(PasswordHashingEvent event, String operation, boolean matched) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.matched = matched;
+            event.commit();
+        }
+    }
+
+    private static Timer hashingTimer(String operation, String result, MeterRegistry meterRegistry) {
+        return Timer.builder("password.hashing")
+                .description("Time spent in BCrypt on a hashing thread")
+                .tag("operation", operation)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
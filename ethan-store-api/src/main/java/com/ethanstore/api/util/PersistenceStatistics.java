@@ -0,0 +1,107 @@
+package com.ethanstore.api.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What the current request asked of the database: statements prepared, rows returned by queries, entities read and
+ * time spent executing JDBC calls. Filled in by the Hibernate hooks of {@code PersistenceStatisticsConfig} on the
+ * request thread; work handed to other threads, such as streamed exports, is not counted.
+ * <p>
+ * Also counts how often each distinct SQL string was prepared, so that the same select issued once per row of an
+ * earlier result, the usual N+1 pattern, can be reported.
+ */
+public final class PersistenceStatistics {
+
+    private static final ThreadLocal<PersistenceStatistics> CURRENT = new ThreadLocal<>();
+    private static final int MAX_DISTINCT_STATEMENTS = 256;
+
+    private final Map<String, Integer> statementCounts = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long entities;
+    private long jdbcNanos;
+    private String mostRepeatedStatement;
+    private int mostRepeatedCount;
+
+    private PersistenceStatistics() {
+    }
+
+    /** Starts collecting for the current thread and returns the collector. */
+    public static PersistenceStatistics start() {
+        PersistenceStatistics statistics = new PersistenceStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static void statementPrepared(String sql) {
+        PersistenceStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            Integer count = statistics.statementCounts.get(sql);
+            if (count != null || statistics.statementCounts.size() < MAX_DISTINCT_STATEMENTS) {
+                int repeated = count == null ? 1 : count + 1;
+                statistics.statementCounts.put(sql, repeated);
+                if (repeated > statistics.mostRepeatedCount) {
+                    statistics.mostRepeatedCount = repeated;
+                    statistics.mostRepeatedStatement = sql;
+                }
+            }
+        }
+    }
+
+    public static void rowsReturned(int rows) {
+        PersistenceStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.rows += rows;
+        }
+    }
+
+    public static void entityLoaded() {
+        PersistenceStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entities++;
+        }
+    }
+
+    public static void jdbcExecuted(long nanos) {
+        PersistenceStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.jdbcNanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getEntities() {
+        return entities;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    /** The SQL prepared most often, or {@code null} if there was none. */
+    public String getMostRepeatedStatement() {
+        return mostRepeatedStatement;
+    }
+
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+
+    /** As a {@code Server-Timing} metric, which browser developer tools show next to the request. */
+    public String toServerTiming() {
+        return String.format("db;dur=%.3f;desc=\"%d statements, %d rows, %d entities\"", jdbcNanos / 1e6, statements, rows, entities);
+    }
+}
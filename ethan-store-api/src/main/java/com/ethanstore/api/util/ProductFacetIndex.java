@@ -0,0 +1,565 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductQuery;
+import com.ethanstore.api.enumeration.ProductSortField;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory faceted index of the catalog. Every product occupies a slot; brands and categories keep a bitmap of
+ * their slots, and id, price and rating each keep the slots sorted by value. A query intersects bitmaps, turns price
+ * and rating bounds into slot ranges by binary search, counts facets with word-wise AND and bit counts, and walks the
+ * sorted slots of the sort field until the page is full, so no product is compared or copied.
+ * <p>
+ * Writes update the bitmaps in place and shift the sorted slots with one array copy per changed key. Reads share a
+ * read lock and never see a half-applied write. The index holds the products it is given and hands them out
+ * unchanged, so callers pass copies they will not modify.
+ * <p>
+ * Changes may arrive out of order, from after-commit callbacks racing each other or from polling other nodes' writes,
+ * so {@link #put} ignores a product older than the indexed {@code version}, and {@link #remove} leaves a tombstone that
+ * keeps late copies of the product out until {@link #forgetRemovalsBefore} drops it.
+ */
+public class ProductFacetIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Tallying one match costs about as much as intersecting this many bitmap words, measured at 1M products. */
+    private static final int TALLY_COST_IN_WORDS = 10;
+
+    private static final BigDecimal MIN_PRICE = BigDecimal.valueOf(Long.MIN_VALUE, 2);
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> slotsById = new HashMap<>();
+    private final Map<Long, Long> removedAtMillis = new HashMap<>();
+    private final Facet brands = new Facet();
+    private final Facet categories = new Facet();
+    private final SortedSlots byId = new SortedSlots();
+    private final SortedSlots byPrice = new SortedSlots();
+    private final SortedSlots byRating = new SortedSlots();
+
+    private Product[] products = new Product[0];
+    private long[] live = new long[0];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int slotCount;
+
+    /** Replaces the whole index; sorts each column once instead of inserting one product at a time. */
+    public void load(Collection<Product> catalog) {
+        lock.writeLock().lock();
+        try {
+            slotsById.clear();
+            brands.clear();
+            categories.clear();
+            freeSlotCount = 0;
+            slotCount = 0;
+            products = new Product[0];
+            live = new long[0];
+            ensureCapacity(catalog.size());
+            for (Product product : catalog) {
+                int slot = slotCount++;
+                fill(slot, product);
+            }
+            byId.build(slotCount);
+            byPrice.build(slotCount);
+            byRating.build(slotCount);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces the product, unless it was removed or an equal or newer version is indexed. */
+    public boolean put(Product product) {
+        lock.writeLock().lock();
+        try {
+            if (removedAtMillis.containsKey(product.getId())) {
+                return false;
+            }
+            Integer slot = slotsById.get(product.getId());
+            if (slot != null) {
+                if (!isNewer(product, products[slot])) {
+                    return false;
+                }
+                products[slot] = product;
+                brands.remove(slot);
+                brands.add(slot, product.getBrand());
+                categories.remove(slot);
+                categories.add(slot, product.getCategory());
+                byPrice.move(slot, priceKey(product));
+                byRating.move(slot, ratingKey(product.getRating()));
+                return true;
+            }
+            slot = allocate();
+            fill(slot, product);
+            byId.insert(slot);
+            byPrice.insert(slot);
+            byRating.insert(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removedAtMillis.put(productId, System.currentTimeMillis());
+            Integer slot = slotsById.remove(productId);
+            if (slot != null) {
+                clear(slot);
+                products[slot] = null;
+                if (freeSlotCount == freeSlots.length) {
+                    freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+                }
+                freeSlots[freeSlotCount++] = slot;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Drops the tombstones of products removed before {@code millis}, once no late copy of them can still arrive. */
+    public void forgetRemovalsBefore(long millis) {
+        lock.writeLock().lock();
+        try {
+            removedAtMillis.values().removeIf(removedAt -> removedAt < millis);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Product get(long productId) {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(productId);
+            return slot == null ? null : products[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductPage search(ProductQuery query) {
+        lock.readLock().lock();
+        try {
+            int words = live.length;
+            long[] base = live.clone();
+            Range priceRange = query.getMinPrice() == null && query.getMaxPrice() == null ? null : byPrice.range(
+                    query.getMinPrice() == null ? Long.MIN_VALUE : priceKey(query.getMinPrice()),
+                    query.getMaxPrice() == null ? Long.MAX_VALUE : priceKey(query.getMaxPrice()));
+            Range ratingRange = query.getMinRating() == null ? null : byRating.range(ratingKey(query.getMinRating()), Long.MAX_VALUE);
+            boolean unfiltered = priceRange == null && ratingRange == null;
+            retain(base, priceRange, ratingRange);
+            long[] brandSelection = brands.union(query.getBrands(), words);
+            long[] categorySelection = categories.union(query.getCategories(), words);
+            Map<String, Integer> brandCounts = brands.counts(base, categorySelection, unfiltered);
+            Map<String, Integer> categoryCounts = categories.counts(base, brandSelection, unfiltered);
+            and(base, brandSelection);
+            and(base, categorySelection);
+            int total = 0;
+            for (long word : base) {
+                total += Long.bitCount(word);
+            }
+            List<Product> page = page(base, total, query, priceRange, ratingRange);
+            return new ProductPage(page, query.getPage(), query.getSize(), total, brandCounts, categoryCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the narrower range as a bitmap and checks the other one against the keys of the remaining matches, so
+     * a wide rating bound does not cost a bit per product when the price bound already leaves few.
+     */
+    private static void retain(long[] base, Range first, Range second) {
+        if (first == null || second == null) {
+            Range range = first != null ? first : second;
+            if (range != null) {
+                range.column.retainPositions(base, range.from, range.to);
+            }
+            return;
+        }
+        Range narrow = first.to - first.from <= second.to - second.from ? first : second;
+        Range wide = narrow == first ? second : first;
+        narrow.column.retainPositions(base, narrow.from, narrow.to);
+        for (int i = 0; i < base.length; i++) {
+            for (long word = base[i]; word != 0; word &= word - 1) {
+                int slot = (i << 6) + Long.numberOfTrailingZeros(word);
+                long key = wide.column.keys[slot];
+                if (key < wide.min || key > wide.max) {
+                    base[i] &= ~(1L << slot);
+                }
+            }
+        }
+    }
+
+    /** Walks the slots of the sort field in order, within the range bounding that field if there is one. */
+    private List<Product> page(long[] matches, int total, ProductQuery query, Range priceRange, Range ratingRange) {
+        long offset = (long) query.getPage() * query.getSize();
+        if (offset >= total) {
+            return Collections.emptyList();
+        }
+        SortedSlots sorted = switch (query.getSortField()) {
+            case ID -> byId;
+            case PRICE -> byPrice;
+            case RATING -> byRating;
+        };
+        Range range = sorted == byPrice ? priceRange : sorted == byRating ? ratingRange : null;
+        int from = range == null ? 0 : range.from;
+        int to = range == null ? sorted.size : range.to;
+        List<Product> page = new ArrayList<>((int) Math.min(query.getSize(), total - offset));
+        int skipped = 0;
+        for (int i = from; i < to && page.size() < query.getSize(); i++) {
+            int slot = sorted.order[query.isAscending() ? i : to - 1 - (i - from)];
+            if ((matches[slot >>> 6] & 1L << slot) == 0) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(products[slot]);
+            }
+        }
+        return page;
+    }
+
+    /** Products without a version, not yet saved, always replace the indexed copy. */
+    private static boolean isNewer(Product product, Product indexed) {
+        return product.getVersion() == null || indexed.getVersion() == null || product.getVersion() > indexed.getVersion();
+    }
+
+    private int allocate() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        ensureCapacity(slotCount + 1);
+        return slotCount++;
+    }
+
+    private void fill(int slot, Product product) {
+        products[slot] = product;
+        slotsById.put(product.getId(), slot);
+        live[slot >>> 6] |= 1L << slot;
+        brands.add(slot, product.getBrand());
+        categories.add(slot, product.getCategory());
+        byId.keys[slot] = product.getId();
+        byPrice.keys[slot] = priceKey(product);
+        byRating.keys[slot] = ratingKey(product.getRating());
+    }
+
+    private void clear(int slot) {
+        live[slot >>> 6] &= ~(1L << slot);
+        brands.remove(slot);
+        categories.remove(slot);
+        byId.remove(slot);
+        byPrice.remove(slot);
+        byRating.remove(slot);
+    }
+
+    private void ensureCapacity(int slots) {
+        if (slots <= products.length) {
+            return;
+        }
+        int capacity = Math.max(Math.max(INITIAL_CAPACITY, slots), products.length * 2);
+        int words = (capacity + 63) >>> 6;
+        products = Arrays.copyOf(products, capacity);
+        live = Arrays.copyOf(live, words);
+        brands.grow(capacity, words);
+        categories.grow(capacity, words);
+        byId.grow(capacity);
+        byPrice.grow(capacity);
+        byRating.grow(capacity);
+    }
+
+    private static long priceKey(Product product) {
+        return product.getPrice() == null ? 0 : priceKey(product.getPrice());
+    }
+
+    /** Price in cents; bounds beyond what a long holds are clamped, before rescaling so huge exponents stay cheap. */
+    private static long priceKey(BigDecimal price) {
+        if (price.compareTo(MAX_PRICE) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (price.compareTo(MIN_PRICE) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        if (price.signum() == 0 || price.precision() - price.scale() < -2) {
+            // Well below a cent; rescaling a tiny exponent would divide by a power of ten with as many digits
+            return 0;
+        }
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static long ratingKey(double rating) {
+        return Math.round(rating * 100);
+    }
+
+    /** {@code target &= mask}, where a {@code null} mask selects everything. */
+    private static void and(long[] target, long[] mask) {
+        if (mask != null) {
+            for (int i = 0; i < target.length; i++) {
+                target[i] &= mask[i];
+            }
+        }
+    }
+
+    /** Slot bitmaps of the values of one facet. Values stay known after their last product is gone, with no slots. */
+    private static final class Facet {
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private final List<long[]> bitmaps = new ArrayList<>();
+        private int[] sizes = new int[0];
+        private int[] ordinalBySlot = new int[0];
+        private int words;
+
+        void clear() {
+            ordinals.clear();
+            values.clear();
+            bitmaps.clear();
+            sizes = new int[0];
+            ordinalBySlot = new int[0];
+            words = 0;
+        }
+
+        void grow(int capacity, int words) {
+            int previous = ordinalBySlot.length;
+            ordinalBySlot = Arrays.copyOf(ordinalBySlot, capacity);
+            Arrays.fill(ordinalBySlot, previous, capacity, -1);
+            bitmaps.replaceAll(bitmap -> Arrays.copyOf(bitmap, words));
+            this.words = words;
+        }
+
+        void add(int slot, String value) {
+            if (value == null) {
+                ordinalBySlot[slot] = -1;
+                return;
+            }
+            int ordinal = ordinals.computeIfAbsent(value, key -> {
+                values.add(key);
+                bitmaps.add(new long[words]);
+                sizes = Arrays.copyOf(sizes, values.size());
+                return values.size() - 1;
+            });
+            ordinalBySlot[slot] = ordinal;
+            bitmaps.get(ordinal)[slot >>> 6] |= 1L << slot;
+            sizes[ordinal]++;
+        }
+
+        void remove(int slot) {
+            int ordinal = ordinalBySlot[slot];
+            if (ordinal >= 0) {
+                bitmaps.get(ordinal)[slot >>> 6] &= ~(1L << slot);
+                sizes[ordinal]--;
+                ordinalBySlot[slot] = -1;
+            }
+        }
+
+        /** Slots having any of {@code selected}, or {@code null} when nothing is selected, meaning no restriction. */
+        long[] union(Set<String> selected, int words) {
+            if (selected == null || selected.isEmpty()) {
+                return null;
+            }
+            long[] union = new long[words];
+            for (String value : selected) {
+                Integer ordinal = ordinals.get(value);
+                if (ordinal != null) {
+                    long[] bitmap = bitmaps.get(ordinal);
+                    for (int i = 0; i < words; i++) {
+                        union[i] |= bitmap[i];
+                    }
+                }
+            }
+            return union;
+        }
+
+        /**
+         * Matches per value within {@code base} and {@code other}, leaving out values with none. With nothing
+         * filtered these are the value sizes; when few slots match, their values are tallied one by one, and
+         * otherwise every value's bitmap is intersected with the matches.
+         */
+        Map<String, Integer> counts(long[] base, long[] other, boolean unfiltered) {
+            int[] counts;
+            if (unfiltered && other == null) {
+                counts = sizes;
+            } else {
+                long[] matches = base;
+                if (other != null) {
+                    matches = base.clone();
+                    and(matches, other);
+                }
+                int matching = 0;
+                for (long word : matches) {
+                    matching += Long.bitCount(word);
+                }
+                counts = (long) matching * TALLY_COST_IN_WORDS < (long) values.size() * matches.length ? tally(matches) : intersect(matches);
+            }
+            Map<String, Integer> result = new TreeMap<>();
+            for (int ordinal = 0; ordinal < values.size(); ordinal++) {
+                if (counts[ordinal] > 0) {
+                    result.put(values.get(ordinal), counts[ordinal]);
+                }
+            }
+            return result;
+        }
+
+        private int[] tally(long[] matches) {
+            int[] counts = new int[values.size()];
+            for (int i = 0; i < matches.length; i++) {
+                for (long word = matches[i]; word != 0; word &= word - 1) {
+                    int ordinal = ordinalBySlot[(i << 6) + Long.numberOfTrailingZeros(word)];
+                    if (ordinal >= 0) {
+                        counts[ordinal]++;
+                    }
+                }
+            }
+            return counts;
+        }
+
+        private int[] intersect(long[] matches) {
+            int[] counts = new int[values.size()];
+            for (int ordinal = 0; ordinal < values.size(); ordinal++) {
+                long[] bitmap = bitmaps.get(ordinal);
+                int count = 0;
+                for (int i = 0; i < matches.length; i++) {
+                    count += Long.bitCount(bitmap[i] & matches[i]);
+                }
+                counts[ordinal] = count;
+            }
+            return counts;
+        }
+    }
+
+    /** Slots ordered by ({@code key}, slot). */
+    private static final class SortedSlots {
+        private long[] keys = new long[0];
+        private int[] order = new int[0];
+        private int size;
+
+        void grow(int capacity) {
+            keys = Arrays.copyOf(keys, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+
+        void build(int slots) {
+            Integer[] sorted = new Integer[slots];
+            Arrays.setAll(sorted, slot -> slot);
+            Arrays.sort(sorted, (a, b) -> compare(a, keys[b], b));
+            for (int i = 0; i < slots; i++) {
+                order[i] = sorted[i];
+            }
+            size = slots;
+        }
+
+        void insert(int slot) {
+            int position = -search(keys[slot], slot) - 1;
+            System.arraycopy(order, position, order, position + 1, size - position);
+            order[position] = slot;
+            size++;
+        }
+
+        /** Re-sorts {@code slot} for its new key, shifting only the slots between its old and new position. */
+        void move(int slot, long key) {
+            if (keys[slot] == key) {
+                return;
+            }
+            int from = search(keys[slot], slot);
+            int to = -search(key, slot) - 1;
+            if (to > from) {
+                System.arraycopy(order, from + 1, order, from, to - 1 - from);
+                order[to - 1] = slot;
+            } else {
+                System.arraycopy(order, to, order, to + 1, from - to);
+                order[to] = slot;
+            }
+            keys[slot] = key;
+        }
+
+        void remove(int slot) {
+            int position = search(keys[slot], slot);
+            if (position >= 0) {
+                System.arraycopy(order, position + 1, order, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /** Positions {@code [from, to)} of the slots with a key within {@code [min, max]}. */
+        Range range(long min, long max) {
+            return new Range(this, min, max, lowerBound(min), max == Long.MAX_VALUE ? size : lowerBound(max + 1));
+        }
+
+        /**
+         * Clears the slots outside positions {@code [from, to)} from {@code bitmap}. Small ranges are collected into
+         * a fresh bitmap instead, so the cost follows whichever side of the bounds is smaller.
+         */
+        void retainPositions(long[] bitmap, int from, int to) {
+            if (to - from < size - (to - from)) {
+                long[] range = new long[bitmap.length];
+                for (int i = from; i < to; i++) {
+                    range[order[i] >>> 6] |= 1L << order[i];
+                }
+                and(bitmap, range);
+            } else {
+                for (int i = 0; i < from; i++) {
+                    bitmap[order[i] >>> 6] &= ~(1L << order[i]);
+                }
+                for (int i = to; i < size; i++) {
+                    bitmap[order[i] >>> 6] &= ~(1L << order[i]);
+                }
+            }
+        }
+
+        /** Position of the slot if present, otherwise {@code -(insertion point) - 1}. */
+        private int search(long key, int slot) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comparison = compare(order[mid], key, slot);
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else if (comparison > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        /** First position whose key is at least {@code key}. */
+        private int lowerBound(long key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[order[mid]] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(int slot, long key, int otherSlot) {
+            int comparison = Long.compare(keys[slot], key);
+            return comparison != 0 ? comparison : Integer.compare(slot, otherSlot);
+        }
+    }
+
+    private record Range(SortedSlots column, long min, long max, int from, int to) {
+    }
+}
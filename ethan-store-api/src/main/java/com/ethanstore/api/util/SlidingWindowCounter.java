@@ -0,0 +1,295 @@
+package com.ethanstore.api.util;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts events per key over a true sliding window, for millions of keys in primitive arrays.
+ * <p>
+ * Keys are reduced to a 64-bit murmur3 hash and spread over lock-striped shards. Each shard is an open-addressing
+ * table that stores, per key, a ring of the last {@code limit} event times in seconds. The count for a key is the
+ * number of those times still inside the window, so it is exact up to {@code limit}. A key costs
+ * {@code 9 + 4 * limit} bytes. Shards grow on demand and never hold more than {@code maxKeys / shards} keys. A full shard first drops keys
+ * with no events left in the window; if that is not enough, it drops the keys with the oldest latest event.
+ */
+public class SlidingWindowCounter {
+
+    private static final HashFunction KEY_HASH = Hashing.murmur3_128();
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int INITIAL_SHARD_CAPACITY = 16;
+    private static final int EVICTION_FRACTION = 8;
+    private static final int AGE_BUCKETS = 64;
+
+    private final Shard[] shards;
+    private final int shardShift;
+    private final int limit;
+    private final int windowSeconds;
+    private final LongSupplier clock;
+    private final long epochMillis;
+    private final LongAdder evictions = new LongAdder();
+
+    public SlidingWindowCounter(int limit, Duration window, long maxKeys, int shards) {
+        this(limit, window, maxKeys, shards, System::currentTimeMillis);
+    }
+
+    public SlidingWindowCounter(int limit, Duration window, long maxKeys, int shards, LongSupplier clock) {
+        if (limit < 1 || limit > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + Byte.MAX_VALUE + ": " + limit);
+        }
+        if (shards < 1 || Integer.bitCount(shards) != 1) {
+            throw new IllegalArgumentException("shards must be a power of two: " + shards);
+        }
+        this.limit = limit;
+        this.windowSeconds = (int) Math.max(1, window.toSeconds());
+        this.clock = clock;
+        this.epochMillis = clock.getAsLong();
+        this.shardShift = Long.SIZE - Integer.numberOfTrailingZeros(shards);
+        int maxShardKeys = (int) Math.min(1 << 29, Math.max(1, maxKeys / shards));
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(Math.min(INITIAL_SHARD_CAPACITY, tableSizeFor(maxShardKeys)), maxShardKeys);
+        }
+    }
+
+    /**
+     * Records one event for {@code key} and returns the number of events inside the window, capped at the limit.
+     */
+    public int record(String key) {
+        long hash = hash(key);
+        int now = now();
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            int slot = shard.findOrInsert(hash, now);
+            int head = shard.heads[slot];
+            shard.times[slot * limit + head] = now;
+            shard.heads[slot] = (byte) ((head + 1) % limit);
+            return shard.count(slot, now);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    public int count(String key) {
+        long hash = hash(key);
+        int now = now();
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            int slot = shard.find(hash);
+            return slot < 0 ? 0 : shard.count(slot, now);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets every event for {@code key}. The slot itself is reclaimed the next time its shard is compacted.
+     */
+    public void reset(String key) {
+        long hash = hash(key);
+        Shard shard = shardFor(hash);
+        shard.lock.lock();
+        try {
+            int slot = shard.find(hash);
+            if (slot >= 0) {
+                shard.clear(slot);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /** Number of keys currently held, including ones whose events have expired but are not yet compacted away. */
+    public long size() {
+        long size = 0;
+        for (Shard shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    /** Keys dropped while they still had events inside the window, because their shard was full. */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private Shard shardFor(long hash) {
+        return shards[shardShift == Long.SIZE ? 0 : (int) (hash >>> shardShift)];
+    }
+
+    /** Seconds since construction, offset by one so that zero can mark an unused time slot. */
+    private int now() {
+        return (int) ((clock.getAsLong() - epochMillis) / 1000) + 1;
+    }
+
+    private static long hash(String key) {
+        long hash = KEY_HASH.hashString(key, StandardCharsets.UTF_8).asLong();
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /** Smallest power-of-two table that holds {@code keys} within the load factor. */
+    private static int tableSizeFor(int keys) {
+        return Integer.highestOneBit(Math.max(1, (int) Math.ceil(keys / LOAD_FACTOR) - 1)) << 1;
+    }
+
+    private final class Shard {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maxKeys;
+        private long[] keys;
+        private int[] times;
+        private byte[] heads;
+        private volatile int size;
+
+        private Shard(int capacity, int maxKeys) {
+            this.maxKeys = maxKeys;
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            times = new int[capacity * limit];
+            heads = new byte[capacity];
+            size = 0;
+        }
+
+        private int find(long hash) {
+            int mask = keys.length - 1;
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == hash) {
+                    return slot;
+                }
+                if (keys[slot] == EMPTY) {
+                    return -1;
+                }
+            }
+        }
+
+        private int findOrInsert(long hash, int now) {
+            int slot = find(hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (size + 1 > threshold()) {
+                makeRoom(now);
+            }
+            int mask = keys.length - 1;
+            slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = hash;
+            size++;
+            return slot;
+        }
+
+        private int count(int slot, int now) {
+            int count = 0;
+            for (int i = slot * limit, end = i + limit; i < end; i++) {
+                if (isLive(times[i], now)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void clear(int slot) {
+            for (int i = slot * limit, end = i + limit; i < end; i++) {
+                times[i] = 0;
+            }
+            heads[slot] = 0;
+        }
+
+        private int threshold() {
+            return Math.min((int) (keys.length * LOAD_FACTOR), maxKeys);
+        }
+
+        private int latest(int slot) {
+            return times[slot * limit + (heads[slot] + limit - 1) % limit];
+        }
+
+        private boolean isLive(int time, int now) {
+            return time != 0 && now - time < windowSeconds;
+        }
+
+        /**
+         * Called when the table reaches its load factor. Grows it while under the ceiling; at the ceiling, rebuilds it
+         * without expired keys and, if that leaves more than seven eighths of the threshold, also without the keys that
+         * were active longest ago. Either way the next rebuild is at least an eighth of the table's inserts away.
+         */
+        private void makeRoom(int now) {
+            int live = 0;
+            int[] ageHistogram = new int[AGE_BUCKETS];
+            for (int slot = 0; slot < keys.length; slot++) {
+                int latest = latest(slot);
+                if (keys[slot] != EMPTY && isLive(latest, now)) {
+                    live++;
+                    ageHistogram[ageBucket(latest, now)]++;
+                }
+            }
+            int threshold = threshold();
+            int target = threshold - Math.max(1, threshold / EVICTION_FRACTION);
+            if (live > threshold / 2 && threshold < maxKeys) {
+                rehash(keys.length << 1, now, AGE_BUCKETS, 0);
+                return;
+            }
+            int cutoffBucket = AGE_BUCKETS;
+            int evictFromCutoff = 0;
+            for (int bucket = AGE_BUCKETS - 1, kept = live; bucket >= 0 && kept > target; bucket--) {
+                cutoffBucket = bucket;
+                evictFromCutoff = Math.min(kept - target, ageHistogram[bucket]);
+                kept -= evictFromCutoff;
+            }
+            rehash(keys.length, now, cutoffBucket, evictFromCutoff);
+        }
+
+        /**
+         * Copies live keys into a table of {@code capacity} slots, skipping keys older than {@code cutoffBucket} and
+         * the first {@code evictFromCutoff} keys found in it.
+         */
+        private void rehash(int capacity, int now, int cutoffBucket, int evictFromCutoff) {
+            long[] oldKeys = keys;
+            int[] oldTimes = times;
+            byte[] oldHeads = heads;
+            allocate(capacity);
+            int mask = capacity - 1;
+            int live = 0;
+            for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+                long key = oldKeys[oldSlot];
+                if (key == EMPTY) {
+                    continue;
+                }
+                int latest = oldTimes[oldSlot * limit + (oldHeads[oldSlot] + limit - 1) % limit];
+                if (!isLive(latest, now)) {
+                    continue;
+                }
+                int bucket = ageBucket(latest, now);
+                if (bucket > cutoffBucket || (bucket == cutoffBucket && evictFromCutoff-- > 0)) {
+                    evictions.increment();
+                    continue;
+                }
+                int slot = (int) key & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                heads[slot] = oldHeads[oldSlot];
+                System.arraycopy(oldTimes, oldSlot * limit, times, slot * limit, limit);
+                live++;
+            }
+            size = live;
+        }
+
+        /** Splits the window into {@code AGE_BUCKETS} bands by time since the key's latest event, 0 being the newest. */
+        private int ageBucket(int latest, int now) {
+            return (int) ((long) (now - latest) * AGE_BUCKETS / windowSeconds);
+        }
+    }
+}
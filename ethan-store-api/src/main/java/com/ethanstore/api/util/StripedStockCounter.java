@@ -0,0 +1,226 @@
+package com.ethanstore.api.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Units in stock of one product, taken and returned by many threads at once without ever going below zero.
+ * <p>
+ * Stock starts in a single counter. The first time two threads collide on it, it is split over {@code stripes}
+ * counters, each on its own cache line, and a taker compare-and-sets the stripe it lands on, moving to the next one
+ * when that stripe cannot cover the request. Units only ever leave a stripe through a compare-and-set that keeps it
+ * non-negative, so the stripes can never hand out more than was added. Only when no single stripe holds enough does a
+ * taker lock and gather units from all of them; that lock is also what makes "out of stock" an exact answer.
+ * <p>
+ * Lowering the stock by more than is left records a debt, which returned units pay off before they can be taken again.
+ * While a debt is owed, returned units go to it under the lock before any remainder is put back, and takers use the
+ * locked path, so no unit owed to the debt can be taken in between.
+ */
+public class StripedStockCounter {
+
+    private static final int PADDING = 8; // longs per 64-byte cache line
+
+    private final AtomicLong base;
+    private final AtomicLong debt = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int stripes;
+    private volatile AtomicLongArray cells;
+
+    public StripedStockCounter(long units, int stripes) {
+        if (stripes < 1 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two: " + stripes);
+        }
+        this.base = new AtomicLong(Math.max(0, units));
+        this.stripes = stripes;
+    }
+
+    /**
+     * Takes {@code units} if that many are in stock, otherwise takes nothing.
+     */
+    public boolean tryTake(int units) {
+        if (debt.get() > 0) {
+            return takeAcrossStripes(units);
+        }
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            long available = base.get();
+            if (available >= units && base.compareAndSet(available, available - units)) {
+                return true;
+            }
+            if (available >= units) {
+                inflate();
+            } else if (this.cells == null) {
+                // Nothing ever takes units out of base without taking them for good, so this read was exact
+                return false;
+            }
+            cells = this.cells;
+        }
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int index = cellIndex(start + i);
+            long available;
+            while ((available = cells.get(index)) >= units) {
+                if (cells.compareAndSet(index, available, available - units)) {
+                    return true;
+                }
+            }
+        }
+        return takeAcrossStripes(units);
+    }
+
+    /**
+     * Returns {@code units} to stock, paying off any debt first.
+     */
+    public void add(long units) {
+        if (units <= 0) {
+            return;
+        }
+        if (debt.get() > 0) {
+            lock.lock();
+            try {
+                long paid = Math.min(units, debt.get());
+                debt.addAndGet(-paid);
+                deposit(units - paid);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+        deposit(units);
+        // A debt recorded since the check above may have missed these units
+        if (debt.get() > 0) {
+            settleDebt();
+        }
+    }
+
+    /**
+     * Takes {@code units} out of stock for good. Whatever is not in stock right now is taken from units returned later.
+     */
+    public void remove(long units) {
+        if (units <= 0) {
+            return;
+        }
+        // Recorded before anything is taken, so units added concurrently see the debt and settle it
+        debt.addAndGet(units);
+        settleDebt();
+    }
+
+    /**
+     * Units in stock, exact when nothing is being taken or returned at the same time.
+     */
+    public long available() {
+        long available = base.get();
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            for (int i = 0; i < stripes; i++) {
+                available += cells.get(cellIndex(i));
+            }
+        }
+        return Math.max(0, available - debt.get());
+    }
+
+    public boolean isStriped() {
+        return cells != null;
+    }
+
+    private boolean takeAcrossStripes(int units) {
+        lock.lock();
+        try {
+            if (debt.get() > 0) {
+                settleDebtLocked();
+                if (debt.get() > 0) {
+                    return false;
+                }
+            }
+            long taken = takeUpTo(cells, units);
+            if (taken == units) {
+                return true;
+            }
+            deposit(taken);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void settleDebt() {
+        lock.lock();
+        try {
+            settleDebtLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void settleDebtLocked() {
+        long owed = debt.get();
+        if (owed > 0) {
+            debt.addAndGet(-takeUpTo(cells, owed));
+        }
+    }
+
+    private void deposit(long units) {
+        if (units <= 0) {
+            return;
+        }
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            base.addAndGet(units);
+        } else {
+            cells.addAndGet(cellIndex(ThreadLocalRandom.current().nextInt(stripes)), units);
+        }
+    }
+
+    /** Takes as many units as are in stock, up to {@code units}. Called under the lock. */
+    private long takeUpTo(AtomicLongArray cells, long units) {
+        long taken = takeUpTo(base, units);
+        if (cells != null) {
+            for (int i = 0; i < stripes && taken < units; i++) {
+                int index = cellIndex(i);
+                long available;
+                while (taken < units && (available = cells.get(index)) > 0) {
+                    long take = Math.min(available, units - taken);
+                    if (cells.compareAndSet(index, available, available - take)) {
+                        taken += take;
+                    }
+                }
+            }
+        }
+        return taken;
+    }
+
+    private static long takeUpTo(AtomicLong counter, long units) {
+        long available;
+        while ((available = counter.get()) > 0) {
+            long take = Math.min(available, units);
+            if (counter.compareAndSet(available, available - take)) {
+                return take;
+            }
+        }
+        return 0;
+    }
+
+    private void inflate() {
+        lock.lock();
+        try {
+            if (cells != null) {
+                return;
+            }
+            AtomicLongArray striped = new AtomicLongArray(stripes * PADDING);
+            // Published before base is drained, so a taker that finds base empty also finds the stripes
+            cells = striped;
+            long units = base.getAndSet(0);
+            for (int i = 0; i < stripes; i++) {
+                striped.addAndGet(cellIndex(i), units / stripes + (i < units % stripes ? 1 : 0));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int cellIndex(int stripe) {
+        return (stripe & (stripes - 1)) * PADDING;
+    }
+}
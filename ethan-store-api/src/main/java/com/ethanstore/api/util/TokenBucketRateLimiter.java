@@ -0,0 +1,95 @@
+package com.ethanstore.api.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets per client key, implemented as the generic cell rate algorithm: instead of a token count and a refill
+ * timestamp, each key holds a single "theoretical arrival time" in an {@link AtomicLong}, and a request takes a token
+ * by advancing it with one compare-and-set. Lookups of existing keys never lock.
+ * <p>
+ * A bucket whose arrival time lies in the past is full, so dropping it loses nothing; {@link #evictIdle()} removes
+ * such buckets once they have been full for the idle period. At most {@code maxKeys} buckets are held; clients beyond
+ * that are let through unlimited until idle buckets are evicted.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long idleNanos;
+    private final long maxKeys;
+    private final LongSupplier nanoClock;
+
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond, long idleSeconds, long maxKeys) {
+        this(capacity, refillPerSecond, idleSeconds, maxKeys, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond, long idleSeconds, long maxKeys, LongSupplier nanoClock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        if (!(refillPerSecond > 0)) {
+            throw new IllegalArgumentException("refillPerSecond must be positive: " + refillPerSecond);
+        }
+        this.capacity = capacity;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        this.idleNanos = TimeUnit.SECONDS.toNanos(idleSeconds);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}. Returns {@code null} when the key could not be tracked because
+     * the limiter is full.
+     */
+    public Decision tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            if (buckets.size() >= maxKeys) {
+                return null;
+            }
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long untilFull = next - now;
+            if (untilFull > burstNanos) {
+                return new Decision(false, 0, current - now, untilFull - burstNanos);
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return new Decision(true, (int) ((burstNanos - untilFull) / intervalNanos), untilFull, 0);
+            }
+        }
+    }
+
+    /** Drops buckets that have been full for at least the idle period and returns how many were dropped. */
+    public int evictIdle() {
+        long idleBefore = nanoClock.getAsLong() - idleNanos;
+        int before = buckets.size();
+        buckets.values().removeIf(arrival -> arrival.get() - idleBefore <= 0);
+        return Math.max(0, before - buckets.size());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Outcome of one request: tokens left afterwards, nanoseconds until the bucket is full again, and for rejected
+     * requests the nanoseconds until a token is available.
+     */
+    public record Decision(boolean allowed, int remaining, long resetNanos, long retryAfterNanos) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.enumeration.UserSortField;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for the user list: sort field, direction, last id and last sort value, base64url encoded.
+ */
+public final class UserCursorCodec {
+
+    private static final String SEPARATOR = "|";
+    private static final String ASCENDING = "asc";
+    private static final String DESCENDING = "desc";
+    private static final String INVALID_CURSOR = "Invalid cursor: ";
+
+    private UserCursorCodec() {
+    }
+
+    public static String encode(UserSortField sortField, boolean ascending, Long id, Object value) {
+        String cursor = sortField.name() + SEPARATOR + direction(ascending) + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor after checking it was issued for the same sort field and direction.
+     */
+    public static Position decode(String cursor, UserSortField sortField, boolean ascending) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+            if (parts.length != 4 || !parts[0].equals(sortField.name()) || !parts[1].equals(direction(ascending))) {
+                throw new BadRequestException(INVALID_CURSOR + cursor);
+            }
+            return new Position(Long.valueOf(parts[2]), sortField.getParser().apply(parts[3]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException(INVALID_CURSOR + cursor);
+        }
+    }
+
+    private static String direction(boolean ascending) {
+        return ascending ? ASCENDING : DESCENDING;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Position {
+        private final Long id;
+        private final Comparable<?> value;
+    }
+}
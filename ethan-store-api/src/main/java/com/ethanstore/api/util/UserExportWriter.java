@@ -0,0 +1,117 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.enumeration.ExportFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Writes users one at a time straight to the response stream, as newline-delimited JSON through Jackson's streaming
+ * generator or as CSV. Nothing is buffered beyond the current row, and the password hash is never written.
+ */
+public class UserExportWriter implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String[] COLUMNS = {"id", "userId", "firstName", "lastName", "username", "email",
+            "profileImageUrl", "lastLoginDate", "lastLoginDateDisplay", "joinDate", "role", "authorities", "active", "notLocked"};
+    private static final String NEW_LINE = "\n";
+
+    private final ExportFormat format;
+    private final JsonGenerator jsonGenerator;
+    private final Writer csvWriter;
+
+    public UserExportWriter(ExportFormat format, OutputStream outputStream) throws IOException {
+        this.format = format;
+        if (format == ExportFormat.NDJSON) {
+            this.jsonGenerator = JSON_FACTORY.createGenerator(outputStream)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            this.csvWriter = null;
+        } else {
+            this.jsonGenerator = null;
+            this.csvWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.csvWriter.write(String.join(",", COLUMNS));
+            this.csvWriter.write(NEW_LINE);
+        }
+    }
+
+    public void write(User user) throws IOException {
+        if (format == ExportFormat.NDJSON) {
+            writeJson(user);
+        } else {
+            writeCsv(user);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.close();
+        } else {
+            csvWriter.flush();
+        }
+    }
+
+    private void writeJson(User user) throws IOException {
+        JsonGenerator generator = jsonGenerator;
+        generator.writeStartObject();
+        generator.writeNumberField("id", user.getId());
+        generator.writeStringField("userId", user.getUserId());
+        generator.writeStringField("firstName", user.getFirstName());
+        generator.writeStringField("lastName", user.getLastName());
+        generator.writeStringField("username", user.getUsername());
+        generator.writeStringField("email", user.getEmail());
+        generator.writeStringField("profileImageUrl", user.getProfileImageUrl());
+        generator.writeStringField("lastLoginDate", toString(user.getLastLoginDate()));
+        generator.writeStringField("lastLoginDateDisplay", toString(user.getLastLoginDateDisplay()));
+        generator.writeStringField("joinDate", toString(user.getJoinDate()));
+        generator.writeStringField("role", user.getRole());
+        generator.writeArrayFieldStart("authorities");
+        if (user.getAuthorities() != null) {
+            for (String authority : user.getAuthorities()) {
+                generator.writeString(authority);
+            }
+        }
+        generator.writeEndArray();
+        generator.writeBooleanField("active", user.isActive());
+        generator.writeBooleanField("notLocked", user.isNotLocked());
+        generator.writeEndObject();
+        generator.writeRaw(NEW_LINE);
+    }
+
+    private void writeCsv(User user) throws IOException {
+        String[] values = {String.valueOf(user.getId()), user.getUserId(), user.getFirstName(), user.getLastName(),
+                user.getUsername(), user.getEmail(), user.getProfileImageUrl(), toString(user.getLastLoginDate()),
+                toString(user.getLastLoginDateDisplay()), toString(user.getJoinDate()), user.getRole(),
+                user.getAuthorities() == null ? null : String.join(" ", user.getAuthorities()),
+                String.valueOf(user.isActive()), String.valueOf(user.isNotLocked())};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                csvWriter.write(',');
+            }
+            writeCsvValue(values[i]);
+        }
+        csvWriter.write(NEW_LINE);
+    }
+
+    private void writeCsvValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            csvWriter.write(value);
+            return;
+        }
+        csvWriter.write('"');
+        csvWriter.write(value.replace("\"", "\"\""));
+        csvWriter.write('"');
+    }
+
+    private String toString(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.toString();
+    }
+}
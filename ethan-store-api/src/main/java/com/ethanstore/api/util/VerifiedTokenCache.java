@@ -0,0 +1,79 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.domain.JwtClaims;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded cache of tokens that already passed signature verification, keyed by the SHA-256 of the raw token
+ * so the cache never holds bearer credentials. Entries are dropped once the token itself has expired.
+ */
+public class VerifiedTokenCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Cache<ByteBuffer, JwtClaims> cache;
+
+    private final LongSupplier clock;
+
+    public VerifiedTokenCache(long maximumSize, long timeToLiveSeconds) {
+        this(maximumSize, timeToLiveSeconds, System::currentTimeMillis);
+    }
+
+    /** With {@code clock} in milliseconds timing both the cache entries and the tokens. */
+    VerifiedTokenCache(long maximumSize, long timeToLiveSeconds, LongSupplier clock) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .ticker(new Ticker() {
+                    @Override
+                    public long read() {
+                        return TimeUnit.MILLISECONDS.toNanos(clock.getAsLong());
+                    }
+                })
+                .recordStats()
+                .build();
+        this.clock = clock;
+    }
+
+    public JwtClaims get(String token) {
+        ByteBuffer key = digest(token);
+        JwtClaims claims = cache.getIfPresent(key);
+        if (claims != null && claims.isExpired(clock.getAsLong())) {
+            cache.invalidate(key);
+            return null;
+        }
+        return claims;
+    }
+
+    public void put(String token, JwtClaims claims) {
+        cache.put(digest(token), claims);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /** Registers hits, misses, evictions and size as the {@code cache.*} meters tagged with {@code name}. */
+    public void bindTo(MeterRegistry registry, String name) {
+        GuavaCacheMetrics.monitor(registry, cache, name);
+    }
+
+    private ByteBuffer digest(String token) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+        }
+    }
+}
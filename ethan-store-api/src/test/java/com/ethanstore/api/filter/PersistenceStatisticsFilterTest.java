@@ -0,0 +1,124 @@
+package com.ethanstore.api.filter;
+
+import com.ethanstore.api.config.PersistenceStatisticsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.WebApplicationContext;
+
+import static com.ethanstore.api.constant.SecurityConstant.SERVER_TIMING_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@SpringBootTest
+class PersistenceStatisticsFilterTest {
+
+    private static final String FIND_USER = "/user/find/{username}";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private PersistenceStatisticsFilter filter;
+
+    @Autowired
+    private PersistenceStatisticsProperties properties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mockMvc;
+    private Integer findUserBudget;
+    private int repeatedStatementThreshold;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = webAppContextSetup(context).addFilters(filter).apply(springSecurity()).build();
+        findUserBudget = properties.getBudgets().get(FIND_USER);
+        repeatedStatementThreshold = properties.getRepeatedStatementThreshold();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (findUserBudget == null) {
+            properties.getBudgets().remove(FIND_USER);
+        } else {
+            properties.getBudgets().put(FIND_USER, findUserBudget);
+        }
+        properties.setRepeatedStatementThreshold(repeatedStatementThreshold);
+        properties.setServerTimingHeader(false);
+    }
+
+    @Test
+    void statementsAreRecordedPerUriTemplate() throws Exception {
+        long requests = statements(FIND_USER).count();
+        double statements = statements(FIND_USER).totalAmount();
+
+        mockMvc.perform(findUser("alice")).andExpect(status().isOk());
+        mockMvc.perform(findUser("bob")).andExpect(status().isOk());
+
+        assertEquals(requests + 2, statements(FIND_USER).count());
+        assertTrue(statements(FIND_USER).totalAmount() >= statements + 2, "each lookup prepares a select");
+        assertNull(meterRegistry.find("persistence.statements").tag("uri", "/user/find/alice").summary());
+    }
+
+    @Test
+    void requestsOverALoweredBudgetAreCounted() throws Exception {
+        mockMvc.perform(findUser("alice")).andExpect(status().isOk());
+        double overBudget = counter("persistence.budget.exceeded");
+        double repeated = counter("persistence.repeated.statements");
+
+        properties.getBudgets().put(FIND_USER, 0);
+        properties.setRepeatedStatementThreshold(1);
+        mockMvc.perform(findUser("alice")).andExpect(status().isOk());
+
+        assertEquals(overBudget + 1, counter("persistence.budget.exceeded"));
+        assertEquals(repeated + 1, counter("persistence.repeated.statements"));
+    }
+
+    @Test
+    void requestsWithinTheirBudgetAreNotCounted() throws Exception {
+        mockMvc.perform(findUser("alice")).andExpect(status().isOk());
+        double overBudget = counter("persistence.budget.exceeded");
+
+        properties.getBudgets().put(FIND_USER, 100);
+        mockMvc.perform(findUser("alice")).andExpect(status().isOk());
+
+        assertEquals(overBudget, counter("persistence.budget.exceeded"));
+    }
+
+    @Test
+    void serverTimingHeaderIsSentOnlyWhenSwitchedOn() throws Exception {
+        mockMvc.perform(findUser("alice")).andExpect(header().doesNotExist(SERVER_TIMING_HEADER));
+
+        properties.setServerTimingHeader(true);
+        mockMvc.perform(findUser("alice")).andExpect(header().exists(SERVER_TIMING_HEADER));
+    }
+
+    private static MockHttpServletRequestBuilder findUser(String username) {
+        return get("/user/find/" + username).with(user("reader").authorities(() -> "user:read"));
+    }
+
+    private DistributionSummary statements(String uri) {
+        return meterRegistry.summary("persistence.statements", "uri", uri);
+    }
+
+    private double counter(String name) {
+        Counter counter = meterRegistry.find(name).tag("uri", FIND_USER).counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
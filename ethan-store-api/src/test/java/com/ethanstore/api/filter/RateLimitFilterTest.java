@@ -0,0 +1,111 @@
+package com.ethanstore.api.filter;
+
+import com.ethanstore.api.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static com.ethanstore.api.constant.SecurityConstant.RATE_LIMIT_LIMIT_HEADER;
+import static com.ethanstore.api.constant.SecurityConstant.RATE_LIMIT_REMAINING_HEADER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaults(new RateLimitProperties.Limit(3, 0.01));
+        RateLimitProperties.Rule login = new RateLimitProperties.Rule();
+        login.setPattern("/user/login");
+        login.setCapacity(1);
+        login.setRefillPerSecond(0.01);
+        properties.setRules(List.of(login));
+        filter = new RateLimitFilter(properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void limitsAnonymousClientsPerAddressAndAnswers429() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("/user/list", "10.0.0.1", null).getStatus());
+        }
+        MockHttpServletResponse rejected = send("/user/list", "10.0.0.1", null);
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals("0", rejected.getHeader(RATE_LIMIT_REMAINING_HEADER));
+        assertTrue(rejected.getContentAsString().contains("TOO MANY REQUESTS"));
+
+        assertEquals(200, send("/user/list", "10.0.0.2", null).getStatus());
+    }
+
+    @Test
+    void limitsOneAccountAcrossAddresses() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("/user/list", "10.0.0." + i, "alice").getStatus());
+        }
+        assertEquals(429, send("/user/list", "10.0.0.9", "alice").getStatus());
+        assertEquals(200, send("/user/list", "10.0.0.9", "bob").getStatus());
+    }
+
+    @Test
+    void limitsManyAccountsFromOneAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send("/user/list", "10.0.0.1", "user-" + i).getStatus());
+        }
+        assertEquals(429, send("/user/list", "10.0.0.1", "user-9").getStatus());
+        assertEquals(200, send("/user/list", "10.0.0.2", "user-9").getStatus());
+    }
+
+    @Test
+    void reportsTheTighterOfTheTwoBuckets() throws Exception {
+        send("/user/list", "10.0.0.1", null);
+        send("/user/list", "10.0.0.1", null);
+        MockHttpServletResponse response = send("/user/list", "10.0.0.1", "alice");
+        assertEquals(200, response.getStatus());
+        assertEquals("3", response.getHeader(RATE_LIMIT_LIMIT_HEADER));
+        assertEquals("0", response.getHeader(RATE_LIMIT_REMAINING_HEADER));
+    }
+
+    @Test
+    void rulesHaveTheirOwnBuckets() throws Exception {
+        assertEquals(200, send("/user/login", "10.0.0.1", null).getStatus());
+        assertEquals(429, send("/user/login", "10.0.0.1", null).getStatus());
+        assertEquals(200, send("/user/list", "10.0.0.1", null).getStatus());
+    }
+
+    private MockHttpServletResponse send(String path, String remoteAddress, String username) throws Exception {
+        SecurityContextHolder.clearContext();
+        if (username != null) {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(username, null, AuthorityUtils.NO_AUTHORITIES));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr(remoteAddress);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 429) {
+            assertNull(chain.getRequest());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,288 @@
+package com.ethanstore.api.load;
+
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.repository.UserRepository;
+import com.ethanstore.api.service.UserIdentityFilter;
+import com.ethanstore.api.util.JwtTokenProvider;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import static com.ethanstore.api.enumeration.Role.ROLE_SUPER_ADMIN;
+import static com.ethanstore.api.enumeration.Role.ROLE_USER;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a weighted mix of {@code UserResource} calls against the app on a random port, with users seeded into an
+ * in-memory H2. Requests arrive on an open model: a Poisson process at {@code load.rate} per second, independent of
+ * how fast responses come back, and latency is measured from each request's scheduled start, so a stalled server
+ * shows up in the percentiles instead of silently lowering the offered load.
+ * <p>
+ * Writes a table of throughput and p50/p99/p99.9 per endpoint to {@code target/load-test/user-resource.txt}, meant to
+ * be diffed between runs, plus the full percentile distribution of each endpoint as {@code .hgrm}. The arrival times
+ * and request parameters come from {@code load.seed}, so two runs offer exactly the same load. Excluded from the
+ * default build; run with {@code mvn test -P load-test -Dload.rate=300 -Dload.users=5000}. Rate limiting is off and
+ * load shedding is off unless {@code -Dload.concurrency-limit=true}, so the numbers describe the endpoints themselves;
+ * failures are broken down by status at the end of the report.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:load-test;MODE=PostgreSQL;DATABASE_TO_LOWER=true;DB_CLOSE_DELAY=-1",
+        "ethanstore.password-hashing.strength=10",
+        "ethanstore.rate-limit.enabled=false",
+        "ethanstore.concurrency-limit.enabled=${load.concurrency-limit:false}",
+        "logging.level.com.ethanstore.api=WARN"
+})
+class UserResourceLoadTest {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final int CONNECTION_FAILED = 0;
+    private static final Path REPORT_FOLDER = Path.of("target", "load-test");
+    private static final int USERS = Integer.getInteger("load.users", 1000);
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "100"));
+    private static final long WARMUP_SECONDS = Long.getLong("load.warmup-seconds", 10);
+    private static final long DURATION_SECONDS = Long.getLong("load.duration-seconds", 30);
+    private static final long SEED = Long.getLong("load.seed", 42);
+    private static final int MAX_CONCURRENCY = Integer.getInteger("load.max-concurrency", 256);
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserIdentityFilter userIdentityFilter;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+    private String adminToken;
+
+    @Test
+    void userResourceMix() throws Exception {
+        seedUsers();
+        List<Operation> mix = List.of(
+                new Operation("login", 10, random -> post("/user/login", "application/json",
+                        String.format("{\"username\":\"%s\",\"password\":\"%s\"}", username(random), PASSWORD)).build()),
+                new Operation("find", 30, random -> authorized(get("/user/find/" + username(random)))),
+                new Operation("list", 25, random -> authorized(get("/user/list?size=20"))),
+                new Operation("image", 25, random -> get("/user/image/profile/" + encode("Load User" + random.nextInt(USERS))).build()),
+                new Operation("update", 10, random -> {
+                    int user = random.nextInt(USERS);
+                    return authorized(post("/user/update", "application/x-www-form-urlencoded", form(Map.of(
+                            "currentUsername", "load" + user, "firstName", "Load", "lastName", "User" + user,
+                            "username", "load" + user, "email", "load" + user + "@ethanstore.com", "role", ROLE_USER.name(),
+                            "isActive", "true", "isNonLocked", "true"))));
+                }));
+
+        run(mix, WARMUP_SECONDS, new SplittableRandom(SEED - 1));
+        Map<String, Result> results = run(mix, DURATION_SECONDS, new SplittableRandom(SEED));
+        writeReport(results);
+
+        long requests = results.values().stream().mapToLong(result -> result.histogram().getTotalCount()).sum();
+        long errors = results.values().stream().mapToLong(Result::errors).sum();
+        assertTrue(errors <= requests * MAX_ERROR_RATE, errors + " of " + requests + " requests failed, see " + REPORT_FOLDER);
+    }
+
+    /**
+     * Offers requests for {@code seconds} and waits for the stragglers. Each request's latency runs from the moment it
+     * was scheduled, including any time spent waiting for a free client thread.
+     */
+    private Map<String, Result> run(List<Operation> mix, long seconds, SplittableRandom random) throws InterruptedException {
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        Map<String, Recorder> recorders = new LinkedHashMap<>();
+        Map<String, Map<Integer, LongAdder>> errors = new LinkedHashMap<>();
+        for (Operation operation : mix) {
+            recorders.put(operation.name(), new Recorder(3));
+            errors.put(operation.name(), new ConcurrentSkipListMap<>());
+        }
+        ExecutorService clients = Executors.newFixedThreadPool(MAX_CONCURRENCY);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long meanIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / RATE);
+        for (long scheduled = start; scheduled < end; scheduled += (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos)) {
+            Operation operation = pick(mix, random.nextInt(totalWeight));
+            HttpRequest request = operation.request().apply(random);
+            long scheduledAt = scheduled;
+            LockSupport.parkNanos(scheduledAt - System.nanoTime());
+            clients.execute(() -> {
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 400) {
+                        errors.get(operation.name()).computeIfAbsent(response.statusCode(), status -> new LongAdder()).increment();
+                    }
+                } catch (IOException e) {
+                    errors.get(operation.name()).computeIfAbsent(CONNECTION_FAILED, status -> new LongAdder()).increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                recorders.get(operation.name()).recordValue(System.nanoTime() - scheduledAt);
+            });
+        }
+        clients.shutdown();
+        clients.awaitTermination(2, TimeUnit.MINUTES);
+        Map<String, Result> results = new LinkedHashMap<>();
+        recorders.forEach((name, recorder) -> {
+            Map<Integer, Long> statuses = new TreeMap<>();
+            errors.get(name).forEach((status, count) -> statuses.put(status, count.sum()));
+            results.put(name, new Result(recorder.getIntervalHistogram(), statuses));
+        });
+        return results;
+    }
+
+    private void writeReport(Map<String, Result> results) throws IOException {
+        Files.createDirectories(REPORT_FOLDER);
+        try (PrintWriter report = new PrintWriter(Files.newBufferedWriter(REPORT_FOLDER.resolve("user-resource.txt")))) {
+            report.printf("# users=%d rate=%.0f/s warmup=%ds duration=%ds seed=%d max-concurrency=%d%n",
+                    USERS, RATE, WARMUP_SECONDS, DURATION_SECONDS, SEED, MAX_CONCURRENCY);
+            report.printf("%-8s %9s %7s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            List<String> errorLines = new ArrayList<>();
+            for (Map.Entry<String, Result> entry : results.entrySet()) {
+                Histogram histogram = entry.getValue().histogram();
+                report.printf("%-8s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(), histogram.getTotalCount(),
+                        entry.getValue().errors(), histogram.getTotalCount() / (double) DURATION_SECONDS,
+                        millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+                entry.getValue().errorStatuses().forEach((status, count) ->
+                        errorLines.add(String.format("#   %s: %s x%d", entry.getKey(), status == CONNECTION_FAILED ? "connection failed" : status, count)));
+                try (PrintStream distribution = new PrintStream(Files.newOutputStream(REPORT_FOLDER.resolve(entry.getKey() + ".hgrm")))) {
+                    histogram.outputPercentileDistribution(distribution, 1e6);
+                }
+            }
+            if (!errorLines.isEmpty()) {
+                report.println("# errors by status");
+                errorLines.forEach(report::println);
+            }
+        }
+        System.out.print(Files.readString(REPORT_FOLDER.resolve("user-resource.txt")));
+    }
+
+    /** Inserts the users directly, sharing one password hash, so seeding does not pay for thousands of BCrypt runs. */
+    private void seedUsers() {
+        String encodedPassword = passwordEncoder.encode(PASSWORD);
+        List<User> users = new ArrayList<>(USERS + 1);
+        for (int i = 0; i < USERS; i++) {
+            users.add(user("load" + i, "User" + i, encodedPassword, ROLE_USER.name(), ROLE_USER.getAuthorities()));
+        }
+        User admin = user("load-admin", "Admin", encodedPassword, ROLE_SUPER_ADMIN.name(), ROLE_SUPER_ADMIN.getAuthorities());
+        users.add(admin);
+        userRepository.saveAll(users);
+        users.forEach(user -> userIdentityFilter.add(user.getUsername(), user.getEmail()));
+        adminToken = jwtTokenProvider.generateJwttoken(new UserPrincipal(admin));
+    }
+
+    private static User user(String username, String lastName, String encodedPassword, String role, String[] authorities) {
+        return User.builder()
+                .userId(username)
+                .firstName("Load")
+                .lastName(lastName)
+                .username(username)
+                .email(username + "@ethanstore.com")
+                .password(encodedPassword)
+                .role(role)
+                .authorities(authorities)
+                .isActive(true)
+                .isNotLocked(true)
+                .joinDate(LocalDateTime.now())
+                .build();
+    }
+
+    private static Operation pick(List<Operation> mix, int roll) {
+        for (Operation operation : mix) {
+            roll -= operation.weight();
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Roll exceeds the total weight");
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(60));
+    }
+
+    private HttpRequest.Builder post(String path, String contentType, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private HttpRequest authorized(HttpRequest.Builder request) {
+        return request.header("Authorization", "Bearer " + adminToken).build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String username(SplittableRandom random) {
+        return "load" + random.nextInt(USERS);
+    }
+
+    private static String form(Map<String, String> fields) {
+        StringBuilder form = new StringBuilder();
+        fields.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(field -> form
+                .append(form.length() == 0 ? "" : "&").append(encode(field.getKey())).append('=').append(encode(field.getValue())));
+        return form.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private record Operation(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+    }
+
+    private record Result(Histogram histogram, Map<Integer, Long> errorStatuses) {
+
+        long errors() {
+            return errorStatuses.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ethanstore.api.resource;
+
+import com.ethanstore.api.service.ProfilingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
+
+@SpringBootTest
+class ProfilingResourceTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProfilingService profilingService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        profilingService.close();
+    }
+
+    @Test
+    void aSecondRecordingIsAConflict() throws Exception {
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/start").param("durationSeconds", "60"))).andExpect(status().isOk());
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/start").param("durationSeconds", "60"))).andExpect(status().isConflict());
+    }
+
+    @Test
+    void stoppingWithoutARecordingIsAConflict() throws Exception {
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/stop"))).andExpect(status().isConflict());
+    }
+
+    @Test
+    void durationsOverTheCapAreBadRequests() throws Exception {
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/start").param("durationSeconds", "601"))).andExpect(status().isBadRequest());
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/start").param("durationSeconds", "0"))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsTheRecordingAndDeletesItsFile() throws Exception {
+        List<Path> before = recordingFiles();
+        mockMvc.perform(asSuperAdmin(post("/admin/profiling/start").param("durationSeconds", "60"))).andExpect(status().isOk());
+
+        MvcResult stop = mockMvc.perform(asSuperAdmin(post("/admin/profiling/stop"))).andExpect(request().asyncStarted()).andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(stop)).andExpect(status().isOk()).andReturn();
+
+        assertTrue(streamed.getResponse().getContentAsByteArray().length > 0);
+        assertEquals(before, recordingFiles());
+    }
+
+    @Test
+    void onlySuperAdminsMayRecord() throws Exception {
+        mockMvc.perform(post("/admin/profiling/start").with(user("admin").authorities(() -> "user:update")))
+                .andExpect(status().isForbidden());
+    }
+
+    private static MockHttpServletRequestBuilder asSuperAdmin(MockHttpServletRequestBuilder request) {
+        return request.with(user("root").authorities(() -> "user:delete"));
+    }
+
+    private static List<Path> recordingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(file -> file.getFileName().toString().matches("ethan-store-.*\\.jfr")).sorted().toList();
+        }
+    }
+}
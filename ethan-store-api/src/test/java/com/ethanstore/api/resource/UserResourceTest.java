@@ -0,0 +1,60 @@
+package com.ethanstore.api.resource;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.UserNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class UserResourceTest {
+
+    private static final String USERNAME = "nobody-yet";
+
+    @Autowired
+    private UserResource userResource;
+
+    @Test
+    @WithMockUser(username = "mallory", authorities = "user:read")
+    void othersCannotReplaceAProfileImage() {
+        assertThrows(AccessDeniedException.class, () -> userResource.updateProfileImage(USERNAME, imageRequest()));
+        assertThrows(AccessDeniedException.class, () -> userResource.updateProfileImage(USERNAME, imageFile()));
+    }
+
+    @Test
+    @WithMockUser(username = USERNAME, authorities = "user:read")
+    void usersCanReplaceTheirOwn() {
+        // Past the check, and then there is no such user
+        assertThrows(UserNotFoundException.class, () -> userResource.updateProfileImage(USERNAME, imageRequest()));
+        assertThrows(UserNotFoundException.class, () -> userResource.updateProfileImage(USERNAME, imageFile()));
+    }
+
+    @Test
+    @WithMockUser(username = "hr", authorities = {"user:read", "user:update"})
+    void userEditorsCanReplaceAnyone() {
+        assertThrows(UserNotFoundException.class, () -> userResource.updateProfileImage(USERNAME, imageRequest()));
+    }
+
+    @Test
+    @WithMockUser(username = "hr", authorities = {"user:read", "user:update"})
+    void unknownRolesAreBadRequests() {
+        assertThrows(BadRequestException.class, () -> userResource.findAllUsers(null, 25, "id", "asc", "bogus", null, null));
+    }
+
+    private static MockHttpServletRequest imageRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/user/update-profile-image/" + USERNAME);
+        request.setContentType("image/png");
+        request.setContent(new byte[]{1, 2, 3});
+        return request;
+    }
+
+    private static MockMultipartFile imageFile() {
+        return new MockMultipartFile("profileImage", "avatar.png", "image/png", new byte[]{1, 2, 3});
+    }
+}
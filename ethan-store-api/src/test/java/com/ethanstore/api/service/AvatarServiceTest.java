@@ -0,0 +1,24 @@
+package com.ethanstore.api.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AvatarServiceTest {
+
+    @Test
+    void takesTheFirstTwoInitials() {
+        assertEquals("JD", AvatarService.getInitials("john+doe"));
+        assertEquals("JM", AvatarService.getInitials("  john  mary doe "));
+        assertEquals("R2", AvatarService.getInitials("r+2d2"));
+    }
+
+    @Test
+    void foldsInitialsToASmallAlphabet() {
+        assertEquals("EA", AvatarService.getInitials("élodie+Ångström"));
+        assertEquals("B", AvatarService.getInitials("李+bob"));
+        assertEquals("S", AvatarService.getInitials("Øyvind+sæther"));
+        assertEquals("?", AvatarService.getInitials("😀+李"));
+        assertEquals("?", AvatarService.getInitials("+"));
+    }
+}
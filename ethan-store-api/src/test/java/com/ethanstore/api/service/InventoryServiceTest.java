@@ -0,0 +1,385 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.Reservation;
+import com.ethanstore.api.event.ProductChangedEvent;
+import com.ethanstore.api.exception.domain.CapacityExceededException;
+import com.ethanstore.api.exception.domain.OutOfStockException;
+import com.ethanstore.api.exception.domain.ProductNotFoundException;
+import com.ethanstore.api.exception.domain.ReservationLimitExceededException;
+import com.ethanstore.api.exception.domain.ReservationNotFoundException;
+import com.ethanstore.api.repository.InventoryLeaseRepository;
+import com.ethanstore.api.repository.InventoryLeaseRepositoryImpl;
+import com.ethanstore.api.repository.ProductRepository;
+import com.ethanstore.api.repository.ProductRepositoryImpl;
+import com.ethanstore.api.repository.StockAdjustmentRepository;
+import com.ethanstore.api.repository.StockAdjustmentRepositoryImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Many threads reserving one hot product against an in-memory H2 {@code products} table, and nodes passing the
+ * inventory lease between them over the same tables. The throughput comparison,
+ * reserve-and-commit against the conditional row update a database-backed reservation would need, is tagged
+ * {@code load}; run it with {@code mvn test -P load-test -Dtest=InventoryServiceTest} and read
+ * {@code target/load-test/inventory-reservation.txt}.
+ */
+class InventoryServiceTest {
+
+    private static final long HOT_PRODUCT = 1L;
+    private static final long OTHER_PRODUCT = 2L;
+    private static final String OWNER = "buyer";
+    private static final int THREADS = Integer.getInteger("load.threads", 32);
+    private static final long DURATION_SECONDS = Long.getLong("load.duration-seconds", 5);
+    private static final int MAX_RESERVATIONS_PER_OWNER = 3;
+    private static final long LEASE_SECONDS = 3600;
+    private static final String ROW_LOCK_RESERVE_SQL = "update products set count_in_stock = count_in_stock - 1 where id = ? and count_in_stock >= 1";
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private ProductRepository productRepository;
+    private InventoryLeaseRepository leaseRepository;
+    private StockAdjustmentRepository adjustmentRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:inventory-test;MODE=PostgreSQL;DATABASE_TO_LOWER=true;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(THREADS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table products (id bigint primary key, count_in_stock int not null check (count_in_stock >= 0), version bigint, updated_at timestamp)");
+        jdbcTemplate.execute("create table inventory_leases (name varchar(255) primary key, owner varchar(255), expires_at bigint not null)");
+        jdbcTemplate.execute("create table stock_adjustments (id bigint generated by default as identity primary key, product_id bigint, "
+                + "version bigint not null, stock_change int not null, deleted boolean not null)");
+        productRepository = mock(ProductRepository.class, delegatesTo(new ProductRepositoryImpl(jdbcTemplate)));
+        leaseRepository = mock(InventoryLeaseRepository.class, delegatesTo(new InventoryLeaseRepositoryImpl(jdbcTemplate)));
+        adjustmentRepository = mock(StockAdjustmentRepository.class, delegatesTo(new StockAdjustmentRepositoryImpl(jdbcTemplate)));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table products");
+        jdbcTemplate.execute("drop table inventory_leases");
+        jdbcTemplate.execute("drop table stock_adjustments");
+        dataSource.close();
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        int stock = 20_000;
+        InventoryService inventory = inventory(stock);
+        ConcurrentLinkedQueue<Reservation> held = new ConcurrentLinkedQueue<>();
+        runOnThreads(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (true) {
+                try {
+                    Reservation reservation = inventory.reserve(HOT_PRODUCT, random.nextInt(1, 4), OWNER);
+                    if (random.nextInt(10) == 0) {
+                        inventory.release(reservation.getId(), OWNER);
+                    } else {
+                        held.add(reservation);
+                    }
+                } catch (OutOfStockException e) {
+                    if (inventory.getAvailable(HOT_PRODUCT) == 0) {
+                        return;
+                    }
+                }
+            }
+        });
+
+        assertEquals(stock, held.stream().mapToInt(Reservation::getQuantity).sum());
+        assertEquals(0, inventory.getAvailable(HOT_PRODUCT));
+        assertThrows(OutOfStockException.class, () -> inventory.reserve(HOT_PRODUCT, 1, OWNER));
+
+        for (Reservation reservation : held) {
+            inventory.commit(reservation.getId(), OWNER);
+        }
+        inventory.flush();
+        assertEquals(0, storedStock());
+    }
+
+    @Test
+    void expiredReservationsGoBackIntoStock() throws Exception {
+        InventoryService inventory = inventory(5);
+        Reservation first = inventory.reserve(HOT_PRODUCT, 3, OWNER);
+        Reservation second = inventory.reserve(HOT_PRODUCT, 2, OWNER);
+        assertThrows(OutOfStockException.class, () -> inventory.reserve(HOT_PRODUCT, 1, OWNER));
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        assertThrows(ReservationNotFoundException.class, () -> inventory.commit(first.getId(), OWNER));
+        assertEquals(3, inventory.getAvailable(HOT_PRODUCT));
+        inventory.expireReservations();
+        assertEquals(5, inventory.getAvailable(HOT_PRODUCT));
+        assertThrows(ReservationNotFoundException.class, () -> inventory.release(second.getId(), OWNER));
+    }
+
+    @Test
+    void onlyTheOwnerCanCommit() throws Exception {
+        InventoryService inventory = inventory(5);
+        Reservation reservation = inventory.reserve(HOT_PRODUCT, 2, OWNER);
+        assertThrows(ReservationNotFoundException.class, () -> inventory.commit(reservation.getId(), "someone-else"));
+        inventory.commit(reservation.getId(), OWNER);
+        assertThrows(ReservationNotFoundException.class, () -> inventory.release(reservation.getId(), OWNER));
+
+        assertEquals(5, storedStock());
+        inventory.flush();
+        assertEquals(3, storedStock());
+    }
+
+    @Test
+    void stockEditsApplyOnTopOfPendingSales() throws Exception {
+        InventoryService inventory = inventory(10);
+        inventory.commit(inventory.reserve(HOT_PRODUCT, 4, OWNER).getId(), OWNER);
+        Reservation held = inventory.reserve(HOT_PRODUCT, 5, OWNER);
+        assertEquals(1, inventory.getAvailable(HOT_PRODUCT));
+
+        // An admin sees 10 in the table before the sale is flushed and lowers it to 7
+        edit(inventory, 7, -3);
+        assertEquals(0, inventory.getAvailable(HOT_PRODUCT));
+        inventory.release(held.getId(), OWNER);
+        assertEquals(3, inventory.getAvailable(HOT_PRODUCT));
+
+        inventory.flush();
+        assertEquals(3, storedStock());
+    }
+
+    @Test
+    void capsOpenReservationsPerOwner() throws Exception {
+        jdbcTemplate.update("insert into products (id, count_in_stock) values (?, ?)", HOT_PRODUCT, 100);
+        InventoryService inventory = node("first", MAX_RESERVATIONS_PER_OWNER);
+        inventory.renewLease();
+        List<Reservation> held = new ArrayList<>();
+        for (int i = 0; i < MAX_RESERVATIONS_PER_OWNER; i++) {
+            held.add(inventory.reserve(HOT_PRODUCT, 1, OWNER));
+        }
+        assertThrows(ReservationLimitExceededException.class, () -> inventory.reserve(HOT_PRODUCT, 1, OWNER));
+        assertEquals(100 - MAX_RESERVATIONS_PER_OWNER, inventory.getAvailable(HOT_PRODUCT));
+        inventory.reserve(HOT_PRODUCT, 1, "someone-else");
+
+        inventory.release(held.get(0).getId(), OWNER);
+        inventory.commit(held.get(1).getId(), OWNER);
+        inventory.reserve(HOT_PRODUCT, 1, OWNER);
+        inventory.reserve(HOT_PRODUCT, 1, OWNER);
+        assertThrows(ReservationLimitExceededException.class, () -> inventory.reserve(HOT_PRODUCT, 1, OWNER));
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(61));
+        inventory.expireReservations();
+        for (int i = 0; i < MAX_RESERVATIONS_PER_OWNER; i++) {
+            inventory.reserve(HOT_PRODUCT, 1, OWNER);
+        }
+    }
+
+    @Test
+    void aFailedFlushIsRolledBackWholeAndAppliedOnce() throws Exception {
+        jdbcTemplate.update("insert into products (id, count_in_stock) values (?, ?)", OTHER_PRODUCT, 10);
+        InventoryService inventory = inventory(10);
+        inventory.commit(inventory.reserve(HOT_PRODUCT, 3, OWNER).getId(), OWNER);
+        inventory.commit(inventory.reserve(OTHER_PRODUCT, 4, OWNER).getId(), OWNER);
+
+        // The second row of the batch breaks the check constraint after the first was updated
+        jdbcTemplate.update("update products set count_in_stock = 2 where id = ?", OTHER_PRODUCT);
+        inventory.flush();
+        assertEquals(10, storedStock(HOT_PRODUCT));
+        assertEquals(2, storedStock(OTHER_PRODUCT));
+
+        jdbcTemplate.update("update products set count_in_stock = 10 where id = ?", OTHER_PRODUCT);
+        inventory.flush();
+        assertEquals(7, storedStock(HOT_PRODUCT));
+        assertEquals(6, storedStock(OTHER_PRODUCT));
+    }
+
+    @Test
+    void onlyTheLeaseHolderServes() throws Exception {
+        InventoryService first = inventory(10);
+        InventoryService second = node("second", Integer.MAX_VALUE);
+        second.renewLease();
+        assertFalse(second.isServing());
+        assertThrows(CapacityExceededException.class, () -> second.reserve(HOT_PRODUCT, 1, OWNER));
+        assertThrows(CapacityExceededException.class, () -> second.getAvailable(HOT_PRODUCT));
+
+        first.commit(first.reserve(HOT_PRODUCT, 4, OWNER).getId(), OWNER);
+        Reservation held = first.reserve(HOT_PRODUCT, 2, OWNER);
+        // The first node cannot reach the lease row for a whole lease, so it stops serving before the lease lapses
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(LEASE_SECONDS) * 2 / 3);
+        assertThrows(CapacityExceededException.class, () -> first.commit(held.getId(), OWNER));
+        first.flush();
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(LEASE_SECONDS) / 3 + 1);
+
+        second.renewLease();
+        assertTrue(second.isServing());
+        assertEquals(6, second.getAvailable(HOT_PRODUCT));
+        first.renewLease();
+        assertFalse(first.isServing());
+        assertThrows(CapacityExceededException.class, () -> first.getAvailable(HOT_PRODUCT));
+
+        second.commit(second.reserve(HOT_PRODUCT, 1, OWNER).getId(), OWNER);
+        second.flushOnShutdown();
+        assertEquals(5, storedStock(HOT_PRODUCT));
+        first.renewLease();
+        assertEquals(5, first.getAvailable(HOT_PRODUCT));
+    }
+
+    @Test
+    void stockEditsFromOtherNodesApplyOnceInVersionOrder() throws Exception {
+        InventoryService inventory = inventory(10);
+        // Another node raised the stock to 15 and then lowered it to 12
+        adjust(HOT_PRODUCT, 1, 5, false);
+        adjust(HOT_PRODUCT, 2, -3, false);
+        inventory.applyAdjustments();
+        assertEquals(12, inventory.getAvailable(HOT_PRODUCT));
+
+        // This node's own edit arrives as an event and then again from the journal
+        Product edited = Product.builder().id(HOT_PRODUCT).countInStock(20).version(3L).build();
+        inventory.onProductChanged(ProductChangedEvent.saved(edited, 8));
+        adjust(HOT_PRODUCT, 3, 8, false);
+        adjust(HOT_PRODUCT, 2, -3, false);
+        inventory.applyAdjustments();
+        assertEquals(20, inventory.getAvailable(HOT_PRODUCT));
+
+        adjust(OTHER_PRODUCT, 0, 7, false);
+        adjust(HOT_PRODUCT, 0, 0, true);
+        adjust(HOT_PRODUCT, 4, 1, false);
+        inventory.applyAdjustments();
+        assertEquals(7, inventory.getAvailable(OTHER_PRODUCT));
+        assertThrows(ProductNotFoundException.class, () -> inventory.getAvailable(HOT_PRODUCT));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from stock_adjustments", Long.class));
+    }
+
+    @Test
+    @Tag("load")
+    void hotProductThroughputAgainstRowLocks() throws Exception {
+        InventoryService inventory = inventory(Integer.MAX_VALUE);
+        LongAdder reservations = new LongAdder();
+        long inventoryNanos = runFor(() -> {
+            inventory.commit(inventory.reserve(HOT_PRODUCT, 1, OWNER).getId(), OWNER);
+            reservations.increment();
+        });
+        assertEquals(Integer.MAX_VALUE - reservations.sum(), inventory.getAvailable(HOT_PRODUCT));
+        inventory.flush();
+        assertEquals(Integer.MAX_VALUE - reservations.sum(), storedStock());
+        jdbcTemplate.update("update products set count_in_stock = ? where id = ?", Integer.MAX_VALUE, HOT_PRODUCT);
+
+        LongAdder rowUpdates = new LongAdder();
+        long rowLockNanos = runFor(() -> {
+            assertEquals(1, jdbcTemplate.update(ROW_LOCK_RESERVE_SQL, HOT_PRODUCT));
+            rowUpdates.increment();
+        });
+        assertEquals(Integer.MAX_VALUE - rowUpdates.sum(), storedStock());
+
+        double inventoryRate = reservations.sum() * 1e9 / inventoryNanos;
+        double rowLockRate = rowUpdates.sum() * 1e9 / rowLockNanos;
+        String report = String.format("%d threads on one product for %d s%n%-24s%14.0f/s%n%-24s%14.0f/s%n",
+                THREADS, DURATION_SECONDS, "InventoryService", inventoryRate, "row lock UPDATE", rowLockRate);
+        write(report);
+        System.out.print(report);
+        assertTrue(inventoryRate > rowLockRate, report);
+    }
+
+    private InventoryService inventory(int stock) {
+        jdbcTemplate.update("insert into products (id, count_in_stock) values (?, ?)", HOT_PRODUCT, stock);
+        InventoryService inventory = node("first", Integer.MAX_VALUE);
+        inventory.renewLease();
+        return inventory;
+    }
+
+    private InventoryService node(String nodeId, int maxReservationsPerOwner) {
+        return new InventoryService(productRepository, leaseRepository, adjustmentRepository, transactionTemplate, nodeId,
+                0, 60, 10, 10_000_000, maxReservationsPerOwner, LEASE_SECONDS, new SimpleMeterRegistry(), clock::get);
+    }
+
+    private void adjust(long productId, long version, int stockChange, boolean deleted) {
+        jdbcTemplate.update("insert into stock_adjustments (product_id, version, stock_change, deleted) values (?, ?, ?, ?)",
+                productId, version, stockChange, deleted);
+    }
+
+    private void edit(InventoryService inventory, int countInStock, int stockChange) {
+        jdbcTemplate.update("update products set count_in_stock = ? where id = ?", countInStock, HOT_PRODUCT);
+        Product product = Product.builder().id(HOT_PRODUCT).countInStock(countInStock).build();
+        inventory.onProductChanged(ProductChangedEvent.saved(product, stockChange));
+    }
+
+    private long storedStock() {
+        return storedStock(HOT_PRODUCT);
+    }
+
+    private long storedStock(long productId) {
+        return jdbcTemplate.queryForObject("select count_in_stock from products where id = ?", Long.class, productId);
+    }
+
+    private long runFor(ThrowingRunnable operation) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        long start = System.nanoTime();
+        runOnThreads(() -> {
+            while (System.nanoTime() < deadline) {
+                operation.run();
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private void runOnThreads(ThrowingRunnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void write(String report) throws IOException {
+        Path folder = Path.of("target", "load-test");
+        Files.createDirectories(folder);
+        Files.writeString(folder.resolve("inventory-reservation.txt"), report);
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
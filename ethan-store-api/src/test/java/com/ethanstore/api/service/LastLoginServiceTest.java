@@ -0,0 +1,90 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.LastLogin;
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class LastLoginServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final LastLoginService lastLogins = new LastLoginService(userRepository, 2);
+    private final List<List<LastLogin>> written = new ArrayList<>();
+
+    @Test
+    void writesPendingLoginsInBatchesOfTheConfiguredSize() {
+        recordWrites();
+        for (String username : List.of("alice", "bob", "carol", "dave", "erin")) {
+            lastLogins.recordLogin(username);
+        }
+        lastLogins.recordLogin("alice");
+        assertEquals(5, lastLogins.getPendingCount());
+
+        lastLogins.flush();
+        assertEquals(List.of(2, 2, 1), written.stream().map(List::size).toList());
+        assertEquals(0, lastLogins.getPendingCount());
+        // Alice's two logins went out as one row, showing the first
+        LastLogin alice = written.stream().flatMap(List::stream).filter(login -> login.getUsername().equals("alice")).findFirst().orElseThrow();
+        assertNotNull(alice.getPreviousLogin());
+
+        lastLogins.flush();
+        assertEquals(3, written.size());
+    }
+
+    @Test
+    void requeuesAFailedBatchUnderLoginsRecordedMeanwhile() {
+        doAnswer(invocation -> {
+            // A login arrives while the failing batch is out
+            lastLogins.recordLogin("alice");
+            throw new QueryTimeoutException("timed out");
+        }).doAnswer(invocation -> {
+            written.add(new ArrayList<>(invocation.<Collection<LastLogin>>getArgument(0)));
+            return new int[]{1};
+        }).when(userRepository).batchUpdateLastLogin(any());
+        lastLogins.recordLogin("alice");
+
+        lastLogins.flush();
+        assertEquals(1, lastLogins.getPendingCount());
+        User user = lastLogins.withPendingLogin(User.builder().username("alice").lastLoginDate(LocalDateTime.MIN).build());
+
+        lastLogins.flush();
+        assertEquals(1, written.size());
+        LastLogin merged = written.get(0).get(0);
+        assertNotNull(merged.getPreviousLogin());
+        // The failed login becomes the one shown, and the stored date is no longer used for it
+        assertEquals(merged.getPreviousLogin(), user.getLastLoginDateDisplay());
+        assertEquals(merged.getLatestLogin(), user.getLastLoginDate());
+        assertEquals(0, lastLogins.getPendingCount());
+    }
+
+    @Test
+    void showsThePendingLoginOverTheStoredOne() {
+        LocalDateTime stored = LocalDateTime.of(2024, 1, 1, 9, 0);
+        lastLogins.recordLogin("alice");
+        User user = lastLogins.withPendingLogin(User.builder().username("alice").lastLoginDate(stored).build());
+        assertEquals(stored, user.getLastLoginDateDisplay());
+        User other = lastLogins.withPendingLogin(User.builder().username("bob").lastLoginDate(stored).build());
+        assertEquals(stored, other.getLastLoginDate());
+        assertNull(other.getLastLoginDateDisplay());
+    }
+
+    private void recordWrites() {
+        doAnswer(invocation -> {
+            written.add(new ArrayList<>(invocation.<Collection<LastLogin>>getArgument(0)));
+            return new int[0];
+        }).when(userRepository).batchUpdateLastLogin(any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.event.ProductChangedEvent;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Runs against an index on the heap, as with a blank {@code ethanstore.product-search.index-dir}. */
+class ProductSearchServiceTest {
+
+    private ProductSearchService search;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        search = new ProductSearchService("");
+        search.open();
+        search.rebuild(List.of(
+                product(1, "Airpods Wireless Bluetooth Headphones", "Apple", "Bluetooth technology lets you connect it with compatible devices", 4.5, 12),
+                product(2, "iPhone 11 Pro 256GB Memory", "Apple", "Introducing the iPhone 11 Pro", 4.0, 8),
+                product(3, "Cannon EOS 80D DSLR Camera", "Canon", "Characterized by versatile imaging specs", 3.0, 12),
+                product(4, "Sony Playstation 4 Pro White Version", "Sony", "The ultimate home entertainment center", 5.0, 12),
+                product(5, "Logitech G-Series Gaming Mouse", "Logitech", "Get a better handle on your games", 3.5, 10),
+                product(6, "Amazon Echo Dot 3rd Generation", "Amazon", "Meet Echo Dot - Our most popular smart speaker", 4.0, 12)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        search.close();
+    }
+
+    @Test
+    void toleratesOneTypo() {
+        assertEquals(List.of(3L), ids("canon camra"));
+        assertEquals(List.of(4L), ids("playstaton"));
+    }
+
+    @Test
+    void matchesTheLastTermAsAPrefix() {
+        assertEquals(List.of(1L), ids("wireless headph"));
+        assertEquals(List.of("Logitech G-Series Gaming Mouse"), search.suggest("gam", 5));
+        assertTrue(ids("headph wireless").isEmpty());
+    }
+
+    @Test
+    void matchesOnlyPrefixesOfThreeLettersOrMore() {
+        assertEquals(List.of(4L), ids("son"));
+        assertTrue(ids("so").isEmpty());
+        assertTrue(ids("p").isEmpty());
+        assertTrue(search.suggest("ga", 5).isEmpty());
+        // Short terms still match exactly
+        assertEquals(List.of(2L), ids("iphone 11"));
+    }
+
+    @Test
+    void ranksBetterRatedAndMoreReviewedProductsFirst() throws IOException {
+        Product plain = product(1, "Studio Monitor Speaker", "Acme", "", 2.0, 5);
+        search.rebuild(List.of(plain, product(2, "Studio Monitor Speaker", "Acme", "", 4.8, 5)));
+        assertEquals(List.of(2L, 1L), ids("studio speaker"));
+        search.rebuild(List.of(plain, product(3, "Studio Monitor Speaker", "Acme", "", 2.0, 500)));
+        assertEquals(List.of(3L, 1L), ids("studio speaker"));
+    }
+
+    @Test
+    void followsUpdatesAndDeletesOnceRefreshed() throws IOException {
+        search.onProductChanged(ProductChangedEvent.saved(product(5, "Logitech MX Keyboard", "Logitech", "", 3.5, 10), 0));
+        search.onProductChanged(ProductChangedEvent.saved(product(7, "Sony WH-1000XM4 Headphones", "Sony", "", 4.7, 300), 0));
+        search.onProductChanged(ProductChangedEvent.deleted(1L));
+        assertEquals(List.of(5L), ids("mouse"));
+
+        search.refresh();
+        assertTrue(ids("mouse").isEmpty());
+        assertEquals(List.of(5L), ids("keyboard"));
+        assertEquals(List.of(7L), ids("headphones"));
+        assertEquals(6, search.size());
+    }
+
+    @Test
+    void rejectsOverlongQueries() {
+        assertThrows(BadRequestException.class, () -> search.search("a".repeat(201), 0, 10));
+        assertThrows(BadRequestException.class, () -> search.search("one two three four five six seven", 0, 10));
+        assertThrows(BadRequestException.class, () -> search.suggest("one two three four five six seven", 10));
+        assertEquals(List.of(1L), ids("apple airpods wireless bluetooth headphones connect"));
+        assertTrue(search.search("  ", 0, 10).ids().isEmpty());
+    }
+
+    private List<Long> ids(String text) {
+        return search.search(text, 0, 10).ids();
+    }
+
+    private static Product product(long id, String name, String brand, String description, double rating, int numReviews) {
+        return Product.builder().id(id).name(name).brand(brand).description(description).rating(rating).numReviews(numReviews).build();
+    }
+}
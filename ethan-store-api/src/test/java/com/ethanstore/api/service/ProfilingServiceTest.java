@@ -0,0 +1,88 @@
+package com.ethanstore.api.service;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.ProfilingStateException;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfilingServiceTest {
+
+    private static final long MAX_SIZE_BYTES = 5_000_000;
+
+    private ProfilingService profilingService;
+
+    @BeforeEach
+    void setUp() throws IOException, ParseException {
+        profilingService = new ProfilingService("default", 120, MAX_SIZE_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        profilingService.close();
+    }
+
+    @Test
+    void runsOneRecordingAtATime() throws Exception {
+        profilingService.start(Duration.ofSeconds(60));
+        assertThrows(ProfilingStateException.class, () -> profilingService.start(Duration.ofSeconds(60)));
+
+        Path file = profilingService.stop();
+        try {
+            assertTrue(Files.size(file) > 0);
+        } finally {
+            Files.delete(file);
+        }
+        assertThrows(ProfilingStateException.class, profilingService::stop);
+
+        profilingService.start(Duration.ofSeconds(60));
+        Files.delete(profilingService.stop());
+    }
+
+    @Test
+    void replacesARecordingThatStoppedByItself() throws Exception {
+        profilingService.start(Duration.ofSeconds(1));
+        Recording first = onDemandRecording();
+        first.stop();
+
+        profilingService.start(Duration.ofSeconds(60));
+        assertEquals(RecordingState.CLOSED, first.getState());
+        assertNotSame(first, onDemandRecording());
+        Files.delete(profilingService.stop());
+    }
+
+    @Test
+    void capsTheDurationAndTheSize() throws Exception {
+        assertThrows(BadRequestException.class, () -> profilingService.start(Duration.ZERO));
+        assertThrows(BadRequestException.class, () -> profilingService.start(Duration.ofSeconds(-1)));
+        assertThrows(BadRequestException.class, () -> profilingService.start(Duration.ofSeconds(121)));
+
+        profilingService.start(Duration.ofSeconds(120));
+        Recording recording = onDemandRecording();
+        assertEquals(Duration.ofSeconds(120), recording.getDuration());
+        assertEquals(MAX_SIZE_BYTES, recording.getMaxSize());
+        assertTrue(recording.isToDisk());
+        Files.delete(profilingService.stop());
+    }
+
+    private static Recording onDemandRecording() {
+        return FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .filter(recording -> recording.getName().equals("ethan-store-on-demand"))
+                .reduce((first, last) -> last)
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ethanstore.api.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ethanstore.api.enumeration.LoginAttemptKeyType.SOURCE;
+import static com.ethanstore.api.enumeration.LoginAttemptKeyType.USERNAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two stores stand in for two API nodes sharing one H2 file database.
+ */
+class JdbcLoginAttemptStoreTest {
+
+    private static final String SHARED_DB_URL = "jdbc:h2:file:./target/login-attempts-test;MODE=PostgreSQL;DATABASE_TO_LOWER=true;AUTO_SERVER=TRUE";
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcLoginAttemptStore nodeA;
+    private JdbcLoginAttemptStore nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(SHARED_DB_URL, "sa", ""));
+        nodeA = node();
+        nodeB = node();
+        jdbcTemplate.update("delete from login_attempts");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table login_attempts");
+    }
+
+    @Test
+    void failuresOnOneNodeCountOnTheOther() {
+        for (int i = 0; i < 3; i++) {
+            nodeA.recordFailure(USERNAME, "alice");
+        }
+        nodeB.recordFailure(USERNAME, "alice");
+        nodeB.recordFailure(USERNAME, "alice");
+        assertEquals(3, nodeA.countFailures(USERNAME, "alice"));
+        assertEquals(2, nodeB.countFailures(USERNAME, "alice"));
+
+        nodeA.flush();
+        nodeB.flush();
+        assertEquals(5, node().countFailures(USERNAME, "alice"));
+        assertEquals(0, node().countFailures(SOURCE, "alice"));
+    }
+
+    @Test
+    void cachedCountsIncludeOwnFlushedFailures() {
+        assertEquals(0, nodeA.countFailures(USERNAME, "alice"));
+        nodeA.recordFailure(USERNAME, "alice");
+        nodeA.flush();
+        nodeA.recordFailure(USERNAME, "alice");
+        assertEquals(2, nodeA.countFailures(USERNAME, "alice"));
+    }
+
+    @Test
+    void resetOnOneNodeClearsTheSharedCount() {
+        nodeA.recordFailure(USERNAME, "alice");
+        nodeA.recordFailure(USERNAME, "alice");
+        nodeA.flush();
+        assertEquals(2, nodeB.countFailures(USERNAME, "alice"));
+
+        nodeB.reset(USERNAME, "alice");
+        assertEquals(0, nodeB.countFailures(USERNAME, "alice"));
+        assertEquals(0, node().countFailures(USERNAME, "alice"));
+    }
+
+    @Test
+    void failuresLeaveTheWindow() {
+        nodeA.recordFailure(USERNAME, "alice");
+        nodeA.flush();
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        nodeA.recordFailure(USERNAME, "alice");
+        nodeA.flush();
+        assertEquals(2, node().countFailures(USERNAME, "alice"));
+
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(6));
+        assertEquals(1, node().countFailures(USERNAME, "alice"));
+
+        nodeA.deleteExpired();
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from login_attempts", Integer.class));
+    }
+
+    private JdbcLoginAttemptStore node() {
+        JdbcLoginAttemptStore store = new JdbcLoginAttemptStore(jdbcTemplate, 900, 60_000, 500, clock::get);
+        store.createTable();
+        return store;
+    }
+}
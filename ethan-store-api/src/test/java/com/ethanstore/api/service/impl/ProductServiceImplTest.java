@@ -0,0 +1,103 @@
+package com.ethanstore.api.service.impl;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductRequest;
+import com.ethanstore.api.exception.domain.BadRequestException;
+import com.ethanstore.api.exception.domain.StaleProductException;
+import com.ethanstore.api.repository.ProductRepository;
+import com.ethanstore.api.service.InventoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class ProductServiceImplTest {
+
+    private static final String BUYER = "buyer";
+
+    @Autowired
+    private ProductServiceImpl productService;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void sellFlushThenEditThePriceOnly() throws Exception {
+        Product added = productService.addNewProduct(speaker().build());
+        Long id = added.getId();
+        inventoryService.commit(inventoryService.reserve(id, 4, BUYER).getId(), BUYER);
+        inventoryService.flush();
+
+        // The count shown before the sale would put the 4 sold units back
+        ProductRequest stale = edit(productService.findProductById(id)).price(new BigDecimal("90.00")).build();
+        assertThrows(StaleProductException.class, () -> productService.updateProduct(id, stale));
+        stale.setVersion(null);
+        assertThrows(BadRequestException.class, () -> productService.updateProduct(id, stale));
+
+        productService.syncIndex();
+        Product current = productService.findProductById(id);
+        assertEquals(6, current.getCountInStock());
+        productService.updateProduct(id, edit(current).price(new BigDecimal("90.00")).build());
+
+        assertEquals(6, inventoryService.getAvailable(id));
+        assertEquals(6, productRepository.findById(id).orElseThrow().getCountInStock());
+        productService.syncIndex();
+        assertEquals(new BigDecimal("90.00"), productService.findProductById(id).getPrice());
+        assertEquals(6, productService.findProductById(id).getCountInStock());
+    }
+
+    @Test
+    void invalidProductsAreRefused() {
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().name(null).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().brand(" ").build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().price(null).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().price(new BigDecimal("-0.01")).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().countInStock(-1).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().countInStock(null).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().rating(Double.NaN).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().rating(5.5).build()));
+        assertThrows(BadRequestException.class, () -> productService.addNewProduct(speaker().numReviews(-3).build()));
+
+        Product added = productService.addNewProduct(speaker().build());
+        assertEquals(0, added.getRating());
+        assertEquals(0, added.getNumReviews());
+    }
+
+    @Test
+    void partialUpdatesAreRefused() throws Exception {
+        Product added = productService.addNewProduct(speaker().build());
+        ProductRequest priceOnly = ProductRequest.builder().price(new BigDecimal("90.00")).version(added.getVersion()).build();
+        assertThrows(BadRequestException.class, () -> productService.updateProduct(added.getId(), priceOnly));
+
+        ProductRequest withoutStock = edit(added).countInStock(null).build();
+        assertThrows(BadRequestException.class, () -> productService.updateProduct(added.getId(), withoutStock));
+        assertEquals(10, productRepository.findById(added.getId()).orElseThrow().getCountInStock());
+    }
+
+    private static ProductRequest.ProductRequestBuilder speaker() {
+        return ProductRequest.builder()
+                .name("Studio Monitor Speaker").brand("Acme").category("Audio").price(new BigDecimal("100.00")).countInStock(10);
+    }
+
+    private static ProductRequest.ProductRequestBuilder edit(Product product) {
+        return ProductRequest.builder()
+                .name(product.getName())
+                .image(product.getImage())
+                .description(product.getDescription())
+                .brand(product.getBrand())
+                .category(product.getCategory())
+                .price(product.getPrice())
+                .countInStock(product.getCountInStock())
+                .rating(product.getRating())
+                .numReviews(product.getNumReviews())
+                .version(product.getVersion());
+    }
+}
@@ -0,0 +1,106 @@
+package com.ethanstore.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void givesEachPriorityItsShareOfTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 100);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(0.5));
+        }
+        assertFalse(limiter.tryAcquire(0.5));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(0.8));
+        }
+        assertFalse(limiter.tryAcquire(0.8));
+        assertFalse(limiter.tryAcquire(0.5));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertFalse(limiter.tryAcquire(1.0));
+        assertEquals(10, limiter.getInFlight());
+
+        limiter.release();
+        assertFalse(limiter.tryAcquire(0.8));
+        assertTrue(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    void growsByOnePerRoundWhileBusyAndFast() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 100);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(1.0));
+        }
+        for (int i = 0; i < 10; i++) {
+            limiter.release(FAST);
+            assertTrue(limiter.tryAcquire(1.0));
+        }
+        assertEquals(10, limiter.getLimit());
+        limiter.release(FAST);
+        assertEquals(11, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(1.0));
+        assertTrue(limiter.tryAcquire(1.0));
+        assertFalse(limiter.tryAcquire(1.0));
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdleOrPastTheMaximum() {
+        AdaptiveConcurrencyLimiter idle = limiter(10, 100);
+        for (int i = 0; i < 1000; i++) {
+            sample(idle, FAST);
+        }
+        assertEquals(10, idle.getLimit());
+
+        AdaptiveConcurrencyLimiter busy = limiter(10, 12);
+        for (int i = 0; i < 10; i++) {
+            busy.tryAcquire(1.0);
+        }
+        for (int i = 0; i < 1000; i++) {
+            busy.release(FAST);
+            busy.tryAcquire(1.0);
+        }
+        assertEquals(12, busy.getLimit());
+    }
+
+    @Test
+    void halvesOncePerRoundWhenSlowDownToTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 100);
+        for (int i = 0; i < 10; i++) {
+            sample(limiter, FAST);
+        }
+        sample(limiter, SLOW);
+        assertEquals(5, limiter.getLimit());
+        for (int i = 0; i < 4; i++) {
+            sample(limiter, SLOW);
+        }
+        assertEquals(5, limiter.getLimit());
+        sample(limiter, SLOW);
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            sample(limiter, SLOW);
+        }
+        assertEquals(1, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(0.5));
+        assertFalse(limiter.tryAcquire(1.0));
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, 1, maxLimit, 2.0, 0.5, 100);
+    }
+
+    private static void sample(AdaptiveConcurrencyLimiter limiter, long rttNanos) {
+        assertTrue(limiter.tryAcquire(1.0));
+        limiter.release(rttNanos);
+    }
+}
@@ -0,0 +1,99 @@
+package com.ethanstore.api.util;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPrincipal;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static com.ethanstore.api.constant.Authority.*;
+import static com.ethanstore.api.constant.SecurityConstant.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuthorityCodecTest {
+
+    private static final String SECRET = "authority-codec-test-secret";
+
+    @Test
+    void everyCombinationOfBitsRoundTrips() {
+        for (int bits = 0; bits < 1 << AUTHORITY_BITS.length; bits++) {
+            List<GrantedAuthority> authorities = AuthorityCodec.decode(bits);
+            assertEquals(Integer.bitCount(bits), authorities.size());
+            assertEquals(bits, AuthorityCodec.encode(authorities));
+            assertSame(authorities, AuthorityCodec.decode(AuthorityCodec.encode(names(authorities))));
+        }
+        for (String[] role : List.of(USER_AUTHORITIES, HR_AUTHORITIES, MANAGER_AUTHORITIES, ADMIN_AUTHORITIES, SUPER_ADMIN_AUTHORITIES)) {
+            List<GrantedAuthority> authorities = AuthorityCodec.toGrantedAuthorities(role);
+            assertEquals(Set.of(role), Set.of(names(authorities)));
+            assertSame(authorities, AuthorityCodec.decode(AuthorityCodec.encode(role)));
+        }
+    }
+
+    @Test
+    void unknownBitsDecodeToNothing() {
+        assertNull(AuthorityCodec.decode(1 << AUTHORITY_BITS.length));
+        assertNull(AuthorityCodec.decode(Integer.MAX_VALUE));
+        assertNull(AuthorityCodec.decode(-1));
+    }
+
+    @Test
+    void authoritiesWithoutABitFallBackToNames() {
+        String[] authorities = {"user:read", "report:export"};
+        assertEquals(AuthorityCodec.NOT_ENCODABLE, AuthorityCodec.encode(authorities));
+        assertEquals(AuthorityCodec.NOT_ENCODABLE, AuthorityCodec.encode(List.of(new SimpleGrantedAuthority("report:export"))));
+        assertEquals(List.of(authorities), Arrays.asList(names(AuthorityCodec.toGrantedAuthorities(authorities))));
+    }
+
+    @Test
+    void tokensCarryTheBitmaskAndRejectOtherVersions() {
+        JwtTokenProvider provider = provider();
+        User user = User.builder().username("alice").authorities(ADMIN_AUTHORITIES).build();
+        String token = provider.generateJwttoken(new UserPrincipal(user));
+        assertEquals(AuthorityCodec.encode(ADMIN_AUTHORITIES), JWT.decode(token).getClaim(AUTHORITY_BITS_CLAIM).asInt());
+        assertSame(AuthorityCodec.toGrantedAuthorities(ADMIN_AUTHORITIES), provider.getAuthorities(token));
+
+        String oldVersion = signed(AuthorityCodec.encode(ADMIN_AUTHORITIES), AUTHORITY_BITS_VERSION - 1);
+        assertThrows(JWTVerificationException.class, () -> provider.getAuthorities(oldVersion));
+        String unversioned = JWT.create().withIssuer(GET_ARRAYS_LLC).withSubject("alice")
+                .withClaim(AUTHORITY_BITS_CLAIM, 1).sign(Algorithm.HMAC512(SECRET.getBytes()));
+        assertThrows(JWTVerificationException.class, () -> provider.getAuthorities(unversioned));
+        String unknownBits = signed(1 << AUTHORITY_BITS.length, AUTHORITY_BITS_VERSION);
+        assertThrows(JWTVerificationException.class, () -> provider.getAuthorities(unknownBits));
+    }
+
+    private static JwtTokenProvider provider() {
+        JwtTokenProvider provider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(provider, "secret", SECRET);
+        ReflectionTestUtils.setField(provider, "verifiedCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(provider, "verifiedCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(provider, "compactAuthorities", true);
+        provider.init();
+        return provider;
+    }
+
+    private static String signed(int authorityBits, int version) {
+        return JWT.create()
+                .withIssuer(GET_ARRAYS_LLC)
+                .withSubject("alice")
+                .withClaim(AUTHORITY_BITS_CLAIM, authorityBits)
+                .withClaim(AUTHORITY_BITS_VERSION_CLAIM, version)
+                .withExpiresAt(new Date(System.currentTimeMillis() + 60_000))
+                .sign(Algorithm.HMAC512(SECRET.getBytes()));
+    }
+
+    private static String[] names(List<GrantedAuthority> authorities) {
+        return authorities.stream().map(GrantedAuthority::getAuthority).toArray(String[]::new);
+    }
+}
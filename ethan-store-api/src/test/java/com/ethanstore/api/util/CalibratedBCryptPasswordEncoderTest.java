@@ -0,0 +1,46 @@
+package com.ethanstore.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CalibratedBCryptPasswordEncoderTest {
+
+    private final CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(12, 10);
+
+    @Test
+    void keepsHashesFromNodesCalibratedOneApart() {
+        assertFalse(encoder.upgradeEncoding(hash(11)));
+        assertFalse(encoder.upgradeEncoding(hash(12)));
+        assertFalse(encoder.upgradeEncoding(hash(13)));
+    }
+
+    @Test
+    void upgradesHashesWellBelowTheLocalCost() {
+        assertTrue(encoder.upgradeEncoding(hash(10)));
+        assertTrue(encoder.upgradeEncoding(hash(4)));
+    }
+
+    @Test
+    void rehashesHashesWellAboveTheLocalCost() {
+        assertTrue(encoder.upgradeEncoding(hash(14)));
+        assertTrue(encoder.upgradeEncoding(hash(31)));
+        // Calibrated down to the floor, hashes one above it stay
+        CalibratedBCryptPasswordEncoder fastNode = new CalibratedBCryptPasswordEncoder(10, 10);
+        assertFalse(fastNode.upgradeEncoding(hash(11)));
+        assertTrue(fastNode.upgradeEncoding(hash(12)));
+    }
+
+    @Test
+    void upgradesHashesBelowTheFloor() {
+        CalibratedBCryptPasswordEncoder slowNode = new CalibratedBCryptPasswordEncoder(11, 11);
+        assertTrue(slowNode.upgradeEncoding(hash(10)));
+        assertFalse(slowNode.upgradeEncoding(hash(11)));
+        assertFalse(slowNode.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    private static String hash(int strength) {
+        return String.format("$2a$%02d$abcdefghijklmnopqrstuuY5b4mJ3xj6mZ0yI8vS9bq3lU7Q9y1pW", strength);
+    }
+}
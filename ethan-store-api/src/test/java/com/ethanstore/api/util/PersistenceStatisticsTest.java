@@ -0,0 +1,53 @@
+package com.ethanstore.api.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PersistenceStatisticsTest {
+
+    @AfterEach
+    void tearDown() {
+        PersistenceStatistics.stop();
+    }
+
+    @Test
+    void countsWhatTheCurrentThreadAskedFor() {
+        PersistenceStatistics statistics = PersistenceStatistics.start();
+        PersistenceStatistics.statementPrepared("select * from users where id = ?");
+        PersistenceStatistics.rowsReturned(3);
+        PersistenceStatistics.entityLoaded();
+        PersistenceStatistics.jdbcExecuted(2_500_000);
+
+        assertEquals(1, statistics.getStatements());
+        assertEquals(3, statistics.getRows());
+        assertEquals(1, statistics.getEntities());
+        assertEquals("db;dur=2.500;desc=\"1 statements, 3 rows, 1 entities\"", statistics.toServerTiming());
+    }
+
+    @Test
+    void reportsTheMostRepeatedStatement() {
+        PersistenceStatistics statistics = PersistenceStatistics.start();
+        PersistenceStatistics.statementPrepared("select * from products");
+        for (int i = 0; i < 3; i++) {
+            PersistenceStatistics.statementPrepared("select * from brands where id = ?");
+        }
+
+        assertEquals(4, statistics.getStatements());
+        assertEquals(3, statistics.getMostRepeatedCount());
+        assertEquals("select * from brands where id = ?", statistics.getMostRepeatedStatement());
+    }
+
+    @Test
+    void ignoresThreadsThatAreNotCollecting() throws InterruptedException {
+        PersistenceStatistics statistics = PersistenceStatistics.start();
+        Thread other = new Thread(() -> PersistenceStatistics.statementPrepared("select 1"));
+        other.start();
+        other.join();
+
+        assertEquals(0, statistics.getStatements());
+        assertNull(statistics.getMostRepeatedStatement());
+    }
+}
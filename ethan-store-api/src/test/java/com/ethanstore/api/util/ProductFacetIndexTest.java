@@ -0,0 +1,214 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductQuery;
+import com.ethanstore.api.enumeration.ProductSortField;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the index against a plain filter-and-sort over the same products, through random writes and queries that
+ * exercise every filter, sort order and facet counting path.
+ */
+class ProductFacetIndexTest {
+
+    private static final String[] BRANDS = {"Apple", "Sony", "Canon", "Logitech", "Amazon", null};
+    private static final String[] CATEGORIES = {"Electronics", "Cameras", "Audio", null};
+
+    private final Random random = new Random(42);
+    private final Map<Long, Product> catalog = new HashMap<>();
+    private final ProductFacetIndex index = new ProductFacetIndex();
+    private long nextId = 1;
+
+    @Test
+    void matchesABruteForceSearchThroughRandomWrites() {
+        for (int i = 0; i < 3000; i++) {
+            Product product = randomProduct(nextId++);
+            catalog.put(product.getId(), product);
+        }
+        index.load(catalog.values());
+        for (int round = 0; round < 40; round++) {
+            for (int i = 0; i < 100; i++) {
+                randomWrite();
+            }
+            for (int i = 0; i < 25; i++) {
+                assertSameResult(randomQuery());
+            }
+        }
+        assertEquals(catalog.size(), index.size());
+    }
+
+    @Test
+    void ignoresStaleVersionsAndRemovedProducts() {
+        index.put(product(1, 2, "10.00"));
+        assertFalse(index.put(product(1, 1, "5.00")));
+        assertFalse(index.put(product(1, 2, "5.00")));
+        assertEquals(new BigDecimal("10.00"), index.get(1).getPrice());
+        assertTrue(index.put(product(1, 3, "7.00")));
+        assertEquals(new BigDecimal("7.00"), index.get(1).getPrice());
+
+        index.remove(1);
+        assertFalse(index.put(product(1, 4, "8.00")));
+        assertNull(index.get(1));
+        index.forgetRemovalsBefore(System.currentTimeMillis() + 1);
+        assertTrue(index.put(product(1, 4, "8.00")));
+    }
+
+    @Test
+    void clampsPriceBoundsBeyondALong() {
+        index.put(product(1, 0, "0.00"));
+        index.put(product(2, 0, "99999999.99"));
+        assertEquals(2, index.search(query(new BigDecimal("-1e40"), new BigDecimal("1e40"))).getTotal());
+        assertEquals(2, index.search(query(new BigDecimal("-1e999999999"), new BigDecimal("1e999999999"))).getTotal());
+        // Bounds are compared in cents, so one far below a cent rounds to zero
+        assertEquals(2, index.search(query(new BigDecimal("1e-999999999"), null)).getTotal());
+        assertEquals(1, index.search(query(new BigDecimal("0.005"), null)).getTotal());
+        assertEquals(0, index.search(query(new BigDecimal("1e40"), null)).getTotal());
+    }
+
+    private void randomWrite() {
+        int choice = random.nextInt(10);
+        if (choice < 3 || catalog.isEmpty()) {
+            Product product = randomProduct(nextId++);
+            catalog.put(product.getId(), product);
+            index.put(product);
+        } else if (choice < 8) {
+            Product current = randomExisting();
+            Product product = randomProduct(current.getId()).toBuilder().version(current.getVersion() + 1).build();
+            catalog.put(product.getId(), product);
+            index.put(product);
+        } else {
+            Product current = randomExisting();
+            catalog.remove(current.getId());
+            index.remove(current.getId());
+        }
+    }
+
+    private void assertSameResult(ProductQuery query) {
+        ProductPage page = index.search(query);
+        List<Product> matches = catalog.values().stream()
+                .filter(product -> inPriceRange(product, query) && inRatingRange(product, query))
+                .toList();
+        List<Product> expected = matches.stream()
+                .filter(product -> isSelected(product.getBrand(), query.getBrands()) && isSelected(product.getCategory(), query.getCategories()))
+                .toList();
+
+        assertEquals(expected.size(), page.getTotal(), "total of " + describe(query));
+        assertEquals(counts(matches, query.getCategories(), Product::getCategory, Product::getBrand), page.getBrandCounts(), "brands of " + describe(query));
+        assertEquals(counts(matches, query.getBrands(), Product::getBrand, Product::getCategory), page.getCategoryCounts(), "categories of " + describe(query));
+
+        ToLongFunction<Product> key = switch (query.getSortField()) {
+            case ID -> Product::getId;
+            case PRICE -> product -> product.getPrice().movePointRight(2).longValueExact();
+            case RATING -> product -> Math.round(product.getRating() * 100);
+        };
+        Comparator<Product> order = Comparator.comparingLong(key);
+        List<Long> expectedKeys = expected.stream()
+                .sorted(query.isAscending() ? order : order.reversed())
+                .skip((long) query.getPage() * query.getSize())
+                .limit(query.getSize())
+                .map(key::applyAsLong)
+                .toList();
+        // Products with equal keys come in slot order, so compare keys and check each product on the page matches
+        assertEquals(expectedKeys, page.getProducts().stream().map(key::applyAsLong).toList(), "page of " + describe(query));
+        for (Product product : page.getProducts()) {
+            assertTrue(expected.contains(product), "unexpected " + product.getId() + " in " + describe(query));
+        }
+    }
+
+    /** Matches per {@code facet} value among the products selected by the other facet, as the index counts them. */
+    private static Map<String, Integer> counts(List<Product> matches, Set<String> otherSelection,
+                                               Function<Product, String> other,
+                                               Function<Product, String> facet) {
+        return matches.stream()
+                .filter(product -> isSelected(other.apply(product), otherSelection) && facet.apply(product) != null)
+                .collect(Collectors.groupingBy(facet, TreeMap::new, Collectors.summingInt(product -> 1)));
+    }
+
+    private static boolean isSelected(String value, Set<String> selection) {
+        return selection == null || selection.isEmpty() || selection.contains(value);
+    }
+
+    private static boolean inPriceRange(Product product, ProductQuery query) {
+        return (query.getMinPrice() == null || product.getPrice().compareTo(query.getMinPrice()) >= 0)
+                && (query.getMaxPrice() == null || product.getPrice().compareTo(query.getMaxPrice()) <= 0);
+    }
+
+    private static boolean inRatingRange(Product product, ProductQuery query) {
+        return query.getMinRating() == null || Math.round(product.getRating() * 100) >= Math.round(query.getMinRating() * 100);
+    }
+
+    private ProductQuery randomQuery() {
+        return ProductQuery.builder()
+                .brands(randomSelection(BRANDS))
+                .categories(randomSelection(CATEGORIES))
+                .minPrice(random.nextInt(3) == 0 ? randomPrice() : null)
+                .maxPrice(random.nextInt(3) == 0 ? randomPrice() : null)
+                .minRating(random.nextInt(3) == 0 ? random.nextInt(51) / 10.0 : null)
+                .sortField(ProductSortField.values()[random.nextInt(ProductSortField.values().length)])
+                .ascending(random.nextBoolean())
+                .page(random.nextInt(4) == 0 ? random.nextInt(20) : 0)
+                .size(1 + random.nextInt(50))
+                .build();
+    }
+
+    private Set<String> randomSelection(String[] values) {
+        Set<String> selection = new HashSet<>();
+        for (String value : values) {
+            if (value != null && random.nextInt(4) == 0) {
+                selection.add(value);
+            }
+        }
+        if (random.nextInt(10) == 0) {
+            selection.add("Unknown");
+        }
+        return selection;
+    }
+
+    private Product randomProduct(long id) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .brand(BRANDS[random.nextInt(BRANDS.length)])
+                .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .price(randomPrice())
+                .rating(random.nextInt(51) / 10.0)
+                .version(0L)
+                .build();
+    }
+
+    private BigDecimal randomPrice() {
+        // Few distinct prices, so ties and the boundaries of price ranges are common
+        return BigDecimal.valueOf(random.nextInt(200) * 25L, 2);
+    }
+
+    private Product randomExisting() {
+        List<Long> ids = new ArrayList<>(catalog.keySet());
+        return catalog.get(ids.get(random.nextInt(ids.size())));
+    }
+
+    private static Product product(long id, long version, String price) {
+        return Product.builder().id(id).price(new BigDecimal(price)).version(version).build();
+    }
+
+    private static ProductQuery query(BigDecimal minPrice, BigDecimal maxPrice) {
+        return ProductQuery.builder().minPrice(minPrice).maxPrice(maxPrice).sortField(ProductSortField.ID).ascending(true).size(10).build();
+    }
+
+    private static String describe(ProductQuery query) {
+        return "brands=" + query.getBrands() + " categories=" + query.getCategories() + " price=" + query.getMinPrice() + ".." + query.getMaxPrice()
+                + " rating>=" + query.getMinRating() + " sort=" + query.getSortField() + (query.isAscending() ? " asc" : " desc")
+                + " page=" + query.getPage() + "x" + query.getSize();
+    }
+}
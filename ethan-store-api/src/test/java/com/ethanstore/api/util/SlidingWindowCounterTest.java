@@ -0,0 +1,115 @@
+package com.ethanstore.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlidingWindowCounterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @Test
+    void countsEventsInsideTheSlidingWindowOnly() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(5, Duration.ofSeconds(60), 1000, 4, clock::get);
+        counter.record("alice");
+        advanceSeconds(30);
+        counter.record("alice");
+        counter.record("alice");
+        assertEquals(3, counter.count("alice"));
+
+        advanceSeconds(30);
+        assertEquals(2, counter.count("alice"));
+
+        advanceSeconds(30);
+        assertEquals(0, counter.count("alice"));
+        assertEquals(0, counter.count("bob"));
+    }
+
+    @Test
+    void capsTheCountAtTheLimitAndResets() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(5, Duration.ofMinutes(15), 1000, 4, clock::get);
+        for (int i = 0; i < 8; i++) {
+            counter.record("alice");
+        }
+        assertEquals(5, counter.count("alice"));
+
+        counter.reset("alice");
+        assertEquals(0, counter.count("alice"));
+        assertEquals(1, counter.record("alice"));
+    }
+
+    @Test
+    void keepsRecentKeysWhenTheCeilingIsReached() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(5, Duration.ofMinutes(15), 1000, 1, clock::get);
+        for (int i = 0; i < 5; i++) {
+            counter.record("victim");
+        }
+        advanceSeconds(60);
+        for (int i = 0; i < 100_000; i++) {
+            counter.record("attacker-" + i);
+        }
+        assertTrue(counter.size() <= 1000, "size " + counter.size());
+        assertEquals(1, counter.count("attacker-99999"));
+
+        // A key active after the flood outlives it: the next evictions take the flood's keys, which are older
+        advanceSeconds(60);
+        for (int i = 0; i < 5; i++) {
+            counter.record("recent");
+        }
+        for (int i = 0; i < 500; i++) {
+            counter.record("late-" + i);
+        }
+        assertTrue(counter.evictions() > 0);
+        assertEquals(5, counter.count("recent"));
+        assertEquals(1, counter.count("late-499"));
+
+        advanceSeconds(15 * 60);
+        assertEquals(0, counter.count("attacker-99999"));
+        assertEquals(1, counter.record("fresh"));
+    }
+
+    @Test
+    void keepsEveryIncrementUnderContention() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(100, Duration.ofMinutes(15), 100_000, 8, clock::get);
+        int threads = 8;
+        int keys = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < 10; round++) {
+                    for (int key = 0; key < keys; key++) {
+                        counter.record("user-" + key);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(keys, counter.size());
+        for (int key = 0; key < keys; key++) {
+            assertEquals(threads * 10, counter.count("user-" + key));
+        }
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(seconds * 1000);
+    }
+}
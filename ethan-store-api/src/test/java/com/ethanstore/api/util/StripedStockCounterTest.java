@@ -0,0 +1,86 @@
+package com.ethanstore.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedStockCounterTest {
+
+    private static final int THREADS = 4;
+
+    @Test
+    void returnedUnitsPayOffADebtBeforeTheyCanBeTaken() {
+        StripedStockCounter counter = new StripedStockCounter(10, 4);
+        assertTrue(counter.tryTake(10));
+        counter.remove(4);
+        counter.add(3);
+        assertFalse(counter.tryTake(1));
+        counter.add(3);
+        assertEquals(2, counter.available());
+        assertTrue(counter.tryTake(2));
+        assertFalse(counter.tryTake(1));
+    }
+
+    @Test
+    void loweringStockWhileReservationsAreReleasedNeverOversells() throws Exception {
+        int stock = 2_000;
+        int lowered = stock - 10;
+        for (int round = 0; round < 50; round++) {
+            StripedStockCounter counter = new StripedStockCounter(stock, 8);
+            // Everything is reserved and the stock is lowered below that, then buyers release and others retake at once
+            for (int i = 0; i < stock; i++) {
+                assertTrue(counter.tryTake(1));
+            }
+            counter.remove(lowered);
+            LongAdder released = new LongAdder();
+            LongAdder taken = new LongAdder();
+            CountDownLatch releasing = new CountDownLatch(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int unit = 0; unit < stock / THREADS; unit++) {
+                            counter.add(1);
+                            released.increment();
+                        }
+                        releasing.countDown();
+                        return null;
+                    }));
+                }
+                for (int i = 0; i < THREADS; i++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        while (releasing.getCount() > 0 || counter.available() > 0) {
+                            if (counter.tryTake(1)) {
+                                taken.increment();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(stock, released.sum());
+            assertEquals(stock - lowered, taken.sum(), "round " + round);
+            assertEquals(0, counter.available());
+        }
+    }
+}
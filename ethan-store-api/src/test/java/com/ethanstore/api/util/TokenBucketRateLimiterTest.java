@@ -0,0 +1,69 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.util.TokenBucketRateLimiter.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+
+    @Test
+    void allowsABurstOfCapacityThenRejectsUntilRefilled() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(3, 1, 60, 100, clock::get);
+        assertEquals(2, limiter.tryAcquire("alice").remaining());
+        assertEquals(1, limiter.tryAcquire("alice").remaining());
+        Decision last = limiter.tryAcquire("alice");
+        assertTrue(last.allowed());
+        assertEquals(0, last.remaining());
+        assertEquals(TimeUnit.SECONDS.toNanos(3), last.resetNanos());
+
+        Decision rejected = limiter.tryAcquire("alice");
+        assertFalse(rejected.allowed());
+        assertEquals(TimeUnit.SECONDS.toNanos(1), rejected.retryAfterNanos());
+        assertTrue(limiter.tryAcquire("bob").allowed());
+
+        advanceMillis(999);
+        assertFalse(limiter.tryAcquire("alice").allowed());
+        advanceMillis(1);
+        assertTrue(limiter.tryAcquire("alice").allowed());
+        assertFalse(limiter.tryAcquire("alice").allowed());
+    }
+
+    @Test
+    void idleTimeRefillsNoMoreThanCapacity() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 10, 60, 100, clock::get);
+        limiter.tryAcquire("alice");
+        advanceMillis(TimeUnit.HOURS.toMillis(1));
+        assertEquals(1, limiter.tryAcquire("alice").remaining());
+        assertEquals(0, limiter.tryAcquire("alice").remaining());
+        assertFalse(limiter.tryAcquire("alice").allowed());
+    }
+
+    @Test
+    void stopsTrackingNewKeysAtTheCeilingUntilIdleBucketsAreEvicted() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 1, 60, 2, clock::get);
+        limiter.tryAcquire("alice");
+        limiter.tryAcquire("bob");
+        assertNull(limiter.tryAcquire("carol"));
+        assertFalse(limiter.tryAcquire("alice").allowed());
+
+        advanceMillis(TimeUnit.SECONDS.toMillis(30));
+        assertEquals(0, limiter.evictIdle());
+        advanceMillis(TimeUnit.SECONDS.toMillis(32));
+        assertEquals(2, limiter.evictIdle());
+        assertEquals(0, limiter.size());
+        assertTrue(limiter.tryAcquire("carol").allowed());
+    }
+
+    private void advanceMillis(long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
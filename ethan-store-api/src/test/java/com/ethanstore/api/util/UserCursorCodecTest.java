@@ -0,0 +1,48 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.exception.domain.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static com.ethanstore.api.enumeration.UserSortField.ID;
+import static com.ethanstore.api.enumeration.UserSortField.JOIN_DATE;
+import static com.ethanstore.api.enumeration.UserSortField.USERNAME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UserCursorCodecTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        LocalDateTime joinDate = LocalDateTime.of(2021, 3, 4, 5, 6, 7);
+        UserCursorCodec.Position position = UserCursorCodec.decode(UserCursorCodec.encode(JOIN_DATE, false, 42L, joinDate), JOIN_DATE, false);
+        assertEquals(42L, position.getId());
+        assertEquals(joinDate, position.getValue());
+
+        position = UserCursorCodec.decode(UserCursorCodec.encode(USERNAME, true, 7L, "a|b"), USERNAME, true);
+        assertEquals(7L, position.getId());
+        assertEquals("a|b", position.getValue());
+    }
+
+    @Test
+    void rejectsCursorsForAnotherSortOrDirection() {
+        String cursor = UserCursorCodec.encode(USERNAME, true, 7L, "alice");
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode(cursor, ID, true));
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode(cursor, USERNAME, false));
+    }
+
+    @Test
+    void rejectsTamperedCursors() {
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode("not base64!", ID, true));
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode(encodeRaw("ID|asc|seven|7"), ID, true));
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode(encodeRaw("JOIN_DATE|asc|1|yesterday"), JOIN_DATE, true));
+        assertThrows(BadRequestException.class, () -> UserCursorCodec.decode(encodeRaw("ID|asc|1"), ID, true));
+    }
+
+    private static String encodeRaw(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.ethanstore.api.util;
+
+import com.ethanstore.api.domain.JwtClaims;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerifiedTokenCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.DAYS.toMillis(20_000));
+
+    @Test
+    void entriesExpireAfterTheTimeToLive() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 60, clock::get);
+        JwtClaims claims = claims(TimeUnit.HOURS.toMillis(1));
+        cache.put("token", claims);
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(59));
+        assertSame(claims, cache.get("token"));
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(1));
+        assertNull(cache.get("token"));
+    }
+
+    @Test
+    void expiredTokensAreDroppedBeforeTheirEntry() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 600, clock::get);
+        cache.put("token", claims(TimeUnit.SECONDS.toMillis(30)));
+        assertEquals(1, cache.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(30));
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void staysWithinItsMaximumSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 600, clock::get);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, claims(TimeUnit.HOURS.toMillis(1)));
+        }
+        assertTrue(cache.size() <= 10, "size " + cache.size());
+        assertTrue(cache.get("token-99") != null, "the latest token is kept");
+    }
+
+    @Test
+    void tokensAreKeyedByTheirWholeValue() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(100, 600, clock::get);
+        JwtClaims claims = claims(TimeUnit.HOURS.toMillis(1));
+        cache.put("header.payload.signature", claims);
+        assertSame(claims, cache.get("header.payload.signature"));
+        assertNull(cache.get("header.payload.signaturf"));
+    }
+
+    private JwtClaims claims(long expiresInMillis) {
+        return new JwtClaims("alice", List.of(), new Date(clock.get() + expiresInMillis));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ethanstore.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result file with a baseline from an earlier run and fails when any benchmark got slower than
+ * the allowed percentage. Throughput results regress when they drop; time-per-operation results when they rise.
+ * Benchmarks missing from either file are reported and skipped.
+ * <pre>
+ * mvn -pl ethan-store-bench exec:java -Dexec.mainClass=com.ethanstore.bench.BenchmarkRegressionCheck \
+ *     -Dregression.baseline=baseline/jmh-result.json -Dregression.tolerance-percent=10
+ * </pre>
+ */
+public final class BenchmarkRegressionCheck {
+
+    private static final String BASELINE = System.getProperty("regression.baseline");
+    private static final String CURRENT = System.getProperty("regression.current", "target/jmh-result.json");
+    private static final double TOLERANCE_PERCENT = Double.parseDouble(System.getProperty("regression.tolerance-percent", "10"));
+
+    private BenchmarkRegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (BASELINE == null) {
+            System.err.println("Set -Dregression.baseline to the JMH result file to compare against");
+            System.exit(2);
+        }
+        Map<String, JsonNode> baseline = read(new File(BASELINE));
+        Map<String, JsonNode> current = read(new File(CURRENT));
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("NEW        %s%n", entry.getKey());
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+            double slowdownPercent = (higherIsBetter ? oldScore / newScore - 1 : newScore / oldScore - 1) * 100;
+            boolean regressed = slowdownPercent > TOLERANCE_PERCENT;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-10s %s: %.3f -> %.3f %s (%+.1f%% slower)%n", regressed ? "REGRESSED" : "OK", entry.getKey(),
+                    oldScore, newScore, entry.getValue().path("primaryMetric").path("scoreUnit").asText(), slowdownPercent);
+        }
+        baseline.keySet().stream()
+                .filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("MISSING    %s%n", key));
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, TOLERANCE_PERCENT);
+            System.exit(1);
+        }
+    }
+
+    /** Results keyed by benchmark name, mode and parameters, so each parameter combination is compared on its own. */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText()).append(' ').append(result.path("mode").asText());
+            result.path("params").fields().forEachRemaining(param -> key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,54 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.User;
+import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.util.JwtTokenProvider;
+import org.springframework.beans.DirectFieldAccessor;
+
+import static com.ethanstore.api.constant.Authority.ADMIN_AUTHORITIES;
+import static com.ethanstore.api.enumeration.Role.ROLE_ADMIN;
+
+/**
+ * Builds the application components outside of a Spring context so benchmarks only measure the code under test.
+ */
+public final class BenchmarkSupport {
+
+    public static final String JWT_SECRET = "benchmark-secret-for-the-ethan-store-api";
+
+    private BenchmarkSupport() {
+    }
+
+    public static JwtTokenProvider jwtTokenProvider(long verifiedCacheMaximumSize) {
+        return jwtTokenProvider(verifiedCacheMaximumSize, true);
+    }
+
+    public static JwtTokenProvider jwtTokenProvider(long verifiedCacheMaximumSize, boolean compactAuthorities) {
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider();
+        DirectFieldAccessor accessor = new DirectFieldAccessor(jwtTokenProvider);
+        accessor.setPropertyValue("secret", JWT_SECRET);
+        accessor.setPropertyValue("verifiedCacheMaximumSize", verifiedCacheMaximumSize);
+        accessor.setPropertyValue("verifiedCacheTtlSeconds", 300L);
+        accessor.setPropertyValue("compactAuthorities", compactAuthorities);
+        jwtTokenProvider.init();
+        return jwtTokenProvider;
+    }
+
+    public static User adminUser() {
+        return User.builder()
+                .id(1L)
+                .userId("1234567890")
+                .firstName("Bench")
+                .lastName("Mark")
+                .username("benchmark")
+                .email("benchmark@ethanstore.com")
+                .role(ROLE_ADMIN.name())
+                .authorities(ADMIN_AUTHORITIES)
+                .isActive(true)
+                .isNotLocked(true)
+                .build();
+    }
+
+    public static UserPrincipal adminPrincipal() {
+        return new UserPrincipal(adminUser());
+    }
+}
@@ -0,0 +1,55 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.UserPrincipal;
+import com.ethanstore.api.util.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing on login and the claim accessors used on every authorized request. With a cache size of 0 every
+ * accessor call verifies the HMAC; otherwise it is answered from the verified-token cache. {@code compactAuthorities}
+ * compares the authority bitmask claim with the authority names.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    @Param({"0", "10000"})
+    private long verifiedCacheMaximumSize;
+
+    @Param({"true", "false"})
+    private boolean compactAuthorities;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private UserPrincipal userPrincipal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = BenchmarkSupport.jwtTokenProvider(verifiedCacheMaximumSize, compactAuthorities);
+        userPrincipal = BenchmarkSupport.adminPrincipal();
+        token = jwtTokenProvider.generateJwttoken(userPrincipal);
+    }
+
+    @Benchmark
+    public String generateJwttoken() {
+        return jwtTokenProvider.generateJwttoken(userPrincipal);
+    }
+
+    @Benchmark
+    public String getSubject() {
+        return jwtTokenProvider.getSubject(token);
+    }
+
+    @Benchmark
+    public List<GrantedAuthority> getAuthorities() {
+        return jwtTokenProvider.getAuthorities(token);
+    }
+}
@@ -0,0 +1,63 @@
+package com.ethanstore.bench;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.ethanstore.api.domain.JwtClaims;
+import com.ethanstore.api.util.JwtTokenProvider;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
+import static com.ethanstore.api.constant.SecurityConstant.AUTHORITIES;
+import static com.ethanstore.api.constant.SecurityConstant.GET_ARRAYS_LLC;
+
+/**
+ * Cost of authorizing one request in {@code JwtAuthorizationFilter}: the original three-verification path against
+ * the verify-once path, with and without the verified-token cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        uncachedProvider = BenchmarkSupport.jwtTokenProvider(0);
+        cachedProvider = BenchmarkSupport.jwtTokenProvider(10_000);
+        token = cachedProvider.generateJwttoken(BenchmarkSupport.adminPrincipal());
+    }
+
+    @Benchmark
+    public void tripleVerification(Blackhole blackhole) {
+        String subject = legacyVerifier().verify(token).getSubject();
+        Date expiresAt = legacyVerifier().verify(token).getExpiresAt();
+        String[] authorities = legacyVerifier().verify(token).getClaim(AUTHORITIES).asArray(String.class);
+        blackhole.consume(subject);
+        blackhole.consume(expiresAt.before(new Date()));
+        blackhole.consume(authorities);
+    }
+
+    @Benchmark
+    public JwtClaims verifyOnce() {
+        return uncachedProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public JwtClaims verifyOnceCached() {
+        return cachedProvider.verifyToken(token);
+    }
+
+    private JWTVerifier legacyVerifier() {
+        return JWT.require(HMAC512(BenchmarkSupport.JWT_SECRET)).withIssuer(GET_ARRAYS_LLC).build();
+    }
+}
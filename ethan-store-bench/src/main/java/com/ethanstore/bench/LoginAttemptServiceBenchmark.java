@@ -0,0 +1,59 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.service.LoginAttemptService;
+import com.ethanstore.api.service.impl.InMemoryLoginAttemptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LoginAttemptService} as the login path uses it, with eight threads on the default in-memory store: the
+ * lockout check before authenticating, then either a recorded failure or a reset after success.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LoginAttemptServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int usernames;
+
+    private String[] keys;
+    private LoginAttemptService loginAttemptService;
+
+    @Setup
+    public void setUp() {
+        keys = new String[usernames];
+        for (int i = 0; i < usernames; i++) {
+            keys[i] = "user-" + i;
+        }
+        InMemoryLoginAttemptStore store = new InMemoryLoginAttemptStore(900, 64, 5, 1_000_000, 50, 100_000, new SimpleMeterRegistry());
+        loginAttemptService = new LoginAttemptService(store, 900, 5, 50, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean failedLogin() {
+        String username = randomKey();
+        boolean locked = loginAttemptService.hasExceededMaxAttempts(username);
+        loginAttemptService.addUserToLoginAttemptCache(username);
+        return locked;
+    }
+
+    @Benchmark
+    public boolean successfulLogin() {
+        String username = randomKey();
+        boolean locked = loginAttemptService.hasExceededMaxAttempts(username);
+        loginAttemptService.evictUserFromLoginAttemptCache(username);
+        return locked;
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+}
@@ -0,0 +1,103 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.domain.ProductPage;
+import com.ethanstore.api.domain.ProductQuery;
+import com.ethanstore.api.enumeration.ProductSortField;
+import com.ethanstore.api.util.ProductFacetIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog queries against {@link ProductFacetIndex}: the unfiltered landing page, a brand and category drill-down,
+ * a price and rating range, and a deep page, each with both facet counts. {@code put} is an incremental price
+ * change, the write every query has to wait for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductFacetIndexBenchmark {
+
+    private static final int BRANDS = 50;
+    private static final int CATEGORIES = 20;
+    private static final String DESCRIPTION = "Benchmark product";
+
+    @Param({"10000", "1000000"})
+    private int products;
+
+    private ProductFacetIndex index;
+    private List<Product> catalog;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            catalog.add(product(id, random));
+        }
+        index = new ProductFacetIndex();
+        index.load(catalog);
+    }
+
+    @Benchmark
+    public ProductPage landingPage() {
+        return index.search(query(ProductSortField.RATING, false, 0).build());
+    }
+
+    @Benchmark
+    public ProductPage brandAndCategory() {
+        return index.search(query(ProductSortField.PRICE, true, 0)
+                .brands(Set.of("brand-7", "brand-12"))
+                .categories(Set.of("category-3"))
+                .build());
+    }
+
+    @Benchmark
+    public ProductPage priceAndRatingRange() {
+        return index.search(query(ProductSortField.PRICE, true, 0)
+                .minPrice(BigDecimal.valueOf(100))
+                .maxPrice(BigDecimal.valueOf(150))
+                .minRating(4.0)
+                .build());
+    }
+
+    @Benchmark
+    public ProductPage deepPage() {
+        return index.search(query(ProductSortField.ID, false, 100).build());
+    }
+
+    @Benchmark
+    public void put() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Product product = catalog.get(random.nextInt(catalog.size()));
+        index.put(product.toBuilder().price(BigDecimal.valueOf(random.nextInt(1, 200_000), 2)).build());
+    }
+
+    private static ProductQuery.ProductQueryBuilder query(ProductSortField sortField, boolean ascending, int page) {
+        return ProductQuery.builder().sortField(sortField).ascending(ascending).page(page).size(24);
+    }
+
+    private static Product product(long id, Random random) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .description(DESCRIPTION)
+                .brand("brand-" + random.nextInt(BRANDS))
+                .category("category-" + random.nextInt(CATEGORIES))
+                .price(BigDecimal.valueOf(random.nextInt(1, 200_000), 2))
+                .countInStock(random.nextInt(100))
+                .rating(random.nextInt(11) / 2.0)
+                .numReviews(random.nextInt(500))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.Product;
+import com.ethanstore.api.service.ProductSearchService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text product search on the in-memory Lucene index at two catalog sizes: an exact two-word query, the same
+ * query with typos, name autocompletion, and the first one to three letters typed into the search box. Latency should
+ * stay roughly flat as the catalog grows; a one-letter query only matches exact terms, so it should not scan the
+ * catalog.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ProductSearchBenchmark {
+
+    private static final String[] ADJECTIVES = {"wireless", "portable", "gaming", "compact", "ultra", "smart", "classic", "digital", "premium", "ergonomic"};
+    private static final String[] NOUNS = {"headphones", "speaker", "mouse", "keyboard", "camera", "phone", "monitor", "console", "watch", "charger"};
+    private static final String[] BRANDS = {"Apple", "Sony", "Cannon", "Logitech", "Amazon", "Samsung", "Bose", "Philips"};
+
+    @Param({"10000", "1000000"})
+    private int products;
+
+    private ProductSearchService productSearchService;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        List<Product> catalog = new ArrayList<>(products);
+        for (long id = 1; id <= products; id++) {
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            catalog.add(Product.builder()
+                    .id(id)
+                    .name(brand + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " " + id)
+                    .description("A " + ADJECTIVES[random.nextInt(ADJECTIVES.length)] + " " + noun + " for everyday use")
+                    .brand(brand)
+                    .price(BigDecimal.valueOf(random.nextInt(1, 200_000), 2))
+                    .rating(random.nextInt(11) / 2.0)
+                    .numReviews(random.nextInt(500))
+                    .build());
+        }
+        productSearchService = new ProductSearchService("");
+        productSearchService.open();
+        productSearchService.rebuild(catalog);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        productSearchService.close();
+    }
+
+    @Benchmark
+    public ProductSearchService.Hits exactTerms() {
+        return productSearchService.search("wireless headphones", 0, 24);
+    }
+
+    @Benchmark
+    public ProductSearchService.Hits withTypos() {
+        return productSearchService.search("wirelss hedphones", 0, 24);
+    }
+
+    @Benchmark
+    public List<String> autocomplete() {
+        return productSearchService.suggest("sony gaming hea", 8);
+    }
+
+    @Benchmark
+    public ProductSearchService.Hits oneLetter() {
+        return productSearchService.search("w", 0, 24);
+    }
+
+    @Benchmark
+    public ProductSearchService.Hits threeLetterPrefix() {
+        return productSearchService.search("wir", 0, 24);
+    }
+}
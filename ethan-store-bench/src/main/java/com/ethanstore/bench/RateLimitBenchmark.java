@@ -0,0 +1,72 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.util.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.ethanstore.api.constant.SecurityConstant.PUBLIC_URLS;
+
+/**
+ * Per-request cost of the rate limiter: taking a token from an existing bucket under contention, and routing a path
+ * through the default rules with {@link PathPattern}, which {@code RateLimitFilter} avoids for plain patterns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final String[] RULE_PATTERNS = {"/user/login", "/user/register", "/user/reset-password/**", "/user/image/**"};
+
+    @Param({"1000", "100000"})
+    private int clients;
+
+    private String[] keys;
+    private TokenBucketRateLimiter limiter;
+    private PathPattern[] patterns;
+
+    @Setup
+    public void setUp() {
+        keys = new String[clients];
+        limiter = new TokenBucketRateLimiter(100, 1_000_000, 60, 1_000_000);
+        for (int i = 0; i < clients; i++) {
+            keys[i] = "10.0." + (i >> 8) + "." + (i & 0xff);
+            limiter.tryAcquire(keys[i]);
+        }
+        PathPatternParser parser = PathPatternParser.defaultInstance;
+        patterns = new PathPattern[RULE_PATTERNS.length + PUBLIC_URLS.length + 1];
+        int i = 0;
+        for (String pattern : RULE_PATTERNS) {
+            patterns[i++] = parser.parse(pattern);
+        }
+        for (String pattern : PUBLIC_URLS) {
+            patterns[i++] = parser.parse(pattern);
+        }
+        patterns[i] = parser.parse("/**");
+    }
+
+    @Benchmark
+    public TokenBucketRateLimiter.Decision tryAcquire() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    /** Baseline for the string matching {@code RateLimitFilter} does for plain patterns. */
+    @Benchmark
+    public int pathPatternRouteForProtectedPath() {
+        PathContainer path = PathContainer.parsePath("/user/list");
+        for (int i = 0; i < patterns.length; i++) {
+            if (patterns[i].matches(path)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
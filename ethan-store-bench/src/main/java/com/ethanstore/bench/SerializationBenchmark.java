@@ -0,0 +1,58 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.HttpResponse;
+import com.ethanstore.api.domain.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.HttpStatus.OK;
+
+/**
+ * Jackson serialization of the two response bodies the API returns most, with an {@link ObjectMapper} configured the
+ * way Spring MVC builds it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private HttpResponse httpResponse;
+    private byte[] userJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = BenchmarkSupport.adminUser();
+        httpResponse = HttpResponse.builder()
+                .httpStatusCode(OK.value())
+                .httpStatus(OK)
+                .reason(OK.getReasonPhrase().toUpperCase())
+                .message("User deleted successfully")
+                .build();
+        userJson = objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws IOException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User readUser() throws IOException {
+        return objectMapper.readValue(userJson, User.class);
+    }
+
+    @Benchmark
+    public byte[] writeHttpResponse() throws IOException {
+        return objectMapper.writeValueAsBytes(httpResponse);
+    }
+}
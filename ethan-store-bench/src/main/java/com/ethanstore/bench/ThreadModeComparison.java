@@ -0,0 +1,163 @@
+package com.ethanstore.bench;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and tail latency of the API with platform-thread and with virtual-thread request handling, under more
+ * concurrent clients than Tomcat has platform threads. Not a JMH benchmark: each mode starts the exec jar in its own
+ * JVM on an in-memory database, seeds users, then drives an authenticated endpoint from closed-loop clients.
+ * <p>
+ * Build the API with the {@code java21} profile and point {@code comparison.java} at a Java 21 {@code java}:
+ * <pre>
+ * mvn -pl ethan-store-api -P java21 package -DskipTests
+ * mvn -pl ethan-store-bench exec:java -Dexec.mainClass=com.ethanstore.bench.ThreadModeComparison \
+ *     -Dcomparison.java=$JAVA21_HOME/bin/java -Dcomparison.clients=1000
+ * </pre>
+ * Rate and concurrency limiting are switched off so that only the threading model differs.
+ */
+public final class ThreadModeComparison {
+
+    private static final String VIRTUAL_THREADS_STARTED = "Handling requests on virtual threads";
+    private static final String JAR = System.getProperty("comparison.jar", "../ethan-store-api/target/ethan-store-api-0.0.1-SNAPSHOT-exec.jar");
+    private static final String JAVA = System.getProperty("comparison.java", "java");
+    private static final String PATH = System.getProperty("comparison.path", "/user/list?size=20");
+    private static final int PORT = Integer.getInteger("comparison.port", 8097);
+    private static final int CLIENTS = Integer.getInteger("comparison.clients", 1000);
+    private static final int USERS = Integer.getInteger("comparison.users", 50);
+    private static final int TOMCAT_THREADS = Integer.getInteger("comparison.tomcat-threads", 200);
+    private static final long WARMUP_SECONDS = Long.getLong("comparison.warmup-seconds", 10);
+    private static final long MEASURE_SECONDS = Long.getLong("comparison.measure-seconds", 30);
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String token = BenchmarkSupport.jwtTokenProvider(10_000).generateJwttoken(BenchmarkSupport.adminPrincipal());
+        List<String> results = new ArrayList<>();
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            results.add(run(virtualThreads, token));
+        }
+        System.out.printf("%n%-9s %8s %12s %10s %10s %10s %8s%n", "mode", "clients", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach(System.out::println);
+    }
+
+    private static String run(boolean virtualThreads, String token) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        Path log = Path.of("target", "thread-mode-" + mode + ".log");
+        Process app = new ProcessBuilder(JAVA, "-jar", JAR,
+                "--server.port=" + PORT,
+                "--jwt.secret=" + BenchmarkSupport.JWT_SECRET,
+                "--spring.datasource.url=jdbc:h2:mem:comparison;MODE=PostgreSQL;DATABASE_TO_LOWER=true",
+                "--spring.jpa.show-sql=false",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--ethanstore.virtual-threads.enabled=" + virtualThreads,
+                "--ethanstore.rate-limit.enabled=false",
+                "--ethanstore.concurrency-limit.enabled=false")
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+            awaitStartup(client);
+            if (virtualThreads && !Files.readString(log).contains(VIRTUAL_THREADS_STARTED)) {
+                throw new IllegalStateException("Virtual threads are not active; build the API with -P java21 and run it on Java 21");
+            }
+            seedUsers(client);
+            drive(client, token, WARMUP_SECONDS);
+            Result result = drive(client, token, MEASURE_SECONDS);
+            Histogram histogram = result.histogram();
+            return String.format("%-9s %8d %12.0f %10.2f %10.2f %10.2f %8d", mode, CLIENTS,
+                    histogram.getTotalCount() / (double) MEASURE_SECONDS,
+                    histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getMaxValue() / 1e6, result.errors());
+        } finally {
+            app.destroy();
+            app.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Result drive(HttpClient client, String token, long seconds) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + PATH))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        Recorder recorder = new Recorder(3);
+        LongAdder errors = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        for (int i = 0; i < CLIENTS; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.increment();
+                            }
+                        } catch (IOException e) {
+                            errors.increment();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        recorder.recordValue(System.nanoTime() - start);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "client-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        recorder.reset();
+        TimeUnit.SECONDS.sleep(seconds);
+        Histogram histogram = recorder.getIntervalHistogram();
+        running.set(false);
+        done.await(90, TimeUnit.SECONDS);
+        return new Result(histogram, errors.sum());
+    }
+
+    private static void seedUsers(HttpClient client) throws IOException, InterruptedException {
+        for (int i = 0; i < USERS; i++) {
+            String body = String.format("{\"firstName\":\"Load\",\"lastName\":\"User%d\",\"username\":\"load%d\",\"email\":\"load%d@ethanstore.com\"}", i, i, i);
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/user/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.discarding());
+        }
+    }
+
+    private static void awaitStartup(HttpClient client) throws InterruptedException {
+        HttpRequest probe = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + "/user/image/profile/Ab")).build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            try {
+                client.send(probe, HttpResponse.BodyHandlers.discarding());
+                return;
+            } catch (IOException e) {
+                TimeUnit.MILLISECONDS.sleep(500);
+            }
+        }
+        throw new IllegalStateException("The API did not start within two minutes, see target/thread-mode-*.log");
+    }
+
+    private record Result(Histogram histogram, long errors) {
+    }
+}
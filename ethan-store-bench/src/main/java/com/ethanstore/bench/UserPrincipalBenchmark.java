@@ -0,0 +1,32 @@
+package com.ethanstore.bench;
+
+import com.ethanstore.api.domain.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserPrincipal#getAuthorities()}, which Spring Security calls on login and whenever the token is issued.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserPrincipalBenchmark {
+
+    private UserPrincipal userPrincipal;
+
+    @Setup
+    public void setUp() {
+        userPrincipal = BenchmarkSupport.adminPrincipal();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userPrincipal.getAuthorities();
+    }
+}